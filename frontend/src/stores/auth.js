@@ -3,7 +3,7 @@
  * 
  * Gère:
  * - L'état de connexion de l'utilisateur
- * - Le token JWT
+ * - Le token JWT (courte durée) et le refresh token qui permet de le renouveler
  * - Les informations utilisateur (id, username, roles)
  * - Les actions de login/logout
  * - La persistance dans le localStorage
@@ -15,6 +15,7 @@ import axios from 'axios'
 export const useAuthStore = defineStore('auth', () => {
   // État
   const token = ref(localStorage.getItem('token') || null)
+  const refreshToken = ref(localStorage.getItem('refreshToken') || null)
   const user = ref(JSON.parse(localStorage.getItem('user') || 'null'))
 
   // Getters (computed)
@@ -37,36 +38,82 @@ export const useAuthStore = defineStore('auth', () => {
         password
       })
 
-      // Sauvegarde du token et des infos utilisateur
-      token.value = response.data.token
-      user.value = {
-        id: response.data.id,
-        username: response.data.username,
-        roles: response.data.roles
-      }
-
-      // Persistance dans le localStorage
-      localStorage.setItem('token', token.value)
-      localStorage.setItem('user', JSON.stringify(user.value))
-
-      // Configuration du header Authorization pour toutes les futures requêtes
-      axios.defaults.headers.common['Authorization'] = `Bearer ${token.value}`
-
+      storeSession(response.data)
       return response.data
     } catch (error) {
       throw error
     }
   }
 
+  /**
+   * Enregistre les tokens et les infos utilisateur d'une réponse
+   * d'authentification (login ou refresh)
+   * 
+   * @param {Object} data - Réponse {token, refreshToken, id, username, roles}
+   */
+  function storeSession(data) {
+    token.value = data.token
+    refreshToken.value = data.refreshToken
+    user.value = {
+      id: data.id,
+      username: data.username,
+      roles: data.roles
+    }
+
+    // Persistance dans le localStorage
+    localStorage.setItem('token', token.value)
+    localStorage.setItem('refreshToken', refreshToken.value)
+    localStorage.setItem('user', JSON.stringify(user.value))
+
+    // Configuration du header Authorization pour toutes les futures requêtes
+    axios.defaults.headers.common['Authorization'] = `Bearer ${token.value}`
+  }
+
+  // Rafraîchissement en cours, partagé par les requêtes refusées en même temps
+  let pendingRefresh = null
+
+  /**
+   * Renouvelle le token d'accès à l'aide du refresh token
+   * 
+   * Les appels concurrents partagent le même rafraîchissement: le refresh
+   * token est à usage unique, le présenter deux fois révoquerait la session.
+   * 
+   * @returns {Promise<string>} Le nouveau token d'accès
+   */
+  function refresh() {
+    if (!pendingRefresh) {
+      pendingRefresh = axios.post('/api/auth/refresh', { refreshToken: refreshToken.value })
+        .then((response) => {
+          storeSession(response.data)
+          return token.value
+        })
+        .finally(() => {
+          pendingRefresh = null
+        })
+    }
+    return pendingRefresh
+  }
+
   /**
    * Action de déconnexion
    * 
-   * Nettoie le token, les infos utilisateur et le localStorage
+   * Révoque le token côté serveur (sans attendre la réponse), puis
+   * nettoie le token, les infos utilisateur et le localStorage
+   * 
+   * @param {boolean} revoke - false si le token est déjà refusé par le serveur
    */
-  function logout() {
+  function logout(revoke = true) {
+    if (revoke && token.value) {
+      axios.post('/api/auth/logout', { refreshToken: refreshToken.value }, {
+        headers: { Authorization: `Bearer ${token.value}` }
+      }).catch(() => {})
+    }
+
     token.value = null
+    refreshToken.value = null
     user.value = null
     localStorage.removeItem('token')
+    localStorage.removeItem('refreshToken')
     localStorage.removeItem('user')
     delete axios.defaults.headers.common['Authorization']
   }
@@ -84,12 +131,27 @@ export const useAuthStore = defineStore('auth', () => {
     // Intercepteur pour gérer les erreurs 401 (non autorisé)
     axios.interceptors.response.use(
       (response) => response,
-      (error) => {
-        if (error.response?.status === 401) {
-          // Token expiré ou invalide - déconnexion automatique
-          logout()
-          window.location.href = '/login'
+      async (error) => {
+        const request = error.config
+        if (error.response?.status !== 401 || request?.url?.startsWith('/api/auth/')) {
+          return Promise.reject(error)
         }
+
+        // Token d'accès expiré: une tentative de renouvellement, puis rejeu de la requête
+        if (refreshToken.value && !request._retried) {
+          try {
+            const newToken = await refresh()
+            request._retried = true
+            request.headers['Authorization'] = `Bearer ${newToken}`
+            return axios(request)
+          } catch (refreshError) {
+            // Refresh token expiré ou révoqué: déconnexion ci-dessous
+          }
+        }
+
+        // Session révoquée ou invalide - déconnexion automatique
+        logout(false)
+        window.location.href = '/login'
         return Promise.reject(error)
       }
     )
@@ -101,6 +163,7 @@ export const useAuthStore = defineStore('auth', () => {
   return {
     // State
     token,
+    refreshToken,
     user,
     // Getters
     isAuthenticated,
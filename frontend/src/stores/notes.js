@@ -2,22 +2,79 @@
  * Store Pinia pour la gestion des notes
  * 
  * Gère:
- * - La liste des notes de l'utilisateur
- * - Les opérations CRUD sur les notes
+ * - La liste des notes de l'utilisateur (résumés sans contenu), gardée dans le
+ *   localStorage et synchronisée par changements depuis le dernier chargement
+ * - La recherche plein texte dans les notes
+ * - Les opérations CRUD sur les notes (modifications et suppressions
+ *   conditionnées à la version lue: If-Match avec l'ETag de la note)
+ * - L'export et l'import des notes (fichier NDJSON)
  * - Le chargement et la mise en cache des notes
  */
 import { defineStore } from 'pinia'
 import { ref } from 'vue'
 import axios from 'axios'
+import { useAuthStore } from '@/stores/auth'
+
+// Clé du localStorage de la liste synchronisée {userId, token, notes}
+const SYNC_STORAGE_KEY = 'notesSync'
+
+// Nombre maximal de résultats de recherche
+const SEARCH_SIZE = 20
+
+// Nombre maximal de suggestions de titres
+const SUGGEST_SIZE = 8
+
+// Type des modifications partielles par plages de texte
+const TEXT_EDITS = 'application/vnd.notes.text-edits+json'
+
+/**
+ * Réduit une note complète à son résumé, seul conservé dans la liste
+ * (le contenu est chargé à la sélection via fetchNoteById)
+ */
+function toSummary(note) {
+  return {
+    id: note.id,
+    title: note.title,
+    createdAt: note.createdAt,
+    updatedAt: note.updatedAt
+  }
+}
+
+/**
+ * Ordre de la liste: les plus récemment modifiées en premier
+ * (dates ISO 8601, comparables comme des chaînes)
+ */
+function byUpdatedAtDesc(a, b) {
+  if (a.updatedAt !== b.updatedAt) {
+    return a.updatedAt < b.updatedAt ? 1 : -1
+  }
+  return b.id - a.id
+}
 
 export const useNotesStore = defineStore('notes', () => {
   // État
   const notes = ref([])
+  // Jeton de la dernière synchronisation de la liste
+  let syncToken = null
+  // ETag de la dernière version lue ou enregistrée de chaque note
+  const etags = new Map()
+  const searchResults = ref([])
+  // Numéro de la dernière recherche lancée: les réponses plus anciennes sont ignorées
+  let searchSequence = 0
+  const suggestions = ref([])
+  // Numéro de la dernière demande de suggestions (même principe)
+  let suggestSequence = 0
   const loading = ref(false)
   const error = ref(null)
 
   /**
-   * Récupère toutes les notes de l'utilisateur connecté
+   * Charge la liste des notes de l'utilisateur connecté
+   * 
+   * Au premier chargement, la liste complète est demandée; ensuite, seuls
+   * les changements depuis la synchronisation précédente (notes créées ou
+   * modifiées, identifiants des notes supprimées), appliqués à la liste
+   * gardée dans le localStorage. Les réponses sont paginées: la liste est
+   * mise à jour après chaque page.
    * 
    * @returns {Promise<Array>} Liste des notes
    */
@@ -25,8 +82,31 @@ export const useNotesStore = defineStore('notes', () => {
     loading.value = true
     error.value = null
     try {
-      const response = await axios.get('/api/notes')
-      notes.value = response.data
+      const userId = useAuthStore().user?.id
+      if (syncToken === null) {
+        restoreSync(userId)
+      }
+      let response = await axios.get('/api/notes/changes', {
+        params: syncToken ? { since: syncToken } : {}
+      })
+      const byId = new Map(response.data.full ? [] : notes.value.map(n => [n.id, n]))
+      for (;;) {
+        const changes = response.data
+        for (const note of changes.notes) {
+          byId.set(note.id, note)
+        }
+        for (const id of changes.deleted) {
+          byId.delete(id)
+        }
+        notes.value = [...byId.values()].sort(byUpdatedAtDesc)
+        if (!changes.next) {
+          // Jeton remis avec la dernière page seulement
+          syncToken = changes.token
+          break
+        }
+        response = await axios.get('/api/notes/changes', { params: { cursor: changes.next } })
+      }
+      saveSync(userId)
       return notes.value
     } catch (err) {
       error.value = err.response?.data?.message || 'Erreur lors du chargement des notes'
@@ -36,6 +116,97 @@ export const useNotesStore = defineStore('notes', () => {
     }
   }
 
+  /**
+   * Reprend la liste synchronisée du localStorage, si elle appartient à l'utilisateur
+   */
+  function restoreSync(userId) {
+    try {
+      const saved = JSON.parse(localStorage.getItem(SYNC_STORAGE_KEY) || 'null')
+      if (saved && saved.userId === userId) {
+        notes.value = saved.notes
+        syncToken = saved.token
+      }
+    } catch (err) {
+      localStorage.removeItem(SYNC_STORAGE_KEY)
+    }
+  }
+
+  /**
+   * Garde la liste synchronisée dans le localStorage (ignoré si le quota est dépassé:
+   * la liste complète sera redemandée au prochain démarrage)
+   */
+  function saveSync(userId) {
+    try {
+      localStorage.setItem(SYNC_STORAGE_KEY, JSON.stringify({
+        userId,
+        token: syncToken,
+        notes: notes.value
+      }))
+    } catch (err) {
+      localStorage.removeItem(SYNC_STORAGE_KEY)
+    }
+  }
+
+  /**
+   * Recherche dans les notes de l'utilisateur connecté
+   * 
+   * Les résultats contiennent un extrait (snippet) déjà échappé par le
+   * serveur, les mots trouvés entourés de <mark>.
+   * 
+   * @param {string} query - Texte recherché
+   * @param {string} mode - 'words' (mots entiers), 'substring' (partie de mot)
+   *                        ou 'fuzzy' (tolère les fautes de frappe)
+   * @returns {Promise<Array>} Notes trouvées, les plus pertinentes en premier
+   */
+  async function searchNotes(query, mode = 'words') {
+    const sequence = ++searchSequence
+    if (!query.trim()) {
+      searchResults.value = []
+      return searchResults.value
+    }
+    error.value = null
+    try {
+      const response = await axios.get('/api/notes/search', {
+        params: { q: query, mode, limit: SEARCH_SIZE }
+      })
+      if (sequence === searchSequence) {
+        searchResults.value = response.data
+      }
+      return searchResults.value
+    } catch (err) {
+      error.value = err.response?.data?.message || 'Erreur lors de la recherche'
+      throw err
+    }
+  }
+  /**
+   * Suggère des titres de notes pendant la saisie
+   * 
+   * Appelé à chaque frappe: le serveur répond depuis un index des titres
+   * en mémoire. En cas d'erreur, les suggestions sont simplement vidées.
+   * 
+   * @param {string} prefix - Texte saisi
+   * @returns {Promise<Array>} Notes dont un mot du titre commence par le texte
+   */
+  async function suggestTitles(prefix) {
+    const sequence = ++suggestSequence
+    if (!prefix.trim()) {
+      suggestions.value = []
+      return suggestions.value
+    }
+    try {
+      const response = await axios.get('/api/notes/suggest', {
+        params: { prefix, limit: SUGGEST_SIZE }
+      })
+      if (sequence === suggestSequence) {
+        suggestions.value = response.data
+      }
+    } catch (err) {
+      suggestions.value = []
+    }
+    return suggestions.value
+  }
+
+
   /**
    * Récupère une note spécifique par son ID
    * 
@@ -47,6 +218,7 @@ export const useNotesStore = defineStore('notes', () => {
     error.value = null
     try {
       const response = await axios.get(`/api/notes/${id}`)
+      etags.set(id, response.headers.etag)
       return response.data
     } catch (err) {
       error.value = err.response?.data?.message || 'Erreur lors du chargement de la note'
@@ -67,7 +239,8 @@ export const useNotesStore = defineStore('notes', () => {
     error.value = null
     try {
       const response = await axios.post('/api/notes', noteData)
-      notes.value.unshift(response.data) // Ajoute en début de liste
+      etags.set(response.data.id, response.headers.etag)
+      notes.value.unshift(toSummary(response.data)) // Ajoute en début de liste
       return response.data
     } catch (err) {
       error.value = err.response?.data?.message || 'Erreur lors de la création de la note'
@@ -80,19 +253,36 @@ export const useNotesStore = defineStore('notes', () => {
   /**
    * Met à jour une note existante
    * 
-   * @param {number} id - ID de la note
+   * Seules les parties modifiées du titre et du contenu sont envoyées
+   * (PATCH par plages de texte), avec la version lue: refusée (409) si la
+   * note a été modifiée depuis, par exemple dans un autre onglet, sans
+   * écraser la modification de l'autre éditeur.
+   * 
+   * @param {Object} original - La note telle que lue {id, title, content, version}
    * @param {Object} noteData - Nouvelles données {title, content}
    * @returns {Promise<Object>} La note mise à jour
    */
-  async function updateNote(id, noteData) {
+  async function updateNote(original, noteData) {
+    const id = original.id
+    const edits = [
+      textEdit('title', original.title, noteData.title),
+      textEdit('content', original.content, noteData.content)
+    ].filter(edit => edit !== null)
+    if (edits.length === 0) {
+      return original // Rien de modifié
+    }
+
     loading.value = true
     error.value = null
     try {
-      const response = await axios.put(`/api/notes/${id}`, noteData)
+      const response = await axios.patch(`/api/notes/${id}`, { edits, version: original.version }, {
+        headers: { 'Content-Type': TEXT_EDITS }
+      })
+      etags.set(id, response.headers.etag)
       // Met à jour la note dans la liste locale
       const index = notes.value.findIndex(n => n.id === id)
       if (index !== -1) {
-        notes.value[index] = response.data
+        notes.value[index] = toSummary(response.data)
       }
       return response.data
     } catch (err) {
@@ -113,9 +303,12 @@ export const useNotesStore = defineStore('notes', () => {
     loading.value = true
     error.value = null
     try {
-      await axios.delete(`/api/notes/${id}`)
+      await axios.delete(`/api/notes/${id}`, { headers: ifMatch(id) })
+      etags.delete(id)
       // Retire la note de la liste locale
       notes.value = notes.value.filter(n => n.id !== id)
+      searchResults.value = searchResults.value.filter(n => n.id !== id)
+      suggestions.value = suggestions.value.filter(n => n.id !== id)
     } catch (err) {
       error.value = err.response?.data?.message || 'Erreur lors de la suppression de la note'
       throw err
@@ -124,11 +317,98 @@ export const useNotesStore = defineStore('notes', () => {
     }
   }
 
+  /**
+   * Exporte les notes de l'utilisateur connecté dans un fichier téléchargé
+   * 
+   * Le serveur envoie une note par ligne (NDJSON), compressé en transit
+   * par le navigateur.
+   */
+  async function exportNotes() {
+    error.value = null
+    try {
+      const response = await axios.get('/api/notes/export', { responseType: 'blob' })
+      const url = URL.createObjectURL(response.data)
+      const link = document.createElement('a')
+      link.href = url
+      link.download = 'notes.ndjson'
+      link.click()
+      URL.revokeObjectURL(url)
+    } catch (err) {
+      error.value = 'Erreur lors de l\'export des notes'
+      throw err
+    }
+  }
+
+  /**
+   * Importe des notes depuis un fichier (format de l'export, éventuellement
+   * compressé en .gz), puis recharge la liste
+   * 
+   * @param {File} file - Fichier choisi par l'utilisateur
+   * @returns {Promise<Object>} Bilan: lignes lues, notes importées, lignes rejetées
+   */
+  async function importNotes(file) {
+    loading.value = true
+    error.value = null
+    try {
+      const response = await axios.post('/api/notes/import', file, {
+        headers: { 'Content-Type': 'application/x-ndjson' }
+      })
+      await fetchNotes()
+      return response.data
+    } catch (err) {
+      error.value = err.response?.data?.message || 'Erreur lors de l\'import des notes'
+      throw err
+    } finally {
+      loading.value = false
+    }
+  }
+
+  /**
+   * Plage modifiée d'un champ: ce qui sépare le préfixe et le suffixe
+   * communs de l'ancienne et de la nouvelle valeur (null si identiques)
+   */
+  function textEdit(field, before, after) {
+    if (before === after) {
+      return null
+    }
+    const max = Math.min(before.length, after.length)
+    let start = 0
+    while (start < max && before[start] === after[start]) {
+      start++
+    }
+    let suffix = 0
+    while (suffix < max - start &&
+           before[before.length - 1 - suffix] === after[after.length - 1 - suffix]) {
+      suffix++
+    }
+    return {
+      field,
+      start,
+      end: before.length - suffix,
+      text: after.slice(start, after.length - suffix)
+    }
+  }
+
+  /**
+   * En-tête If-Match d'une note, si sa version lue est connue
+   */
+  function ifMatch(id) {
+    const etag = etags.get(id)
+    return etag ? { 'If-Match': etag } : {}
+  }
+
   /**
    * Réinitialise le store
    */
   function reset() {
     notes.value = []
+    syncToken = null
+    etags.clear()
+    localStorage.removeItem(SYNC_STORAGE_KEY)
+    searchResults.value = []
+    searchSequence++
+    suggestions.value = []
+    suggestSequence++
     loading.value = false
     error.value = null
   }
@@ -136,14 +416,20 @@ export const useNotesStore = defineStore('notes', () => {
   return {
     // State
     notes,
+    searchResults,
+    suggestions,
     loading,
     error,
     // Actions
     fetchNotes,
+    searchNotes,
+    suggestTitles,
     fetchNoteById,
     createNote,
     updateNote,
     deleteNote,
+    exportNotes,
+    importNotes,
     reset
   }
 })
@@ -4,6 +4,7 @@
  * Gère:
  * - La liste des utilisateurs (pour les admins)
  * - La création et suppression d'utilisateurs
+ * - La révocation des sessions d'un utilisateur
  * - Le chargement des données utilisateurs
  */
 import { defineStore } from 'pinia'
@@ -83,6 +84,24 @@ export const useUsersStore = defineStore('users', () => {
     }
   }
 
+  /**
+   * Révoque toutes les sessions d'un utilisateur
+   * 
+   * Nécessite le rôle ADMIN. L'utilisateur devra se reconnecter.
+   * 
+   * @param {number} id - ID de l'utilisateur
+   * @returns {Promise<void>}
+   */
+  async function revokeSessions(id) {
+    error.value = null
+    try {
+      await axios.post(`/api/users/${id}/revoke-sessions`)
+    } catch (err) {
+      error.value = err.response?.data?.message || 'Erreur lors de la révocation des sessions'
+      throw err
+    }
+  }
+
   /**
    * Réinitialise le store
    */
@@ -101,6 +120,7 @@ export const useUsersStore = defineStore('users', () => {
     fetchUsers,
     createUser,
     deleteUser,
+    revokeSessions,
     reset
   }
 })
@@ -2,20 +2,27 @@ package com.demo.notes.controller;
 
 import com.demo.notes.dto.LoginRequest;
 import com.demo.notes.dto.LoginResponse;
-import com.demo.notes.model.User;
-import com.demo.notes.repository.UserRepository;
+import com.demo.notes.dto.RefreshRequest;
+import com.demo.notes.exception.ErrorBody;
 import com.demo.notes.security.JwtUtils;
+import com.demo.notes.security.PasswordHashingExecutor;
+import com.demo.notes.security.TokenRevocationService;
+import com.demo.notes.security.UserPrincipal;
+import com.demo.notes.service.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +30,8 @@ import java.util.stream.Collectors;
  * 
  * Expose les endpoints pour:
  * - Login (génération de token JWT)
+ * - Refresh (renouvellement du token d'accès sans mot de passe)
+ * - Logout (révocation du token courant)
  * 
  * Ce contrôleur est accessible sans authentification.
  * 
@@ -40,18 +49,28 @@ public class AuthController {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserRepository userRepository;
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
 
     /**
      * Endpoint de connexion (login).
      * 
      * Processus:
      * 1. Valide les identifiants (username/password)
-     * 2. Génère un token JWT
-     * 3. Retourne le token avec les informations utilisateur
+     * 2. Génère un token JWT (courte durée) et un refresh token
+     * 3. Retourne les tokens avec les informations utilisateur
+     * 
+     * La vérification du mot de passe (BCrypt) s'exécute sur le pool de
+     * hachage dédié: le thread de la requête est libéré pendant le calcul.
+     * Si ce pool est saturé, la réponse est immédiatement un 503 (Retry-After).
      * 
      * @param loginRequest Les identifiants de connexion
-     * @return Le token JWT et les informations utilisateur
+     * @return Le token JWT et les informations utilisateur (de façon asynchrone)
      * 
      *         Exemple de requête:
      *         POST /api/auth/login
@@ -63,6 +82,7 @@ public class AuthController {
      *         Exemple de réponse:
      *         {
      *         "token": "eyJhbGciOiJIUzUxMiJ9...",
+     *         "refreshToken": "Qm9uam91ciBsZSBtb25kZQ...",
      *         "type": "Bearer",
      *         "id": 1,
      *         "username": "user1",
@@ -70,7 +90,84 @@ public class AuthController {
      *         }
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest loginRequest) {
+        return passwordHashingExecutor.submit(() -> authenticate(loginRequest));
+    }
+
+    /**
+     * Endpoint de rafraîchissement du token d'accès.
+     * 
+     * Échange un refresh token contre un nouveau token d'accès et un nouveau
+     * refresh token (rotation). Aucun mot de passe n'est vérifié: le coût se
+     * limite à une recherche indexée et à une signature HMAC.
+     * 
+     * Un refresh token déjà utilisé révoque toute sa famille (vol présumé).
+     * 
+     * @param refreshRequest Le refresh token
+     * @return Les nouveaux tokens et les informations utilisateur, ou 401
+     * 
+     *         Exemple de requête:
+     *         POST /api/auth/refresh
+     *         {
+     *         "refreshToken": "Qm9uam91ciBsZSBtb25kZQ..."
+     *         }
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest refreshRequest) {
+        return refreshTokenService.rotate(refreshRequest.getRefreshToken())
+                .<ResponseEntity<?>>map(rotation -> ResponseEntity.ok(
+                        buildResponse(rotation.getPrincipal(), rotation.getRefreshToken())))
+                .orElseGet(() -> ErrorBody.INVALID_REFRESH_TOKEN.toResponse(HttpStatus.UNAUTHORIZED));
+    }
+
+    /**
+     * Endpoint de déconnexion (logout).
+     * 
+     * Révoque le token présenté dans l'en-tête Authorization: il est refusé
+     * jusqu'à son expiration. Le refresh token éventuellement fourni est
+     * révoqué avec toute sa famille. La réponse est toujours 204, y compris
+     * si les tokens sont absents, invalides ou déjà expirés (rien à révoquer).
+     * 
+     * @param authorization L'en-tête Authorization ("Bearer <token>")
+     * @param refreshRequest Le refresh token (optionnel)
+     * @return Réponse sans contenu (204)
+     * 
+     *         Exemple de requête:
+     *         POST /api/auth/logout
+     *         Authorization: Bearer <token>
+     *         {
+     *         "refreshToken": "Qm9uam91ciBsZSBtb25kZQ..."
+     *         }
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshRequest refreshRequest) {
+        if (refreshRequest != null && refreshRequest.getRefreshToken() != null) {
+            refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        }
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtUtils.getAllClaimsFromToken(authorization.substring(7));
+                if (claims.getId() != null) {
+                    tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+                }
+            } catch (JwtException e) {
+                // Token invalide ou expiré: déjà inutilisable
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Authentifie l'utilisateur et construit la réponse de login.
+     * 
+     * Exécutée sur le pool de hachage des mots de passe.
+     * 
+     * @param loginRequest Les identifiants de connexion
+     * @return La réponse (200 avec token, ou 401)
+     */
+    private ResponseEntity<?> authenticate(LoginRequest loginRequest) {
         try {
             // Authentification via Spring Security
             // Lance une exception si les identifiants sont invalides
@@ -79,65 +176,40 @@ public class AuthController {
                             loginRequest.getUsername(),
                             loginRequest.getPassword()));
 
-            // Définit l'authentification dans le contexte de sécurité
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            // Le principal porte déjà l'identifiant: aucune relecture de l'utilisateur
+            UserPrincipal userDetails = (UserPrincipal) authentication.getPrincipal();
 
-            // Génération du token JWT
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String jwt = jwtUtils.generateToken(userDetails);
+            // Nouvelle famille de refresh tokens pour cette connexion
+            String refreshToken = refreshTokenService.issue(userDetails);
 
-            // Récupération des informations complètes de l'utilisateur
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
-
-            // Extraction des noms de rôles
-            List<String> roles = userDetails.getAuthorities().stream()
-                    .map(item -> item.getAuthority())
-                    .collect(Collectors.toList());
-
-            // Construction de la réponse
-            LoginResponse response = new LoginResponse(
-                    jwt,
-                    user.getId(),
-                    user.getUsername(),
-                    roles);
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(buildResponse(userDetails, refreshToken));
         } catch (org.springframework.security.core.AuthenticationException e) {
             // Gestion des erreurs d'authentification
-            return ResponseEntity
-                    .status(401)
-                    .body(new ErrorResponse(
-                            "Unauthorized",
-                            "Nom d'utilisateur ou mot de passe incorrect",
-                            System.currentTimeMillis()));
+            return ErrorBody.BAD_CREDENTIALS.toResponse(HttpStatus.UNAUTHORIZED);
         }
     }
 
     /**
-     * Classe interne pour les réponses d'erreur
+     * Génère le token d'accès et construit la réponse d'authentification.
+     * 
+     * @param userDetails L'utilisateur authentifié
+     * @param refreshToken Le refresh token à remettre au client
+     * @return La réponse (tokens et informations utilisateur)
      */
-    private static class ErrorResponse {
-        private String error;
-        private String message;
-        private long timestamp;
-
-        public ErrorResponse(String error, String message, long timestamp) {
-            this.error = error;
-            this.message = message;
-            this.timestamp = timestamp;
-        }
-
-        public String getError() {
-            return error;
-        }
-
-        public String getMessage() {
-            return message;
-        }
-
-        public long getTimestamp() {
-            return timestamp;
-        }
+    private LoginResponse buildResponse(UserPrincipal userDetails, String refreshToken) {
+        // Génération du token JWT
+        String jwt = jwtUtils.generateToken(userDetails);
+
+        // Extraction des noms de rôles
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(item -> item.getAuthority())
+                .collect(Collectors.toList());
+
+        return new LoginResponse(
+                jwt,
+                refreshToken,
+                userDetails.getId(),
+                userDetails.getUsername(),
+                roles);
     }
 }
@@ -1,6 +1,6 @@
 package com.demo.notes.controller;
 
-import com.demo.notes.dto.ErrorResponse;
+import com.demo.notes.exception.ErrorBody;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -10,63 +10,73 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Contrôleur personnalisé pour gérer les erreurs.
  *
  * Remplace le contrôleur d'erreur par défaut de Spring Boot
  * pour fournir des messages d'erreur personnalisés.
+ *
+ * Les corps de réponse sont pré-sérialisés (ErrorBody), un par code HTTP.
  */
 @Slf4j
 @RestController
 public class CustomErrorController implements ErrorController {
 
+    /**
+     * Corps de réponse par code HTTP (hors 401), sérialisés à la première utilisation.
+     */
+    private final Map<Integer, ErrorBody> bodies = new ConcurrentHashMap<>();
+
     @RequestMapping("/error")
-    public ResponseEntity<ErrorResponse> handleError(HttpServletRequest request) {
+    public ResponseEntity<byte[]> handleError(HttpServletRequest request) {
         // Récupérer le code de statut
         Object status = request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE);
 
         // Récupérer le referer pour détecter si c'est une erreur de login
         String referer = request.getHeader("Referer");
-        String requestURI = request.getRequestURI();
 
-        // Debug logging
-        log.debug("Error Status: {}, URI: {}, Referer: {}", status, requestURI, referer);
+        log.debug("Error Status: {}, URI: {}, Referer: {}", status, request.getRequestURI(), referer);
 
-        String errorMessage;
         HttpStatus httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
-
         if (status != null) {
-            int statusCode = Integer.parseInt(status.toString());
-            httpStatus = HttpStatus.valueOf(statusCode);
-
-            // Si c'est une erreur 401 et que le referer contient /login
-            if (statusCode == 401) {
-                if (referer != null && referer.contains("/login")) {
-                    errorMessage = "Nom d'utilisateur ou mot de passe incorrect";
-                    log.info("Using login-specific error message");
-                } else {
-                    errorMessage = "Authentification requise pour accéder à cette ressource";
-                    log.info("Using generic auth error message");
-                }
-            } else if (statusCode == 403) {
-                errorMessage = "Accès refusé";
-            } else if (statusCode == 404) {
-                errorMessage = "Ressource non trouvée";
-            } else if (statusCode >= 500) {
-                errorMessage = "Erreur serveur interne";
-            } else {
-                errorMessage = "Une erreur s'est produite";
+            HttpStatus resolved = HttpStatus.resolve(Integer.parseInt(status.toString()));
+            if (resolved != null) {
+                httpStatus = resolved;
             }
-        } else {
-            errorMessage = "Une erreur s'est produite";
         }
 
-        log.info("Final error message: {}", errorMessage);
+        // Si c'est une erreur 401 et que le referer contient /login
+        if (httpStatus == HttpStatus.UNAUTHORIZED) {
+            ErrorBody body = referer != null && referer.contains("/login")
+                    ? ErrorBody.BAD_CREDENTIALS
+                    : ErrorBody.AUTHENTICATION_REQUIRED;
+            return body.toResponse(httpStatus);
+        }
 
-        ErrorResponse errorResponse = new ErrorResponse(
-                httpStatus.getReasonPhrase(),
-                errorMessage);
+        return bodies.computeIfAbsent(httpStatus.value(), code -> bodyFor(HttpStatus.valueOf(code)))
+                .toResponse(httpStatus);
+    }
 
-        return ResponseEntity.status(httpStatus).body(errorResponse);
+    /**
+     * Construit le corps d'erreur associé à un code HTTP.
+     *
+     * @param httpStatus Le code HTTP
+     * @return Le corps pré-sérialisé
+     */
+    private static ErrorBody bodyFor(HttpStatus httpStatus) {
+        String errorMessage;
+        if (httpStatus == HttpStatus.FORBIDDEN) {
+            errorMessage = "Accès refusé";
+        } else if (httpStatus == HttpStatus.NOT_FOUND) {
+            errorMessage = "Ressource non trouvée";
+        } else if (httpStatus.is5xxServerError()) {
+            errorMessage = "Erreur serveur interne";
+        } else {
+            errorMessage = "Une erreur s'est produite";
+        }
+        return ErrorBody.of(httpStatus.getReasonPhrase(), errorMessage);
     }
 }
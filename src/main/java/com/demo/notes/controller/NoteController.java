@@ -1,28 +1,76 @@
 package com.demo.notes.controller;
 
+import com.demo.notes.dto.NoteBatchRequest;
+import com.demo.notes.dto.NoteBatchResponse;
+import com.demo.notes.dto.NoteChangesResponse;
+import com.demo.notes.dto.NoteImportResponse;
+import com.demo.notes.dto.NotePageResponse;
 import com.demo.notes.dto.NoteRequest;
 import com.demo.notes.dto.NoteResponse;
+import com.demo.notes.dto.NoteRevisionPageResponse;
+import com.demo.notes.dto.NoteRevisionResponse;
+import com.demo.notes.dto.NoteSearchResultResponse;
+import com.demo.notes.dto.NoteSuggestionResponse;
+import com.demo.notes.dto.NoteTextEditsRequest;
+import com.demo.notes.exception.InvalidRequestException;
+import com.demo.notes.search.NoteSearchService;
+import com.demo.notes.search.SearchMode;
+import com.demo.notes.search.TitleSuggestionService;
+import com.demo.notes.security.UserPrincipal;
+import com.demo.notes.service.NoteBatchService;
+import com.demo.notes.service.NoteETags;
+import com.demo.notes.service.NoteExportService;
+import com.demo.notes.service.NoteImportService;
+import com.demo.notes.service.NoteRevisionService;
 import com.demo.notes.service.NoteService;
+import com.demo.notes.service.NoteSyncService;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
 
 /**
  * Contrôleur REST pour la gestion des notes.
  * 
  * Expose les endpoints pour:
  * - Créer des notes
- * - Récupérer les notes de l'utilisateur connecté
- * - Modifier ses notes
+ * - Récupérer les notes de l'utilisateur connecté (par pages)
+ * - Synchroniser la liste des notes (changements depuis la dernière synchronisation)
+ * - Modifier ses notes (en entier, ou en partie avec PATCH)
  * - Supprimer ses notes
+ * - Consulter l'historique des versions d'une note, et en restaurer une
+ * - Rechercher dans ses notes
+ * - Suggérer des titres pendant la saisie
+ * - Appliquer des opérations par lots (import)
+ * - Exporter et importer ses notes (NDJSON)
+ * 
+ * Les lectures d'une note et de la liste portent un ETag: une requête
+ * If-None-Match avec l'ETag courant reçoit 304 sans relire les notes. Les
+ * modifications et suppressions acceptent If-Match (412 si la note a changé).
+ * Une modification peut aussi porter la version lue (409 si la note a
+ * changé), et toute modification concurrente détectée à l'écriture est
+ * refusée (409).
  * 
  * Tous ces endpoints nécessitent une authentification.
- * Un utilisateur ne peut accéder qu'à ses propres notes.
+ * Un utilisateur ne peut accéder qu'à ses propres notes: une note
+ * d'un autre utilisateur est signalée comme inexistante (404).
  * 
  * @author Demo
  */
@@ -34,38 +82,328 @@ public class NoteController {
     @Autowired
     private NoteService noteService;
     
+    @Autowired
+    private NoteBatchService noteBatchService;
+    
+    @Autowired
+    private NoteExportService noteExportService;
+    
+    @Autowired
+    private NoteImportService noteImportService;
+    
+    @Autowired
+    private NoteSyncService noteSyncService;
+    
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+    
+    @Autowired
+    private NoteSearchService noteSearchService;
+    
+    @Autowired
+    private TitleSuggestionService titleSuggestionService;
+    
+    /**
+     * Nombre de notes par page si le paramètre limit est absent.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    
+    /**
+     * Nombre maximal de notes par page.
+     */
+    private static final int MAX_PAGE_SIZE = 200;
+    
+    /**
+     * Nombre de résultats de recherche si le paramètre limit est absent.
+     */
+    private static final int DEFAULT_SEARCH_SIZE = 20;
+    
+    /**
+     * Nombre maximal de résultats de recherche.
+     */
+    private static final int MAX_SEARCH_SIZE = 100;
+    
+    /**
+     * Nombre de suggestions si le paramètre limit est absent.
+     */
+    private static final int DEFAULT_SUGGEST_SIZE = 10;
+    
+    /**
+     * Nombre maximal de suggestions.
+     */
+    private static final int MAX_SUGGEST_SIZE = 50;
+    
+    /**
+     * Type de contenu des exports: un objet JSON par ligne.
+     */
+    private static final String NDJSON = "application/x-ndjson;charset=UTF-8";
+    
+    /**
+     * Type des modifications partielles par JSON Merge Patch.
+     */
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+    
     /**
-     * Récupère toutes les notes de l'utilisateur connecté.
+     * Type des modifications partielles par plages de texte (NoteTextEditsRequest).
+     */
+    private static final String TEXT_EDITS = "application/vnd.notes.text-edits+json";
+    
+    /**
+     * Cache des réponses portant un ETag: propre à l'utilisateur, et
+     * revalidé à chaque utilisation (If-None-Match).
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
+    /**
+     * Récupère une page des notes de l'utilisateur connecté.
      * 
      * Les notes sont triées par date de modification décroissante.
+     * La liste ne contient que leur résumé (sans contenu): le contenu
+     * complet s'obtient via GET /api/notes/{id}.
+     * La page suivante s'obtient en repassant le curseur "next" de la
+     * réponse; il vaut null sur la dernière page.
+     * 
+     * L'ETag est le compteur des modifications des notes de l'utilisateur,
+     * lu sans lire les notes: si le client a déjà la version courante
+     * (If-None-Match), la réponse est 304, sans requête sur les notes.
      * 
-     * @param authentication L'objet d'authentification injecté par Spring Security
-     * @return Liste des notes de l'utilisateur
+     * @param limit Le nombre maximal de notes (1 à 200, 50 par défaut)
+     * @param cursor Le curseur de la page précédente (absent pour la première page)
+     * @param ifNoneMatch L'en-tête If-None-Match de la requête
+     * @param principal L'utilisateur connecté, injecté par Spring Security
+     * @return Les notes de la page et le curseur de la page suivante (ou 304)
      * 
      * Exemple de requête:
-     * GET /api/notes
+     * GET /api/notes?limit=20&cursor=MjAyNC0wMS0wMlQxNDozMDowMCwx
+     * Authorization: Bearer <token>
+     * 
+     * Exemple de réponse:
+     * {
+     *   "items": [
+     *     {
+     *       "id": 1,
+     *       "title": "Ma première note",
+     *       "createdAt": "2024-01-01T10:00:00",
+     *       "updatedAt": "2024-01-02T14:30:00"
+     *     },
+     *     ...
+     *   ],
+     *   "next": "MjAyNC0wMS0wMVQwOToxNTowMCwxNw"
+     * }
+     */
+    @GetMapping
+    public ResponseEntity<NotePageResponse> getUserNotes(
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        // Compteur lu avant la liste (voir NoteService.getListETag)
+        String etag = noteService.getListETag(principal);
+        if (ifNoneMatch != null && NoteETags.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        NotePageResponse page = noteService.getUserNotes(principal, cursor, pageSize);
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(page);
+    }
+    
+    /**
+     * Récupère les changements des notes de l'utilisateur connecté depuis
+     * sa dernière synchronisation.
+     * 
+     * Sans jeton (ou avec un jeton plus ancien que la conservation des
+     * suppressions), renvoie la liste complète (full = true). Sinon, seules
+     * les notes créées ou modifiées et les identifiants des notes supprimées
+     * depuis le jeton sont renvoyés. Les réponses sont paginées: tant que la
+     * réponse porte un curseur (next), la page suivante est demandée avec ce
+     * curseur; le jeton de la synchronisation suivante n'est renvoyé qu'avec
+     * la dernière page.
+     * 
+     * @param since Le jeton de la synchronisation précédente (optionnel)
+     * @param cursor Le curseur de la page suivante (optionnel)
+     * @param limit Le nombre maximal de notes d'une page (1 à 200, 50 par défaut)
+     * @param principal L'utilisateur connecté
+     * @return Les changements, et le nouveau jeton ou le curseur de la page suivante
+     * 
+     * Exemple de requête:
+     * GET /api/notes/changes?since=MjAyNC0wMS0wNFQxNjowMDowMA
+     * Authorization: Bearer <token>
+     * 
+     * Exemple de réponse:
+     * {
+     *   "full": false,
+     *   "notes": [
+     *     {
+     *       "id": 4,
+     *       "title": "Nouvelle note",
+     *       "createdAt": "2024-01-04T16:05:00",
+     *       "updatedAt": "2024-01-04T16:05:00"
+     *     }
+     *   ],
+     *   "deleted": [2],
+     *   "token": "MjAyNC0wMS0wNFQxNjoxMDowMA",
+     *   "next": null
+     * }
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<NoteChangesResponse> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(noteSyncService.getChanges(principal, since, cursor, pageSize));
+    }
+    
+    /**
+     * Recherche dans les notes de l'utilisateur connecté.
+     * 
+     * Recherche plein texte dans le titre et le contenu (sans le HTML),
+     * insensible à la casse et aux accents, selon le mode:
+     * - words (par défaut): une note doit contenir tous les mots recherchés;
+     *   les résultats sont classés par pertinence
+     * - substring: une note doit contenir le texte recherché, même au
+     *   milieu d'un mot (3 caractères au moins)
+     * - fuzzy: comme substring, à une faute de frappe près (deux à partir
+     *   de 8 caractères); les résultats sont classés par similarité
+     * L'extrait est échappé, les mots trouvés y sont entourés de <mark>.
+     * 
+     * @param q Le texte recherché
+     * @param mode Le mode de recherche (words, substring ou fuzzy)
+     * @param limit Le nombre maximal de résultats (1 à 100, 20 par défaut)
+     * @param principal L'utilisateur connecté
+     * @return Les notes trouvées, les plus pertinentes en premier
+     * 
+     * Exemple de requête:
+     * GET /api/notes/search?q=courses
+     * GET /api/notes/search?q=cuorses&mode=fuzzy
      * Authorization: Bearer <token>
      * 
      * Exemple de réponse:
      * [
      *   {
-     *     "id": 1,
-     *     "title": "Ma première note",
-     *     "content": "<p>Contenu HTML</p>",
-     *     "createdAt": "2024-01-01T10:00:00",
+     *     "id": 2,
+     *     "title": "Liste de courses",
+     *     "snippet": "Acheter du pain… <mark>courses</mark> du samedi",
      *     "updatedAt": "2024-01-02T14:30:00",
-     *     "userId": 2,
-     *     "username": "user1"
-     *   },
-     *   ...
+     *     "score": 1.85
+     *   }
      * ]
      */
-    @GetMapping
-    public ResponseEntity<List<NoteResponse>> getUserNotes(Authentication authentication) {
-        // Récupération du nom d'utilisateur depuis le contexte de sécurité
-        String username = authentication.getName();
-        List<NoteResponse> notes = noteService.getUserNotes(username);
-        return ResponseEntity.ok(notes);
+    @GetMapping("/search")
+    public ResponseEntity<List<NoteSearchResultResponse>> searchNotes(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "words") String mode,
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_SIZE) int limit,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        int size = Math.max(1, Math.min(limit, MAX_SEARCH_SIZE));
+        return ResponseEntity.ok(noteSearchService.search(principal.getId(), q, SearchMode.parse(mode), size));
+    }
+    
+    /**
+     * Suggère des titres de notes pendant la saisie.
+     * 
+     * Retourne les notes de l'utilisateur dont un mot du titre commence
+     * par le préfixe, sans tenir compte de la casse ni des accents. Servi
+     * depuis un index en mémoire des titres de l'utilisateur (chargé à sa
+     * première suggestion), sans accès à la base: adapté à un appel à
+     * chaque frappe.
+     * 
+     * @param prefix Le texte saisi
+     * @param limit Le nombre maximal de suggestions (1 à 50, 10 par défaut)
+     * @param principal L'utilisateur connecté
+     * @return Les notes trouvées, par ordre alphabétique
+     * 
+     * Exemple de requête:
+     * GET /api/notes/suggest?prefix=cou
+     * Authorization: Bearer <token>
+     * 
+     * Exemple de réponse:
+     * [
+     *   {
+     *     "id": 2,
+     *     "title": "Liste de courses"
+     *   }
+     * ]
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<NoteSuggestionResponse>> suggestTitles(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "" + DEFAULT_SUGGEST_SIZE) int limit,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        int size = Math.max(1, Math.min(limit, MAX_SUGGEST_SIZE));
+        return ResponseEntity.ok(titleSuggestionService.suggest(principal.getId(), prefix, size));
+    }
+    
+    /**
+     * Exporte toutes les notes de l'utilisateur connecté.
+     * 
+     * Format NDJSON: une note par ligne, réimportable telle quelle. Les
+     * notes sont lues et envoyées au fil de l'eau (la mémoire utilisée ne
+     * dépend pas de leur nombre), compressées en gzip si le client
+     * l'accepte (en-tête Accept-Encoding).
+     * 
+     * @param acceptEncoding L'en-tête Accept-Encoding de la requête
+     * @param principal L'utilisateur connecté
+     * @param response La réponse, écrite directement
+     * @throws IOException En cas d'erreur d'écriture (client déconnecté...)
+     * 
+     * Exemple de requête:
+     * GET /api/notes/export
+     * Authorization: Bearer <token>
+     * Accept-Encoding: gzip
+     * 
+     * Exemple de réponse (décompressée):
+     * {"id":1,"title":"Ma première note","content":"<p>...</p>","createdAt":"2024-01-01T10:00:00","updatedAt":"2024-01-01T10:00:00","userId":2}
+     * {"id":2,"title":"Liste de courses","content":"<ul>...</ul>","createdAt":"2024-01-02T14:30:00","updatedAt":"2024-01-02T14:30:00","userId":2}
+     */
+    @GetMapping("/export")
+    public void exportNotes(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            @AuthenticationPrincipal UserPrincipal principal,
+                            HttpServletResponse response) throws IOException {
+        try (OutputStream out = openExport(response, acceptEncoding, "notes.ndjson")) {
+            noteExportService.exportUserNotes(principal.getId(), out);
+        }
+    }
+    
+    /**
+     * Exporte les notes de tous les utilisateurs (administrateurs).
+     * 
+     * Même format que /api/notes/export; le champ userId indique le
+     * propriétaire de chaque note.
+     * 
+     * @param acceptEncoding L'en-tête Accept-Encoding de la requête
+     * @param response La réponse, écrite directement
+     * @throws IOException En cas d'erreur d'écriture (client déconnecté...)
+     * 
+     * Exemple de requête:
+     * GET /api/notes/export/all
+     * Authorization: Bearer <token>
+     */
+    @GetMapping("/export/all")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportAllNotes(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                               HttpServletResponse response) throws IOException {
+        try (OutputStream out = openExport(response, acceptEncoding, "all-notes.ndjson")) {
+            noteExportService.exportAllNotes(out);
+        }
+    }
+    
+    /**
+     * Prépare la réponse d'un export (en-têtes) et retourne son flux,
+     * compressé en gzip si le client l'accepte.
+     */
+    private OutputStream openExport(HttpServletResponse response, String acceptEncoding, String fileName)
+            throws IOException {
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            // syncFlush: chaque envoi de l'export transmet les lignes déjà compressées
+            return new GZIPOutputStream(response.getOutputStream(), 8192, true);
+        }
+        return response.getOutputStream();
     }
     
     /**
@@ -73,20 +411,32 @@ public class NoteController {
      * 
      * Vérifie que la note appartient bien à l'utilisateur connecté.
      * 
+     * L'ETag de la note (identifiant et version) est d'abord
+     * lu seul: si le client a déjà la version courante (If-None-Match), la
+     * réponse est 304, sans charger la note ni son contenu.
+     * 
      * @param id L'identifiant de la note
-     * @param authentication L'objet d'authentification
-     * @return La note demandée
+     * @param ifNoneMatch L'en-tête If-None-Match de la requête
+     * @param principal L'utilisateur connecté
+     * @return La note demandée (ou 304)
      * 
      * Exemple de requête:
      * GET /api/notes/1
      * Authorization: Bearer <token>
+     * If-None-Match: "1-0"
      */
     @GetMapping("/{id}")
     public ResponseEntity<NoteResponse> getNoteById(@PathVariable Long id, 
-                                                     Authentication authentication) {
-        String username = authentication.getName();
-        NoteResponse note = noteService.getNoteById(id, username);
-        return ResponseEntity.ok(note);
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                     @AuthenticationPrincipal UserPrincipal principal) {
+        if (ifNoneMatch != null) {
+            String etag = noteService.getNoteETag(id, principal);
+            if (NoteETags.notModified(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+            }
+        }
+        NoteResponse note = noteService.getNoteById(id, principal);
+        return ResponseEntity.ok().eTag(eTag(note)).cacheControl(REVALIDATE).body(note);
     }
     
     /**
@@ -96,7 +446,7 @@ public class NoteController {
      * Les validations sur les données sont appliquées automatiquement.
      * 
      * @param request Les données de la note à créer
-     * @param authentication L'objet d'authentification
+     * @param principal L'utilisateur connecté
      * @return La note créée
      * 
      * Exemple de requête:
@@ -114,16 +464,117 @@ public class NoteController {
      *   "content": "<p>Contenu de la note avec <strong>formatage</strong></p>",
      *   "createdAt": "2024-01-04T16:00:00",
      *   "updatedAt": "2024-01-04T16:00:00",
+     *   "version": 0,
      *   "userId": 2,
      *   "username": "user1"
      * }
      */
     @PostMapping
     public ResponseEntity<NoteResponse> createNote(@Valid @RequestBody NoteRequest request,
-                                                    Authentication authentication) {
-        String username = authentication.getName();
-        NoteResponse note = noteService.createNote(request, username);
-        return ResponseEntity.status(HttpStatus.CREATED).body(note);
+                                                    @AuthenticationPrincipal UserPrincipal principal) {
+        NoteResponse note = noteService.createNote(request, principal);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(eTag(note)).body(note);
+    }
+    
+    /**
+     * Applique un lot d'opérations aux notes de l'utilisateur connecté.
+     * 
+     * Destiné aux imports: jusqu'à 10 000 créations, modifications ou
+     * suppressions en une requête, appliquées dans l'ordre par groupes
+     * transactionnels (écritures regroupées en lots JDBC). Chaque opération
+     * reçoit son propre statut: une opération en échec n'empêche pas les
+     * autres.
+     * 
+     * @param request Les opérations à appliquer
+     * @param principal L'utilisateur connecté
+     * @return Le résultat de chaque opération
+     * 
+     * Exemple de requête:
+     * POST /api/notes/batch
+     * Authorization: Bearer <token>
+     * {
+     *   "operations": [
+     *     { "op": "create", "title": "Importée", "content": "<p>Texte</p>" },
+     *     { "op": "update", "id": 1, "title": "Renommée", "content": "<p>Texte</p>" },
+     *     { "op": "delete", "id": 99 }
+     *   ]
+     * }
+     * 
+     * Exemple de réponse:
+     * {
+     *   "succeeded": 2,
+     *   "failed": 1,
+     *   "results": [
+     *     { "index": 0, "status": 201, "id": 51, "error": null },
+     *     { "index": 1, "status": 200, "id": 1, "error": null },
+     *     { "index": 2, "status": 404, "id": null, "error": "Note non trouvée" }
+     *   ]
+     * }
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<NoteBatchResponse> applyBatch(@Valid @RequestBody NoteBatchRequest request,
+                                                        @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(noteBatchService.apply(request.getOperations(), principal));
+    }
+    
+    /**
+     * Importe des notes dans le compte de l'utilisateur connecté.
+     * 
+     * Le corps est au format de l'export (NDJSON, une note par ligne; seuls
+     * title et content sont repris), éventuellement compressé en gzip
+     * (en-tête Content-Encoding ou fichier .gz envoyé tel quel). Il est lu
+     * au fil de l'eau et enregistré par groupes transactionnels: la taille
+     * du fichier n'est pas limitée. Les lignes invalides sont rejetées
+     * sans interrompre l'import.
+     * 
+     * @param contentEncoding L'en-tête Content-Encoding de la requête
+     * @param principal L'utilisateur connecté
+     * @param request La requête, dont le corps est lu directement
+     * @return Le bilan de l'import
+     * @throws IOException En cas d'erreur de lecture (client déconnecté...)
+     * 
+     * Exemple de requête:
+     * POST /api/notes/import
+     * Authorization: Bearer <token>
+     * Content-Type: application/x-ndjson
+     * {"title":"Importée","content":"<p>Texte</p>"}
+     * {"title":"","content":"<p>Sans titre</p>"}
+     * 
+     * Exemple de réponse:
+     * {
+     *   "lines": 2,
+     *   "imported": 1,
+     *   "failed": 1,
+     *   "errors": [
+     *     { "line": 2, "error": "Le titre est obligatoire" }
+     *   ]
+     * }
+     */
+    @PostMapping("/import")
+    public ResponseEntity<NoteImportResponse> importNotes(
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @AuthenticationPrincipal UserPrincipal principal,
+            HttpServletRequest request) throws IOException {
+        try (InputStream in = openImport(request.getInputStream(), contentEncoding)) {
+            return ResponseEntity.ok(noteImportService.importNotes(in, principal));
+        } catch (ZipException e) {
+            throw new InvalidRequestException("Contenu gzip invalide");
+        }
+    }
+    
+    /**
+     * Retourne le flux du corps d'un import, décompressé s'il est en gzip
+     * (annoncé par Content-Encoding, ou reconnu à sa signature).
+     */
+    private InputStream openImport(InputStream body, String contentEncoding) throws IOException {
+        InputStream in = new BufferedInputStream(body);
+        in.mark(2);
+        boolean gzipSignature = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        if (gzipSignature || (contentEncoding != null && contentEncoding.contains("gzip"))) {
+            return new GZIPInputStream(in, 8192);
+        }
+        return in;
     }
     
     /**
@@ -132,35 +583,109 @@ public class NoteController {
      * Seul le propriétaire de la note peut la modifier.
      * Les dates de modification sont automatiquement mises à jour.
      * 
+     * Avec If-Match (ETag de la version lue), la note n'est modifiée que si
+     * elle n'a pas changé depuis: sinon 412, sans écraser la modification
+     * d'un autre éditeur. Même vérification avec la version dans le corps
+     * de la requête, mais refus en 409.
+     * 
      * @param id L'identifiant de la note à modifier
      * @param request Les nouvelles données de la note
-     * @param authentication L'objet d'authentification
-     * @return La note mise à jour
+     * @param ifMatch L'en-tête If-Match de la requête (optionnel)
+     * @param principal L'utilisateur connecté
+     * @return La note mise à jour, avec son nouvel ETag
      * 
      * Exemple de requête:
      * PUT /api/notes/5
      * Authorization: Bearer <token>
      * {
      *   "title": "Titre modifié",
-     *   "content": "<p>Contenu modifié</p>"
+     *   "content": "<p>Contenu modifié</p>",
+     *   "version": 3
      * }
      */
     @PutMapping("/{id}")
     public ResponseEntity<NoteResponse> updateNote(@PathVariable Long id,
                                                     @Valid @RequestBody NoteRequest request,
-                                                    Authentication authentication) {
-        String username = authentication.getName();
-        NoteResponse note = noteService.updateNote(id, request, username);
-        return ResponseEntity.ok(note);
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    @AuthenticationPrincipal UserPrincipal principal) {
+        NoteResponse note = noteService.updateNote(id, request, principal, ifMatch);
+        return ResponseEntity.ok().eTag(eTag(note)).body(note);
+    }
+    
+    /**
+     * Modifie une partie d'une note (JSON Merge Patch, RFC 7396).
+     * 
+     * Seuls les champs présents sont modifiés, et seules les colonnes
+     * modifiées sont réécrites en base. Vérifications de version comme
+     * pour PUT (If-Match: 412, membre version: 409).
+     * 
+     * @param id L'identifiant de la note à modifier
+     * @param patch Le patch
+     * @param ifMatch L'en-tête If-Match de la requête (optionnel)
+     * @param principal L'utilisateur connecté
+     * @return La note mise à jour, avec son nouvel ETag
+     * 
+     * Exemple de requête:
+     * PATCH /api/notes/5
+     * Authorization: Bearer <token>
+     * Content-Type: application/merge-patch+json
+     * {
+     *   "title": "Titre modifié",
+     *   "version": 3
+     * }
+     */
+    @PatchMapping(value = "/{id}", consumes = MERGE_PATCH)
+    public ResponseEntity<NoteResponse> mergePatchNote(@PathVariable Long id,
+                                                       @RequestBody JsonNode patch,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                       @AuthenticationPrincipal UserPrincipal principal) {
+        NoteResponse note = noteService.mergePatchNote(id, patch, principal, ifMatch);
+        return ResponseEntity.ok().eTag(eTag(note)).body(note);
+    }
+    
+    /**
+     * Modifie des plages de texte du titre et du contenu d'une note.
+     * 
+     * Seules les parties modifiées sont transmises: la requête d'une petite
+     * modification d'une longue note reste petite. Vérifications de version
+     * comme pour PUT (If-Match: 412, champ version: 409).
+     * 
+     * @param id L'identifiant de la note à modifier
+     * @param request Les modifications et la version lue
+     * @param ifMatch L'en-tête If-Match de la requête (optionnel)
+     * @param principal L'utilisateur connecté
+     * @return La note mise à jour, avec son nouvel ETag
+     * 
+     * Exemple de requête (remplace les caractères 120 à 127 du contenu):
+     * PATCH /api/notes/5
+     * Authorization: Bearer <token>
+     * Content-Type: application/vnd.notes.text-edits+json
+     * {
+     *   "edits": [
+     *     { "field": "content", "start": 120, "end": 127, "text": "modifié" }
+     *   ],
+     *   "version": 3
+     * }
+     */
+    @PatchMapping(value = "/{id}", consumes = TEXT_EDITS)
+    public ResponseEntity<NoteResponse> editNote(@PathVariable Long id,
+                                                 @Valid @RequestBody NoteTextEditsRequest request,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @AuthenticationPrincipal UserPrincipal principal) {
+        NoteResponse note = noteService.editNote(id, request, principal, ifMatch);
+        return ResponseEntity.ok().eTag(eTag(note)).body(note);
     }
     
     /**
      * Supprime une note.
      * 
      * Seul le propriétaire de la note peut la supprimer.
+     * Avec If-Match, la note n'est supprimée que si elle n'a pas changé
+     * depuis la version lue (sinon 412).
      * 
      * @param id L'identifiant de la note à supprimer
-     * @param authentication L'objet d'authentification
+     * @param ifMatch L'en-tête If-Match de la requête (optionnel)
+     * @param principal L'utilisateur connecté
      * @return Réponse sans contenu (204)
      * 
      * Exemple de requête:
@@ -169,9 +694,100 @@ public class NoteController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteNote(@PathVariable Long id, 
-                                       Authentication authentication) {
-        String username = authentication.getName();
-        noteService.deleteNote(id, username);
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @AuthenticationPrincipal UserPrincipal principal) {
+        noteService.deleteNote(id, principal, ifMatch);
         return ResponseEntity.noContent().build();
     }
+    
+    /**
+     * Récupère l'historique des versions d'une note, de la plus récente à
+     * la plus ancienne.
+     * 
+     * Chaque création ou modification de la note (y compris par lots, import
+     * ou restauration) en enregistre une version, numérotée comme la note
+     * (champ version). La page suivante s'obtient en repassant "next" dans
+     * le paramètre before; il vaut null sur la dernière page.
+     * 
+     * @param id L'identifiant de la note
+     * @param limit Le nombre maximal de versions (1 à 200, 50 par défaut)
+     * @param before Les versions antérieures à celle-ci (absent pour la première page)
+     * @param principal L'utilisateur connecté
+     * @return Les versions de la page (sans contenu)
+     * 
+     * Exemple de requête:
+     * GET /api/notes/5/revisions?limit=2
+     * Authorization: Bearer <token>
+     * 
+     * Exemple de réponse:
+     * {
+     *   "items": [
+     *     { "revision": 7, "title": "Titre modifié", "createdAt": "2024-01-04T16:00:00" },
+     *     { "revision": 6, "title": "Titre", "createdAt": "2024-01-03T11:20:00" }
+     *   ],
+     *   "next": 6
+     * }
+     */
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<NoteRevisionPageResponse> getRevisions(@PathVariable Long id,
+                                                                 @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                                 @RequestParam(required = false) Long before,
+                                                                 @AuthenticationPrincipal UserPrincipal principal) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(noteRevisionService.getRevisions(id, principal, before, pageSize));
+    }
+    
+    /**
+     * Récupère une version d'une note (titre et contenu complets).
+     * 
+     * @param id L'identifiant de la note
+     * @param revision Le numéro de la version
+     * @param principal L'utilisateur connecté
+     * @return La note à cette version
+     * 
+     * Exemple de requête:
+     * GET /api/notes/5/revisions/6
+     * Authorization: Bearer <token>
+     */
+    @GetMapping("/{id}/revisions/{revision}")
+    public ResponseEntity<NoteRevisionResponse> getRevision(@PathVariable Long id,
+                                                            @PathVariable Long revision,
+                                                            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(noteRevisionService.getRevision(id, revision, principal));
+    }
+    
+    /**
+     * Restaure une version d'une note.
+     * 
+     * Le titre et le contenu de la version remplacent ceux de la note, qui
+     * reçoit une nouvelle version (l'historique est conservé). Avec If-Match,
+     * la note n'est restaurée que si elle n'a pas changé depuis la version
+     * lue (sinon 412).
+     * 
+     * @param id L'identifiant de la note
+     * @param revision Le numéro de la version à restaurer
+     * @param ifMatch L'en-tête If-Match de la requête (optionnel)
+     * @param principal L'utilisateur connecté
+     * @return La note restaurée, avec son nouvel ETag
+     * 
+     * Exemple de requête:
+     * POST /api/notes/5/revisions/6/restore
+     * Authorization: Bearer <token>
+     * If-Match: "5-7"
+     */
+    @PostMapping("/{id}/revisions/{revision}/restore")
+    public ResponseEntity<NoteResponse> restoreRevision(@PathVariable Long id,
+                                                        @PathVariable Long revision,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                        @AuthenticationPrincipal UserPrincipal principal) {
+        NoteResponse note = noteService.restoreRevision(id, revision, principal, ifMatch);
+        return ResponseEntity.ok().eTag(eTag(note)).body(note);
+    }
+    
+    /**
+     * ETag d'une note renvoyée au client.
+     */
+    private static String eTag(NoteResponse note) {
+        return NoteETags.note(note.getId(), note.getVersion());
+    }
 }
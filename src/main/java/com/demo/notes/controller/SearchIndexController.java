@@ -0,0 +1,47 @@
+package com.demo.notes.controller;
+
+import com.demo.notes.search.NoteIndexer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Contrôleur REST d'administration de l'index de recherche.
+ * 
+ * L'index est maintenu automatiquement (voir NoteIndexer); la reconstruction
+ * complète sert après une restauration de la base ou un changement de la
+ * structure des documents.
+ * 
+ * Réservé aux administrateurs (ROLE_ADMIN).
+ * 
+ * @author Demo
+ */
+@RestController
+@RequestMapping("/api/search-index")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class SearchIndexController {
+    
+    @Autowired
+    private NoteIndexer noteIndexer;
+    
+    /**
+     * Lance la reconstruction complète de l'index de recherche.
+     * 
+     * La reconstruction s'exécute en arrière-plan, sur un thread par cœur;
+     * les recherches restent possibles pendant ce temps, sur l'index en
+     * cours de reconstruction.
+     * 
+     * @return Réponse sans contenu (202), ou 409 si une reconstruction est déjà en cours
+     * 
+     * Exemple de requête:
+     * POST /api/search-index/rebuild
+     * Authorization: Bearer <token>
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuild() {
+        noteIndexer.startRebuild();
+        return ResponseEntity.accepted().build();
+    }
+}
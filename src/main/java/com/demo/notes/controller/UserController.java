@@ -2,6 +2,7 @@ package com.demo.notes.controller;
 
 import com.demo.notes.dto.CreateUserRequest;
 import com.demo.notes.dto.UserResponse;
+import com.demo.notes.security.PasswordHashingExecutor;
 import com.demo.notes.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,7 @@ import java.util.List;
  * - Créer des utilisateurs (ADMIN uniquement)
  * - Lister les utilisateurs (ADMIN uniquement)
  * - Supprimer des utilisateurs (ADMIN uniquement)
+ * - Révoquer les sessions d'un utilisateur (ADMIN uniquement)
  * 
  * Tous ces endpoints nécessitent le rôle ROLE_ADMIN.
  * 
@@ -32,6 +34,9 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+    
     /**
      * Récupère la liste de tous les utilisateurs.
      * 
@@ -85,6 +90,9 @@ public class UserController {
      * 
      * Accès réservé aux administrateurs.
      * Les validations sur les données sont appliquées automatiquement.
+     * Le mot de passe est encodé sur le pool de hachage dédié (503 s'il est saturé);
+     * l'utilisateur est ensuite enregistré sur le thread de la requête, seul le
+     * hachage occupe le pool.
      * 
      * @param request Les données du nouvel utilisateur
      * @return L'utilisateur créé
@@ -109,7 +117,8 @@ public class UserController {
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<UserResponse> createUser(@Valid @RequestBody CreateUserRequest request) {
-        UserResponse user = userService.createUser(request);
+        String encodedPassword = passwordHashingExecutor.encode(request.getPassword()).join();
+        UserResponse user = userService.createUser(request, encodedPassword);
         return ResponseEntity.status(HttpStatus.CREATED).body(user);
     }
     
@@ -133,4 +142,25 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
+    
+    /**
+     * Révoque toutes les sessions d'un utilisateur.
+     * 
+     * Accès réservé aux administrateurs.
+     * Tous les tokens déjà émis pour cet utilisateur sont refusés;
+     * il doit se reconnecter.
+     * 
+     * @param id L'identifiant de l'utilisateur
+     * @return Réponse sans contenu (204)
+     * 
+     * Exemple de requête:
+     * POST /api/users/4/revoke-sessions
+     * Authorization: Bearer <token>
+     */
+    @PostMapping("/{id}/revoke-sessions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> revokeSessions(@PathVariable Long id) {
+        userService.revokeSessions(id);
+        return ResponseEntity.noContent().build();
+    }
 }
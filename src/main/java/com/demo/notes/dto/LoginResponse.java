@@ -5,7 +5,8 @@ import java.util.List;
 /**
  * DTO pour les réponses d'authentification (login).
  * 
- * Contient le token JWT et les informations de base de l'utilisateur
+ * Contient le token JWT (token d'accès de courte durée), le refresh token
+ * permettant de le renouveler et les informations de base de l'utilisateur
  * connecté, qui seront utilisées par le frontend.
  * 
  * @author Demo
@@ -18,6 +19,12 @@ public class LoginResponse {
      */
     private String token;
     
+    /**
+     * Refresh token, à usage unique, échangeable contre un nouveau token
+     * d'accès via /api/auth/refresh.
+     */
+    private String refreshToken;
+    
     /**
      * Type du token (généralement "Bearer").
      */
@@ -42,8 +49,9 @@ public class LoginResponse {
     /**
      * Constructeur sans le paramètre type (utilise la valeur par défaut "Bearer").
      */
-    public LoginResponse(String token, Long id, String username, List<String> roles) {
+    public LoginResponse(String token, String refreshToken, Long id, String username, List<String> roles) {
         this.token = token;
+        this.refreshToken = refreshToken;
         this.id = id;
         this.username = username;
         this.roles = roles;
@@ -54,8 +62,9 @@ public class LoginResponse {
     }
 
     // Constructeur avec tous les paramètres
-    public LoginResponse(String token, String type, Long id, String username, List<String> roles) {
+    public LoginResponse(String token, String refreshToken, String type, Long id, String username, List<String> roles) {
         this.token = token;
+        this.refreshToken = refreshToken;
         this.type = type;
         this.id = id;
         this.username = username;
@@ -71,6 +80,14 @@ public class LoginResponse {
         this.token = token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     public String getType() {
         return type;
     }
@@ -0,0 +1,79 @@
+package com.demo.notes.dto;
+
+/**
+ * DTO pour le résultat d'une opération d'un lot.
+ *
+ * Le statut reprend le code HTTP qu'aurait renvoyé l'opération seule:
+ * 201 (créée), 200 (modifiée), 204 (supprimée), 400 (opération invalide),
+ * 404 (note inexistante) ou 500 (échec de l'enregistrement de son groupe
+ * d'opérations).
+ *
+ * @author Demo
+ */
+public class NoteBatchItemResult {
+
+    /**
+     * Position de l'opération dans la requête (à partir de 0).
+     */
+    private int index;
+
+    /**
+     * Statut de l'opération (code HTTP).
+     */
+    private int status;
+
+    /**
+     * Identifiant de la note (attribué lors d'une création), null en cas d'échec.
+     */
+    private Long id;
+
+    /**
+     * Message d'erreur, null si l'opération a réussi.
+     */
+    private String error;
+
+    // Constructeur par défaut
+    public NoteBatchItemResult() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteBatchItemResult(int index, int status, Long id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    // Getters et Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.notes.dto;
+
+/**
+ * DTO pour une opération d'un lot: création, modification ou suppression
+ * d'une note.
+ *
+ * - create: title et content obligatoires
+ * - update: id, title et content obligatoires
+ * - delete: id obligatoire
+ *
+ * @author Demo
+ */
+public class NoteBatchOperation {
+
+    /**
+     * Nature de l'opération: create, update ou delete.
+     */
+    private String op;
+
+    /**
+     * Identifiant de la note (modification et suppression).
+     */
+    private Long id;
+
+    /**
+     * Titre de la note (création et modification).
+     */
+    private String title;
+
+    /**
+     * Contenu HTML de la note (création et modification).
+     */
+    private String content;
+
+    // Constructeur par défaut
+    public NoteBatchOperation() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteBatchOperation(String op, Long id, String title, String content) {
+        this.op = op;
+        this.id = id;
+        this.title = title;
+        this.content = content;
+    }
+
+    // Getters et Setters
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,40 @@
+package com.demo.notes.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * DTO pour une requête d'opérations par lots sur les notes.
+ *
+ * Les opérations sont appliquées dans l'ordre; chacune est validée
+ * séparément et reçoit son propre résultat.
+ *
+ * @author Demo
+ */
+public class NoteBatchRequest {
+
+    /**
+     * Opérations à appliquer.
+     */
+    @NotEmpty(message = "Au moins une opération est requise")
+    private List<NoteBatchOperation> operations;
+
+    // Constructeur par défaut
+    public NoteBatchRequest() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteBatchRequest(List<NoteBatchOperation> operations) {
+        this.operations = operations;
+    }
+
+    // Getters et Setters
+    public List<NoteBatchOperation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<NoteBatchOperation> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,62 @@
+package com.demo.notes.dto;
+
+import java.util.List;
+
+/**
+ * DTO pour la réponse à une requête d'opérations par lots.
+ *
+ * @author Demo
+ */
+public class NoteBatchResponse {
+
+    /**
+     * Nombre d'opérations réussies.
+     */
+    private int succeeded;
+
+    /**
+     * Nombre d'opérations en échec.
+     */
+    private int failed;
+
+    /**
+     * Résultat de chaque opération, dans l'ordre de la requête.
+     */
+    private List<NoteBatchItemResult> results;
+
+    // Constructeur par défaut
+    public NoteBatchResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteBatchResponse(int succeeded, int failed, List<NoteBatchItemResult> results) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.results = results;
+    }
+
+    // Getters et Setters
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<NoteBatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<NoteBatchItemResult> results) {
+        this.results = results;
+    }
+}
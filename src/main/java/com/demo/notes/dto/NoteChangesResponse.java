@@ -0,0 +1,102 @@
+package com.demo.notes.dto;
+
+import java.util.List;
+
+/**
+ * DTO pour les changements des notes d'un utilisateur depuis une
+ * synchronisation (GET /api/notes/changes).
+ *
+ * Si full est vrai, notes contient une page de la liste complète des notes
+ * de l'utilisateur, qui remplace la liste du client (première
+ * synchronisation, ou jeton trop ancien). Sinon, notes contient les notes
+ * créées ou modifiées et deleted les notes supprimées depuis le jeton.
+ * Une même note peut être renvoyée d'une synchronisation à l'autre:
+ * l'application des changements doit pouvoir être répétée.
+ *
+ * Dans les deux cas, les réponses sont paginées: next est le curseur de la
+ * page suivante, et token n'est renseigné qu'avec la dernière page.
+ *
+ * @author Demo
+ */
+public class NoteChangesResponse {
+
+    /**
+     * Vrai si la réponse contient la liste complète.
+     */
+    private boolean full;
+
+    /**
+     * Résumés des notes créées ou modifiées, des plus récemment modifiées aux plus anciennes.
+     */
+    private List<NoteSummaryResponse> notes;
+
+    /**
+     * Identifiants des notes supprimées.
+     */
+    private List<Long> deleted;
+
+    /**
+     * Jeton à repasser tel quel dans le paramètre "since" de la synchronisation suivante.
+     */
+    private String token;
+
+    /**
+     * Curseur de la page suivante (null pour la dernière page).
+     */
+    private String next;
+
+    // Constructeur par défaut
+    public NoteChangesResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteChangesResponse(boolean full, List<NoteSummaryResponse> notes, List<Long> deleted, String token,
+                               String next) {
+        this.full = full;
+        this.notes = notes;
+        this.deleted = deleted;
+        this.token = token;
+        this.next = next;
+    }
+
+    // Getters et Setters
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<NoteSummaryResponse> getNotes() {
+        return notes;
+    }
+
+    public void setNotes(List<NoteSummaryResponse> notes) {
+        this.notes = notes;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -0,0 +1,117 @@
+package com.demo.notes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO pour une note exportée (une ligne de l'export NDJSON).
+ *
+ * Construit directement par la requête JPQL (projection): l'export ne
+ * charge aucune entité, la mémoire utilisée ne dépend pas du nombre de
+ * notes. Les champs title et content permettent de réimporter la ligne
+ * telle quelle.
+ *
+ * @author Demo
+ */
+public class NoteExportItem {
+
+    /**
+     * Identifiant unique de la note.
+     */
+    private Long id;
+
+    /**
+     * Titre de la note.
+     */
+    private String title;
+
+    /**
+     * Contenu HTML de la note.
+     */
+    private String content;
+
+    /**
+     * Date de création au format ISO 8601.
+     */
+    private String createdAt;
+
+    /**
+     * Date de dernière modification au format ISO 8601.
+     */
+    private String updatedAt;
+
+    /**
+     * Identifiant du propriétaire.
+     */
+    private Long userId;
+
+    // Constructeur par défaut
+    public NoteExportItem() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteExportItem(Long id, String title, String content, String createdAt, String updatedAt, Long userId) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.userId = userId;
+    }
+
+    /**
+     * Constructeur utilisé par les projections JPQL (SELECT new ...).
+     */
+    public NoteExportItem(Long id, String title, String content, LocalDateTime createdAt,
+                          LocalDateTime updatedAt, Long userId) {
+        this(id, title, content, createdAt.toString(), updatedAt.toString(), userId);
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo.notes.dto;
+
+/**
+ * DTO pour une ligne rejetée lors d'un import.
+ *
+ * @author Demo
+ */
+public class NoteImportError {
+
+    /**
+     * Numéro de la ligne dans le fichier importé (à partir de 1).
+     */
+    private long line;
+
+    /**
+     * Motif du rejet.
+     */
+    private String error;
+
+    // Constructeur par défaut
+    public NoteImportError() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteImportError(long line, String error) {
+        this.line = line;
+        this.error = error;
+    }
+
+    // Getters et Setters
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,80 @@
+package com.demo.notes.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO pour le bilan d'un import de notes.
+ *
+ * Seules les premières erreurs sont détaillées (notes.import.max-errors):
+ * failed compte toutes les lignes rejetées.
+ *
+ * @author Demo
+ */
+public class NoteImportResponse {
+
+    /**
+     * Nombre de lignes lues (lignes vides comprises).
+     */
+    private long lines;
+
+    /**
+     * Nombre de notes créées.
+     */
+    private long imported;
+
+    /**
+     * Nombre de lignes rejetées.
+     */
+    private long failed;
+
+    /**
+     * Détail des lignes rejetées (les premières relevées), par numéro de ligne.
+     */
+    private List<NoteImportError> errors = new ArrayList<>();
+
+    // Constructeur par défaut
+    public NoteImportResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteImportResponse(long lines, long imported, long failed, List<NoteImportError> errors) {
+        this.lines = lines;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    // Getters et Setters
+    public long getLines() {
+        return lines;
+    }
+
+    public void setLines(long lines) {
+        this.lines = lines;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<NoteImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<NoteImportError> errors) {
+        this.errors = errors;
+    }
+}
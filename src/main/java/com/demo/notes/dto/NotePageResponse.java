@@ -0,0 +1,52 @@
+package com.demo.notes.dto;
+
+import java.util.List;
+
+/**
+ * DTO pour une page de notes (pagination par curseur).
+ *
+ * Contient les résumés des notes de la page (sans contenu) et le
+ * curseur opaque permettant de demander la page suivante.
+ *
+ * @author Demo
+ */
+public class NotePageResponse {
+
+    /**
+     * Résumés des notes de la page, des plus récemment modifiées aux plus anciennes.
+     */
+    private List<NoteSummaryResponse> items;
+
+    /**
+     * Curseur de la page suivante, à repasser tel quel dans le paramètre
+     * "cursor". Null s'il n'y a plus de notes.
+     */
+    private String next;
+
+    // Constructeur par défaut
+    public NotePageResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NotePageResponse(List<NoteSummaryResponse> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters et Setters
+    public List<NoteSummaryResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<NoteSummaryResponse> items) {
+        this.items = items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
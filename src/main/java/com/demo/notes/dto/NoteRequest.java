@@ -25,17 +25,31 @@ public class NoteRequest {
      */
     @NotBlank(message = "Le contenu est obligatoire")
     private String content;
+    
+    /**
+     * Version de la note sur laquelle porte la modification (optionnelle,
+     * ignorée à la création). Si elle n'est plus la version courante, la
+     * modification est refusée (409) au lieu d'écraser l'autre.
+     */
+    private Long version;
 
     // Constructeur par défaut
     public NoteRequest() {
     }
 
-    // Constructeur avec tous les paramètres
+    // Constructeur sans version
     public NoteRequest(String title, String content) {
         this.title = title;
         this.content = content;
     }
 
+    // Constructeur avec tous les paramètres
+    public NoteRequest(String title, String content, Long version) {
+        this.title = title;
+        this.content = content;
+        this.version = version;
+    }
+
     // Getters et Setters
     public String getTitle() {
         return title;
@@ -52,4 +66,12 @@ public class NoteRequest {
     public void setContent(String content) {
         this.content = content;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -36,6 +36,12 @@ public class NoteResponse {
      */
     private String updatedAt;
     
+    /**
+     * Version de la note, à renvoyer avec une modification pour détecter
+     * les modifications concurrentes.
+     */
+    private Long version;
+    
     /**
      * Identifiant de l'utilisateur propriétaire.
      */
@@ -51,12 +57,13 @@ public class NoteResponse {
     }
 
     // Constructeur avec tous les paramètres
-    public NoteResponse(Long id, String title, String content, String createdAt, String updatedAt, Long userId, String username) {
+    public NoteResponse(Long id, String title, String content, String createdAt, String updatedAt, Long version, Long userId, String username) {
         this.id = id;
         this.title = title;
         this.content = content;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
         this.userId = userId;
         this.username = username;
     }
@@ -102,6 +109,14 @@ public class NoteResponse {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Long getUserId() {
         return userId;
     }
@@ -0,0 +1,53 @@
+package com.demo.notes.dto;
+
+import java.util.List;
+
+/**
+ * DTO pour une page de l'historique d'une note.
+ *
+ * Contient les résumés des versions de la page, de la plus récente à la
+ * plus ancienne, et le numéro de version à partir duquel demander la page
+ * suivante.
+ *
+ * @author Demo
+ */
+public class NoteRevisionPageResponse {
+
+    /**
+     * Résumés des versions de la page.
+     */
+    private List<NoteRevisionSummaryResponse> items;
+
+    /**
+     * Valeur du paramètre "before" de la page suivante (dernière version
+     * de la page). Null s'il n'y a plus de versions.
+     */
+    private Long next;
+
+    // Constructeur par défaut
+    public NoteRevisionPageResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteRevisionPageResponse(List<NoteRevisionSummaryResponse> items, Long next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters et Setters
+    public List<NoteRevisionSummaryResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<NoteRevisionSummaryResponse> items) {
+        this.items = items;
+    }
+
+    public Long getNext() {
+        return next;
+    }
+
+    public void setNext(Long next) {
+        this.next = next;
+    }
+}
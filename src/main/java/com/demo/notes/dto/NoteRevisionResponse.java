@@ -0,0 +1,91 @@
+package com.demo.notes.dto;
+
+/**
+ * DTO pour une version d'une note (historique).
+ *
+ * Contient le titre et le contenu complet de la note tels qu'ils étaient
+ * à cette version.
+ *
+ * @author Demo
+ */
+public class NoteRevisionResponse {
+
+    /**
+     * Identifiant de la note.
+     */
+    private Long noteId;
+
+    /**
+     * Numéro de la version (version de la note enregistrée).
+     */
+    private Long revision;
+
+    /**
+     * Titre de la note à cette version.
+     */
+    private String title;
+
+    /**
+     * Contenu de la note à cette version (HTML).
+     */
+    private String content;
+
+    /**
+     * Date d'enregistrement de la version au format ISO 8601.
+     */
+    private String createdAt;
+
+    // Constructeur par défaut
+    public NoteRevisionResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteRevisionResponse(Long noteId, Long revision, String title, String content, String createdAt) {
+        this.noteId = noteId;
+        this.revision = revision;
+        this.title = title;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    // Getters et Setters
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,63 @@
+package com.demo.notes.dto;
+
+/**
+ * DTO pour le résumé d'une version d'une note, utilisé par l'historique.
+ *
+ * Ne contient pas le contenu: il s'obtient via
+ * GET /api/notes/{id}/revisions/{revision}.
+ *
+ * @author Demo
+ */
+public class NoteRevisionSummaryResponse {
+
+    /**
+     * Numéro de la version (version de la note enregistrée).
+     */
+    private Long revision;
+
+    /**
+     * Titre de la note à cette version.
+     */
+    private String title;
+
+    /**
+     * Date d'enregistrement de la version au format ISO 8601.
+     */
+    private String createdAt;
+
+    // Constructeur par défaut
+    public NoteRevisionSummaryResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteRevisionSummaryResponse(Long revision, String title, String createdAt) {
+        this.revision = revision;
+        this.title = title;
+        this.createdAt = createdAt;
+    }
+
+    // Getters et Setters
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+}
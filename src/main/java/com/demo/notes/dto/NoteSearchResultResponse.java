@@ -0,0 +1,92 @@
+package com.demo.notes.dto;
+
+/**
+ * DTO pour un résultat de recherche dans les notes.
+ *
+ * L'extrait provient du contenu de la note, débarrassé de son HTML:
+ * le texte est échappé et seuls les termes trouvés sont entourés de
+ * balises <mark>.
+ *
+ * @author Demo
+ */
+public class NoteSearchResultResponse {
+
+    /**
+     * Identifiant unique de la note.
+     */
+    private Long id;
+
+    /**
+     * Titre de la note.
+     */
+    private String title;
+
+    /**
+     * Extrait du contenu, termes trouvés surlignés (HTML échappé).
+     */
+    private String snippet;
+
+    /**
+     * Date de dernière modification au format ISO 8601.
+     */
+    private String updatedAt;
+
+    /**
+     * Pertinence (BM25): sert uniquement à comparer les résultats d'une même recherche.
+     */
+    private float score;
+
+    // Constructeur par défaut
+    public NoteSearchResultResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteSearchResultResponse(Long id, String title, String snippet, String updatedAt, float score) {
+        this.id = id;
+        this.title = title;
+        this.snippet = snippet;
+        this.updatedAt = updatedAt;
+        this.score = score;
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public void setScore(float score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo.notes.dto;
+
+/**
+ * DTO pour une suggestion de titre pendant la saisie.
+ *
+ * @author Demo
+ */
+public class NoteSuggestionResponse {
+
+    /**
+     * Identifiant unique de la note.
+     */
+    private Long id;
+
+    /**
+     * Titre de la note.
+     */
+    private String title;
+
+    // Constructeur par défaut
+    public NoteSuggestionResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteSuggestionResponse(Long id, String title) {
+        this.id = id;
+        this.title = title;
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
@@ -0,0 +1,88 @@
+package com.demo.notes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO pour le résumé d'une note, utilisé par la liste des notes.
+ *
+ * Ne contient ni le contenu HTML ni le propriétaire: il est construit
+ * directement par la requête JPQL (projection), sans charger l'entité Note
+ * ni lire la colonne content. Le contenu complet s'obtient via
+ * GET /api/notes/{id}.
+ *
+ * @author Demo
+ */
+public class NoteSummaryResponse {
+
+    /**
+     * Identifiant unique de la note.
+     */
+    private Long id;
+
+    /**
+     * Titre de la note.
+     */
+    private String title;
+
+    /**
+     * Date de création au format ISO 8601.
+     */
+    private String createdAt;
+
+    /**
+     * Date de dernière modification au format ISO 8601.
+     */
+    private String updatedAt;
+
+    // Constructeur par défaut
+    public NoteSummaryResponse() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteSummaryResponse(Long id, String title, String createdAt, String updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Constructeur utilisé par les projections JPQL (SELECT new ...).
+     */
+    public NoteSummaryResponse(Long id, String title, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, title, createdAt.toString(), updatedAt.toString());
+    }
+
+    // Getters et Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
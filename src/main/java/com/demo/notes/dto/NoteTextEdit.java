@@ -0,0 +1,87 @@
+package com.demo.notes.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * DTO pour une modification d'une plage de texte d'une note.
+ *
+ * Remplace les caractères [start, end[ du champ par text: une insertion
+ * a start == end, une suppression un text vide. Les positions sont en
+ * unités UTF-16 (celles des chaînes JavaScript).
+ *
+ * @author Demo
+ */
+public class NoteTextEdit {
+
+    /**
+     * Champ modifié: "title" ou "content".
+     */
+    @NotNull(message = "Le champ modifié est obligatoire")
+    private String field;
+
+    /**
+     * Début de la plage remplacée (inclus).
+     */
+    @NotNull(message = "Le début de la plage est obligatoire")
+    @PositiveOrZero(message = "Le début de la plage doit être positif")
+    private Integer start;
+
+    /**
+     * Fin de la plage remplacée (exclue).
+     */
+    @NotNull(message = "La fin de la plage est obligatoire")
+    @PositiveOrZero(message = "La fin de la plage doit être positive")
+    private Integer end;
+
+    /**
+     * Texte inséré à la place de la plage.
+     */
+    @NotNull(message = "Le texte inséré est obligatoire")
+    private String text;
+
+    // Constructeur par défaut
+    public NoteTextEdit() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteTextEdit(String field, Integer start, Integer end, String text) {
+        this.field = field;
+        this.start = start;
+        this.end = end;
+        this.text = text;
+    }
+
+    // Getters et Setters
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public Integer getStart() {
+        return start;
+    }
+
+    public void setStart(Integer start) {
+        this.start = start;
+    }
+
+    public Integer getEnd() {
+        return end;
+    }
+
+    public void setEnd(Integer end) {
+        this.end = end;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo.notes.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * DTO pour une modification partielle d'une note par plages de texte
+ * (PATCH, type application/vnd.notes.text-edits+json).
+ *
+ * Seules les parties modifiées du titre et du contenu sont transmises.
+ * Les modifications sont appliquées dans l'ordre, chacune sur le résultat
+ * de la précédente.
+ *
+ * @author Demo
+ */
+public class NoteTextEditsRequest {
+
+    /**
+     * Modifications à appliquer.
+     */
+    @NotEmpty(message = "Au moins une modification est requise")
+    private List<@Valid NoteTextEdit> edits;
+
+    /**
+     * Version de la note sur laquelle portent les modifications
+     * (optionnelle, 409 si elle n'est plus la version courante).
+     */
+    private Long version;
+
+    // Constructeur par défaut
+    public NoteTextEditsRequest() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public NoteTextEditsRequest(List<NoteTextEdit> edits, Long version) {
+        this.edits = edits;
+        this.version = version;
+    }
+
+    // Getters et Setters
+    public List<NoteTextEdit> getEdits() {
+        return edits;
+    }
+
+    public void setEdits(List<NoteTextEdit> edits) {
+        this.edits = edits;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,39 @@
+package com.demo.notes.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * DTO pour les requêtes de rafraîchissement du token d'accès.
+ *
+ * Contient le refresh token délivré lors du login (ou du dernier
+ * rafraîchissement).
+ *
+ * @author Demo
+ */
+public class RefreshRequest {
+
+    /**
+     * Refresh token à échanger.
+     * Ne peut pas être vide ou null.
+     */
+    @NotBlank(message = "Le refresh token est obligatoire")
+    private String refreshToken;
+
+    // Constructeur par défaut
+    public RefreshRequest() {
+    }
+
+    // Constructeur avec tous les paramètres
+    public RefreshRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    // Getters et Setters
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
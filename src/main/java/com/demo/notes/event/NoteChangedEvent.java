@@ -0,0 +1,79 @@
+package com.demo.notes.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement publié lorsqu'une note est créée, modifiée ou supprimée.
+ *
+ * Porte l'état de la note tel qu'il a été écrit, pour que les composants
+ * qui en tiennent une copie (index de recherche...) se mettent à jour après
+ * le commit de la transaction sans relire la base.
+ *
+ * @author Demo
+ */
+public class NoteChangedEvent {
+
+    /**
+     * Nature du changement.
+     */
+    public enum Change {
+        SAVED,
+        DELETED
+    }
+
+    private final Long noteId;
+    private final Long ownerId;
+    private final String title;
+    private final String content;
+    private final LocalDateTime updatedAt;
+    private final Change change;
+
+    private NoteChangedEvent(Long noteId, Long ownerId, String title, String content,
+                             LocalDateTime updatedAt, Change change) {
+        this.noteId = noteId;
+        this.ownerId = ownerId;
+        this.title = title;
+        this.content = content;
+        this.updatedAt = updatedAt;
+        this.change = change;
+    }
+
+    /**
+     * Note créée ou modifiée.
+     */
+    public static NoteChangedEvent saved(Long noteId, Long ownerId, String title, String content,
+                                         LocalDateTime updatedAt) {
+        return new NoteChangedEvent(noteId, ownerId, title, content, updatedAt, Change.SAVED);
+    }
+
+    /**
+     * Note supprimée.
+     */
+    public static NoteChangedEvent deleted(Long noteId, Long ownerId) {
+        return new NoteChangedEvent(noteId, ownerId, null, null, null, Change.DELETED);
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+}
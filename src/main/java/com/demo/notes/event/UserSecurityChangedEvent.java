@@ -0,0 +1,44 @@
+package com.demo.notes.event;
+
+/**
+ * Événement publié lorsqu'un utilisateur est créé, modifié ou supprimé.
+ *
+ * Les composants qui conservent en mémoire des informations de sécurité
+ * (versions de tokens, caches d'utilisateurs...) l'écoutent après le commit
+ * de la transaction pour invalider leurs entrées.
+ *
+ * @author Demo
+ */
+public class UserSecurityChangedEvent {
+
+    /**
+     * Nature du changement.
+     */
+    public enum Change {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Long userId;
+    private final String username;
+    private final Change change;
+
+    public UserSecurityChangedEvent(Long userId, String username, Change change) {
+        this.userId = userId;
+        this.username = username;
+        this.change = change;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+}
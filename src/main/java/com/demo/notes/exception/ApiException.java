@@ -0,0 +1,44 @@
+package com.demo.notes.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception métier traduite en réponse HTTP par le GlobalExceptionHandler.
+ *
+ * Ces exceptions décrivent des situations attendues (ressource absente,
+ * accès refusé, conflit...) et non des bugs: elles ne capturent pas de
+ * pile d'appels, coûteuse à construire et inutile dans les logs. Le corps
+ * JSON de la réponse est sérialisé une seule fois, à la construction.
+ *
+ * Une exception au message fixe peut donc être créée une fois et
+ * réutilisée (voir les constantes des sous-classes).
+ *
+ * @author Demo
+ */
+public abstract class ApiException extends RuntimeException {
+
+    /**
+     * Code HTTP de la réponse.
+     */
+    private final HttpStatus status;
+
+    /**
+     * Corps de la réponse, pré-sérialisé.
+     */
+    private final ErrorBody body;
+
+    protected ApiException(HttpStatus status, String message) {
+        // Pas de cause, pas de suppression, pas de pile d'appels
+        super(message, null, false, false);
+        this.status = status;
+        this.body = ErrorBody.of(status.getReasonPhrase(), message);
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public ErrorBody getBody() {
+        return body;
+    }
+}
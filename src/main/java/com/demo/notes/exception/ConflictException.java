@@ -0,0 +1,29 @@
+package com.demo.notes.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception levée lorsqu'une opération entre en conflit avec l'état
+ * existant (ex: nom d'utilisateur déjà pris, note modifiée par une
+ * écriture concurrente).
+ *
+ * Traduite en réponse 409 (Conflict).
+ *
+ * @author Demo
+ */
+public class ConflictException extends ApiException {
+
+    /**
+     * Nom d'utilisateur déjà utilisé.
+     */
+    public static final ConflictException USERNAME_TAKEN = new ConflictException("Ce nom d'utilisateur existe déjà");
+
+    /**
+     * Note modifiée depuis la version sur laquelle porte la modification.
+     */
+    public static final ConflictException NOTE_MODIFIED = new ConflictException("La note a été modifiée par une autre requête");
+
+    public ConflictException(String message) {
+        super(HttpStatus.CONFLICT, message);
+    }
+}
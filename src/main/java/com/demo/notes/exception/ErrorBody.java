@@ -0,0 +1,159 @@
+package com.demo.notes.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Corps de réponse d'erreur JSON pré-sérialisé.
+ *
+ * Produit le même format que ErrorResponse:
+ * {"error": "...", "message": "...", "timestamp": 1700000000000}
+ *
+ * La partie fixe (error, message) est sérialisée une seule fois, à la
+ * création; seul le timestamp est ajouté à chaque réponse. Les erreurs
+ * fréquentes (401, 403, 404...) sont ainsi renvoyées sans ObjectMapper
+ * ni objet intermédiaire.
+ *
+ * Les instances sont immuables et partagées entre les threads.
+ *
+ * @author Demo
+ */
+public final class ErrorBody {
+
+    /**
+     * Utilisé une seule fois par corps, pour l'échappement JSON.
+     * Déclaré avant les constantes, qui l'utilisent à l'initialisation.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final byte[] SUFFIX = {'}'};
+
+    /**
+     * Identifiants incorrects lors du login.
+     */
+    public static final ErrorBody BAD_CREDENTIALS =
+            of("Unauthorized", "Nom d'utilisateur ou mot de passe incorrect");
+
+    /**
+     * Accès à une ressource protégée sans token valide.
+     */
+    public static final ErrorBody AUTHENTICATION_REQUIRED =
+            of("Unauthorized", "Authentification requise pour accéder à cette ressource");
+
+    /**
+     * Refresh token inconnu, expiré ou déjà utilisé.
+     */
+    public static final ErrorBody INVALID_REFRESH_TOKEN =
+            of("Unauthorized", "Refresh token invalide ou expiré");
+
+    /**
+     * Permissions insuffisantes (rôle manquant).
+     */
+    public static final ErrorBody ACCESS_DENIED =
+            of("Access Denied", "Vous n'avez pas les permissions nécessaires pour effectuer cette action");
+
+    /**
+     * Corps de requête illisible (JSON mal formé, type de champ incorrect).
+     */
+    public static final ErrorBody MALFORMED_BODY =
+            of("Bad Request", "Le corps de la requête est invalide");
+
+    /**
+     * Paramètre de requête d'un type incorrect (ex: limit=abc).
+     */
+    public static final ErrorBody INVALID_PARAMETER =
+            of("Bad Request", "Un paramètre de la requête est invalide");
+
+    /**
+     * Paramètre de requête obligatoire absent.
+     */
+    public static final ErrorBody MISSING_PARAMETER =
+            of("Bad Request", "Un paramètre obligatoire de la requête est absent");
+
+    /**
+     * Erreur inattendue (le détail n'est pas exposé au client).
+     */
+    public static final ErrorBody SERVER_ERROR =
+            of("Internal Server Error", "Erreur serveur interne");
+
+    /**
+     * Début du JSON, jusqu'à la valeur du timestamp exclue.
+     */
+    private final byte[] prefix;
+
+    private ErrorBody(byte[] prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Pré-sérialise un corps d'erreur.
+     *
+     * @param error Le type d'erreur
+     * @param message Le message destiné à l'utilisateur
+     * @return Le corps pré-sérialisé
+     */
+    public static ErrorBody of(String error, String message) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("error", error);
+        fields.put("message", message);
+        try {
+            String json = MAPPER.writeValueAsString(fields);
+            String prefix = json.substring(0, json.length() - 1) + ",\"timestamp\":";
+            return new ErrorBody(prefix.getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation impossible du corps d'erreur", e);
+        }
+    }
+
+    /**
+     * Produit le JSON complet, horodaté à l'instant présent.
+     *
+     * @return Le corps de la réponse (UTF-8)
+     */
+    public byte[] render() {
+        byte[] timestamp = Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Arrays.copyOf(prefix, prefix.length + timestamp.length + SUFFIX.length);
+        System.arraycopy(timestamp, 0, body, prefix.length, timestamp.length);
+        System.arraycopy(SUFFIX, 0, body, prefix.length + timestamp.length, SUFFIX.length);
+        return body;
+    }
+
+    /**
+     * Construit une réponse Spring MVC portant ce corps.
+     *
+     * @param status Le code HTTP
+     * @return La réponse JSON
+     */
+    public ResponseEntity<byte[]> toResponse(HttpStatusCode status) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(render());
+    }
+
+    /**
+     * Écrit ce corps directement dans une réponse servlet (hors Spring MVC).
+     *
+     * @param response La réponse HTTP
+     * @param status Le code HTTP
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void writeTo(HttpServletResponse response, int status) throws IOException {
+        byte[] body = render();
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        OutputStream out = response.getOutputStream();
+        out.write(body);
+    }
+}
@@ -1,15 +1,22 @@
 package com.demo.notes.exception;
 
-import com.demo.notes.dto.ErrorResponse;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,8 +28,13 @@ import java.util.Map;
  * et les transforme en réponses HTTP appropriées avec des messages
  * d'erreur clairs pour le frontend.
  * 
+ * Les erreurs métier sont des ApiException typées (code HTTP porté par
+ * le type, corps pré-sérialisé); les erreurs fréquentes de sécurité
+ * utilisent les corps partagés d'ErrorBody.
+ * 
  * @author Demo
  */
+@Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
@@ -51,6 +63,45 @@ public class GlobalExceptionHandler {
                 .body(errors);
     }
     
+    /**
+     * Gère les corps de requête illisibles (JSON mal formé, type incorrect).
+     *
+     * Erreur du client, fréquente avec les scanners: pas de pile d'appels
+     * dans les logs.
+     *
+     * @param ex L'exception de lecture du corps
+     * @return Réponse 400
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<byte[]> handleMessageNotReadable(HttpMessageNotReadableException ex) {
+        log.debug("400 corps illisible: {}", ex.getMessage());
+        return ErrorBody.MALFORMED_BODY.toResponse(HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Gère les paramètres de requête d'un type incorrect (ex: limit=abc).
+     *
+     * @param ex L'exception de conversion du paramètre
+     * @return Réponse 400
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<byte[]> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        log.debug("400 paramètre {} invalide: {}", ex.getName(), ex.getValue());
+        return ErrorBody.INVALID_PARAMETER.toResponse(HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Gère l'absence d'un paramètre de requête obligatoire.
+     *
+     * @param ex L'exception de paramètre manquant
+     * @return Réponse 400
+     */
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<byte[]> handleMissingParameter(MissingServletRequestParameterException ex) {
+        log.debug("400 paramètre {} absent", ex.getParameterName());
+        return ErrorBody.MISSING_PARAMETER.toResponse(HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Gère les erreurs d'authentification (identifiants invalides).
      * 
@@ -58,12 +109,8 @@ public class GlobalExceptionHandler {
      * @return Réponse 401 avec message d'erreur
      */
     @ExceptionHandler(BadCredentialsException.class)
-    public ResponseEntity<ErrorResponse> handleBadCredentials(BadCredentialsException ex) {
-        ErrorResponse error = new ErrorResponse(
-            "Authentication Failed",
-            "Nom d'utilisateur ou mot de passe incorrect"
-        );
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    public ResponseEntity<byte[]> handleBadCredentials(BadCredentialsException ex) {
+        return ErrorBody.BAD_CREDENTIALS.toResponse(HttpStatus.UNAUTHORIZED);
     }
     
     /**
@@ -73,12 +120,8 @@ public class GlobalExceptionHandler {
      * @return Réponse 404 avec message d'erreur
      */
     @ExceptionHandler(UsernameNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handleUsernameNotFound(UsernameNotFoundException ex) {
-        ErrorResponse error = new ErrorResponse(
-            "User Not Found",
-            ex.getMessage()
-        );
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    public ResponseEntity<byte[]> handleUsernameNotFound(UsernameNotFoundException ex) {
+        return ErrorBody.of("User Not Found", ex.getMessage()).toResponse(HttpStatus.NOT_FOUND);
     }
     
     /**
@@ -88,35 +131,63 @@ public class GlobalExceptionHandler {
      * @return Réponse 403 avec message d'erreur
      */
     @ExceptionHandler(AccessDeniedException.class)
-    public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
-        ErrorResponse error = new ErrorResponse(
-            "Access Denied",
-            "Vous n'avez pas les permissions nécessaires pour effectuer cette action"
-        );
-        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    public ResponseEntity<byte[]> handleAccessDenied(AccessDeniedException ex) {
+        return ErrorBody.ACCESS_DENIED.toResponse(HttpStatus.FORBIDDEN);
+    }
+    
+    /**
+     * Gère les refus dus à une ressource saturée (ex: pool de hachage plein).
+     * 
+     * @param ex L'exception de saturation
+     * @return Réponse 503 avec en-tête Retry-After
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<byte[]> handleServiceOverloaded(ServiceOverloadedException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ex.getBody().render());
+    }
+    
+    /**
+     * Gère les erreurs métier (ressource absente, accès refusé, conflit...).
+     * 
+     * Le code HTTP est porté par le type de l'exception: aucune analyse
+     * du message n'est nécessaire.
+     * 
+     * @param ex L'exception métier
+     * @return Réponse avec le code et le corps de l'exception
+     */
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<byte[]> handleApiException(ApiException ex) {
+        log.debug("{} {}: {}", ex.getStatus().value(), ex.getClass().getSimpleName(), ex.getMessage());
+        return ex.getBody().toResponse(ex.getStatus());
+    }
+    
+    /**
+     * Gère les conflits de verrouillage optimiste: l'entité a été modifiée
+     * ou supprimée par une autre transaction depuis sa lecture.
+     * 
+     * @param ex L'exception de verrouillage optimiste
+     * @return Réponse 409
+     */
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public ResponseEntity<byte[]> handleOptimisticLock(RuntimeException ex) {
+        return handleApiException(ConflictException.NOTE_MODIFIED);
     }
     
     /**
      * Gère toutes les autres exceptions non spécifiquement traitées.
      * 
+     * Il s'agit d'erreurs inattendues: elles sont journalisées avec leur
+     * pile d'appels et le client reçoit un message générique.
+     * 
      * @param ex L'exception générique
-     * @return Réponse 500 ou 400 selon le type d'erreur
+     * @return Réponse 500
      */
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
-        ErrorResponse error = new ErrorResponse(
-            "Error",
-            ex.getMessage()
-        );
-        
-        // Si le message indique une erreur métier, renvoyer 400
-        // Sinon, renvoyer 500 pour les erreurs serveur
-        if (ex.getMessage().contains("non trouvé") || 
-            ex.getMessage().contains("existe déjà") ||
-            ex.getMessage().contains("non autorisé")) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-        }
-        
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    public ResponseEntity<byte[]> handleRuntimeException(RuntimeException ex) {
+        log.error("Erreur inattendue", ex);
+        return ErrorBody.SERVER_ERROR.toResponse(HttpStatus.INTERNAL_SERVER_ERROR);
     }
 }
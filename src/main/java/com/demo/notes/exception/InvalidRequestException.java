@@ -0,0 +1,18 @@
+package com.demo.notes.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception levée lorsqu'une requête est syntaxiquement valide mais
+ * fait référence à des données incorrectes (ex: rôle inconnu).
+ *
+ * Traduite en réponse 400 (Bad Request).
+ *
+ * @author Demo
+ */
+public class InvalidRequestException extends ApiException {
+
+    public InvalidRequestException(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+}
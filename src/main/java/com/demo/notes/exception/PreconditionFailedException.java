@@ -0,0 +1,24 @@
+package com.demo.notes.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception levée lorsqu'une requête conditionnelle (en-tête If-Match)
+ * vise une version de la ressource qui n'est plus la version courante.
+ *
+ * Traduite en réponse 412 (Precondition Failed).
+ *
+ * @author Demo
+ */
+public class PreconditionFailedException extends ApiException {
+
+    /**
+     * Note modifiée ou supprimée depuis sa lecture par le client.
+     */
+    public static final PreconditionFailedException NOTE_MODIFIED =
+            new PreconditionFailedException("La note a été modifiée depuis sa lecture");
+
+    public PreconditionFailedException(String message) {
+        super(HttpStatus.PRECONDITION_FAILED, message);
+    }
+}
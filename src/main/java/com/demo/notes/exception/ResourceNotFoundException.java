@@ -0,0 +1,32 @@
+package com.demo.notes.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception levée lorsqu'une ressource demandée n'existe pas.
+ *
+ * Traduite en réponse 404 (Not Found).
+ *
+ * @author Demo
+ */
+public class ResourceNotFoundException extends ApiException {
+
+    /**
+     * Note inexistante.
+     */
+    public static final ResourceNotFoundException NOTE = new ResourceNotFoundException("Note non trouvée");
+
+    /**
+     * Version inexistante dans l'historique d'une note.
+     */
+    public static final ResourceNotFoundException REVISION = new ResourceNotFoundException("Version de la note non trouvée");
+
+    /**
+     * Utilisateur inexistant.
+     */
+    public static final ResourceNotFoundException USER = new ResourceNotFoundException("Utilisateur non trouvé");
+
+    public ResourceNotFoundException(String message) {
+        super(HttpStatus.NOT_FOUND, message);
+    }
+}
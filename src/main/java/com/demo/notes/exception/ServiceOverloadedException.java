@@ -0,0 +1,28 @@
+package com.demo.notes.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception levée lorsqu'une ressource saturée refuse une nouvelle tâche.
+ *
+ * Traduite en réponse 503 (Service Unavailable) avec un en-tête
+ * Retry-After indiquant au client quand réessayer.
+ *
+ * @author Demo
+ */
+public class ServiceOverloadedException extends ApiException {
+
+    /**
+     * Délai conseillé avant une nouvelle tentative, en secondes.
+     */
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -6,38 +6,55 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Entité représentant une note dans le système.
  *
  * Chaque note appartient à un utilisateur et contient:
  * - Un titre
- * - Un contenu en format HTML (texte riche)
- * - Des métadonnées (dates de création et modification)
+ * - Un contenu en format HTML (texte riche), stocké à part et partagé
+ *   entre notes identiques (NoteContent)
+ * - Des métadonnées (dates de création et modification, version)
  *
  * Les notes sont liées à leur propriétaire via une relation Many-to-One.
  *
+ * Les UPDATE ne portent que sur les colonnes modifiées (@DynamicUpdate):
+ * changer le titre d'une note ne réécrit pas son contenu.
+ *
  * @author Demo
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "notes")
+@DynamicUpdate
+@Table(name = "notes", indexes = {
+    // Pagination par curseur: notes d'un utilisateur triées par (updatedAt, id),
+    // couvrant les colonnes du résumé (voir db/migration/V1__schema.sql)
+    @Index(name = "idx_notes_user_updated", columnList = "user_id, updated_at DESC, id DESC, title, created_at"),
+    // Rattrapage de l'index de recherche: notes modifiées depuis une date
+    @Index(name = "idx_notes_updated_at", columnList = "updated_at, id"),
+    // Clé étrangère vers le contenu (vérifiée à la suppression d'un contenu)
+    @Index(name = "idx_notes_content_hash", columnList = "content_hash")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Note {
 
     /**
      * Identifiant unique de la note (clé primaire).
-     * Généré automatiquement par la base de données.
+     * Tiré de la séquence notes_seq par blocs de 50: attribué sans
+     * aller-retour en base, ce qui permet les insertions par lots JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -48,12 +65,16 @@ public class Note {
     private String title;
 
     /**
-     * Contenu de la note en format HTML.
-     * Peut contenir du texte riche avec mise en forme.
-     * Stocké dans une colonne TEXT pour supporter de grands contenus.
+     * Contenu de la note, désigné par son empreinte.
+     * Chargé à la demande: la liste et les écritures qui ne changent pas le
+     * contenu ne le lisent pas. Attribué par NoteContentStore, qui tient le
+     * compte des notes utilisant chaque contenu.
      */
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String content;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "content_hash", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private NoteContent body;
 
     /**
      * Date et heure de création de la note.
@@ -71,6 +92,16 @@ public class Note {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Version de la note (verrouillage optimiste).
+     * Incrémentée à chaque modification et vérifiée par l'UPDATE ou le
+     * DELETE: une écriture partie d'une version dépassée échoue au lieu
+     * d'écraser la modification concurrente. Sert aussi d'ETag.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Utilisateur propriétaire de cette note.
      * Relation Many-to-One: plusieurs notes peuvent appartenir à un utilisateur.
@@ -82,14 +113,27 @@ public class Note {
     @EqualsAndHashCode.Exclude
     private User user;
 
+    /**
+     * Contenu de la note en format HTML (lu à la première demande).
+     *
+     * @return Le contenu
+     */
+    public String getContent() {
+        return body.getText();
+    }
+
     /**
      * Hook de pré-persistance pour initialiser les dates.
      * Appelé automatiquement avant l'insertion en base.
+     * 
+     * Les dates sont arrondies à la précision des colonnes (microseconde):
+     * celles de l'entité en mémoire sont celles relues ensuite en base
+     * (curseurs de pagination et jetons de synchronisation).
      */
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        updatedAt = createdAt;
     }
 
     /**
@@ -98,6 +142,6 @@ public class Note {
      */
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 }
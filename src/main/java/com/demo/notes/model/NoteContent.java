@@ -0,0 +1,68 @@
+package com.demo.notes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité représentant un contenu de note, partagé par toutes les notes qui
+ * ont exactement ce contenu.
+ *
+ * Le contenu est adressé par son empreinte SHA-256: deux notes identiques
+ * (modèles, textes collés...), d'un même utilisateur ou non, n'en stockent
+ * qu'un exemplaire. Le nombre de notes qui l'utilisent et la collecte des
+ * contenus qui ne servent plus sont gérés par NoteContentStore, en SQL:
+ * l'entité n'est jamais modifiée par JPA.
+ *
+ * Les contenus des notes lues ensemble (opérations par lots) sont chargés
+ * par groupes de 50 (@BatchSize) à leur premier accès.
+ *
+ * @author Demo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@BatchSize(size = 50)
+@Table(name = "note_contents", indexes = {
+    @Index(name = "idx_note_contents_unreferenced", columnList = "ref_count, released_at")
+})
+public class NoteContent {
+
+    /**
+     * Empreinte SHA-256 du contenu (UTF-8), en hexadécimal.
+     */
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    /**
+     * Contenu en format HTML, compressé en base (voir NoteContentConverter).
+     */
+    @Lob
+    @Convert(converter = NoteContentConverter.class)
+    @Column(name = "data", nullable = false)
+    @ToString.Exclude
+    private String text;
+
+    /**
+     * Nombre de notes, et d'instantanés de leur historique, qui utilisent
+     * ce contenu.
+     */
+    @Column(nullable = false)
+    private long refCount;
+
+    /**
+     * Date de la dernière référence retirée (ou de l'insertion): un contenu
+     * sans référence n'est supprimé qu'un délai après.
+     */
+    @Column(nullable = false)
+    private LocalDateTime releasedAt;
+}
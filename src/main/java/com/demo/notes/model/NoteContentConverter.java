@@ -0,0 +1,165 @@
+package com.demo.notes.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Convertisseur JPA du contenu des notes (NoteContent): compression
+ * transparente en base.
+ *
+ * Le HTML des notes est très redondant (balises de l'éditeur). Un contenu
+ * d'au moins notes.content.compression-threshold octets est compressé
+ * (Deflate au niveau le plus rapide, avec un dictionnaire des balises de
+ * l'éditeur Quill qui profite surtout aux notes courtes), s'il y gagne.
+ *
+ * Format de la colonne:
+ * - contenu compressé: marqueur DEFLATE_V1, longueur décompressée (4 octets),
+ *   puis le flux Deflate brut
+ * - sinon, le texte en UTF-8, sans marqueur. Le marqueur ne peut pas
+ *   commencer un texte UTF-8: les contenus enregistrés avant la compression
+ *   restent lisibles tels quels (NoteContentCompactionService les compresse)
+ *
+ * Le dictionnaire fait partie du format: le modifier impose un nouveau
+ * marqueur (les contenus existants restent lus avec l'ancien).
+ *
+ * @author Demo
+ */
+@Component
+@Converter
+public class NoteContentConverter implements AttributeConverter<String, byte[]> {
+
+    /**
+     * Marqueur du format compressé (octet invalide en tête d'un texte UTF-8).
+     */
+    static final byte DEFLATE_V1 = (byte) 0xF8;
+
+    /**
+     * Taille de l'en-tête du format compressé (marqueur et longueur).
+     */
+    private static final int HEADER_SIZE = 1 + Integer.BYTES;
+
+    /**
+     * Dictionnaire de DEFLATE_V1: fragments fréquents du HTML de l'éditeur,
+     * les plus fréquents en dernier (les plus proches, donc les moins chers
+     * à référencer).
+     */
+    private static final byte[] DICTIONARY = (
+            "<span style=\"background-color: rgb(\"></span><span style=\"color: rgb(\"></span>" +
+            "<a href=\"https://\" rel=\"noopener noreferrer\" target=\"_blank\"></a>" +
+            "<pre class=\"ql-syntax\" spellcheck=\"false\"></pre><blockquote></blockquote>" +
+            "<p class=\"ql-align-right\"><p class=\"ql-align-center\"><p class=\"ql-align-justify\">" +
+            "<li class=\"ql-indent-2\"><li class=\"ql-indent-1\"><h3></h3><h2></h2><h1></h1>" +
+            "<s></s><u></u><em></em><strong></strong><ol><li></li></ol><ul><li></li></ul>" +
+            "<p><br></p><p></p>"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Taille minimale (octets UTF-8) d'un contenu compressé.
+     */
+    @Value("${notes.content.compression-threshold:256}")
+    private int compressionThreshold;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] text = content.getBytes(StandardCharsets.UTF_8);
+        if (text.length < compressionThreshold) {
+            return text;
+        }
+        byte[] compressed = compress(text);
+        return compressed != null ? compressed : text;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!isCompressed(data)) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        return new String(decompress(data), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indique si une valeur de la colonne est dans le format qu'écrirait
+     * aujourd'hui convertToDatabaseColumn (compressée, ou trop courte pour
+     * l'être).
+     *
+     * @param data La valeur de la colonne
+     * @return false si le contenu est à recompresser
+     */
+    public boolean isCompacted(byte[] data) {
+        return data.length < compressionThreshold || isCompressed(data);
+    }
+
+    private static boolean isCompressed(byte[] data) {
+        return data.length > 0 && data[0] == DEFLATE_V1;
+    }
+
+    /**
+     * Compresse un texte UTF-8.
+     *
+     * @return Le contenu compressé, en-tête compris, ou null s'il ne serait
+     *         pas plus court que le texte
+     */
+    private static byte[] compress(byte[] text) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(text);
+            deflater.finish();
+            // Sortie bornée à la taille du texte: au-delà, la compression est abandonnée
+            byte[] out = new byte[text.length];
+            int length = HEADER_SIZE;
+            while (!deflater.finished() && length < out.length) {
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            if (!deflater.finished()) {
+                return null;
+            }
+            ByteBuffer.wrap(out).put(DEFLATE_V1).putInt(text.length);
+            byte[] data = new byte[length];
+            System.arraycopy(out, 0, data, 0, length);
+            return data;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] data) {
+        int length = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            byte[] text = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(text, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalStateException("Contenu de note compressé tronqué");
+            }
+            return text;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Contenu de note compressé invalide", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
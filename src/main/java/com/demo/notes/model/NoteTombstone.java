@@ -0,0 +1,47 @@
+package com.demo.notes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité représentant la trace d'une note supprimée.
+ *
+ * Permet à un client synchronisé (GET /api/notes/changes) d'apprendre
+ * qu'une note qu'il connaît n'existe plus. La trace n'est utile que pendant
+ * la durée de conservation (notes.sync.tombstone-retention): un client
+ * plus ancien resynchronise toute sa liste.
+ *
+ * @author Demo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "note_tombstones", indexes = {
+    @Index(name = "idx_note_tombstones_user_deleted", columnList = "user_id, deleted_at"),
+    @Index(name = "idx_note_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class NoteTombstone {
+
+    /**
+     * Identifiant de la note supprimée (jamais réattribué: séquence).
+     */
+    @Id
+    private Long noteId;
+
+    /**
+     * Identifiant du propriétaire de la note.
+     */
+    @Column(nullable = false)
+    private Long userId;
+
+    /**
+     * Date de suppression.
+     */
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,76 @@
+package com.demo.notes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité représentant un refresh token.
+ *
+ * Un refresh token permet d'obtenir un nouveau token d'accès (de courte
+ * durée) sans repasser par la vérification du mot de passe. Il est à usage
+ * unique: chaque utilisation le remplace par un nouveau token de la même
+ * famille (rotation).
+ *
+ * Seule l'empreinte SHA-256 du token est stockée: une fuite de la table
+ * ne permet pas d'obtenir de tokens utilisables.
+ *
+ * @author Demo
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+    @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+public class RefreshToken {
+
+    /**
+     * Identifiant unique du refresh token.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Empreinte SHA-256 (Base64) du token remis au client.
+     * Indexée (unique): la seule clé de recherche lors d'un rafraîchissement.
+     */
+    @Column(nullable = false, unique = true, length = 44)
+    private String tokenHash;
+
+    /**
+     * Famille du token: tous les tokens issus d'un même login par rotation.
+     * Permet de révoquer toute la chaîne si un token est réutilisé.
+     */
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    /**
+     * Utilisateur auquel le token a été délivré.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User user;
+
+    /**
+     * Date d'expiration du token.
+     */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Indique si le token a déjà été échangé contre un nouveau.
+     * Une seconde présentation révèle un vol du token.
+     */
+    @Column(nullable = false)
+    private boolean used;
+}
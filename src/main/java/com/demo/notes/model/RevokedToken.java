@@ -0,0 +1,42 @@
+package com.demo.notes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité représentant un token JWT révoqué avant son expiration
+ * (déconnexion de l'utilisateur).
+ *
+ * Un token est identifié par son claim "jti". L'entrée n'est utile que
+ * jusqu'à la date d'expiration du token: au-delà, le token est de toute
+ * façon refusé et l'entrée peut être purgée.
+ *
+ * @author Demo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+
+    /**
+     * Identifiant unique du token (claim "jti").
+     */
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    /**
+     * Date d'expiration du token révoqué.
+     * Au-delà de cette date, l'entrée peut être supprimée.
+     */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -60,6 +60,23 @@ public class User {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Version des droits de l'utilisateur, embarquée dans ses tokens JWT.
+     * Incrémentée à chaque changement de sécurité (rôles, révocation):
+     * les tokens portant une version antérieure sont alors refusés.
+     */
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    /**
+     * Compteur des modifications des notes de l'utilisateur (ETag de la
+     * liste des notes). Incrémenté en base uniquement
+     * (UserRepository.incrementNotesVersion), jamais écrit depuis l'entité:
+     * l'enregistrement d'un User ne peut pas écraser un incrément concurrent.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long notesVersion;
+
     /**
      * Ensemble des rôles attribués à cet utilisateur.
      * Relation Many-to-Many avec chargement eager pour éviter les LazyInitializationException.
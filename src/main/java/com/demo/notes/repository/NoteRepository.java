@@ -1,10 +1,25 @@
 package com.demo.notes.repository;
 
+import com.demo.notes.dto.NoteExportItem;
+import com.demo.notes.dto.NoteSummaryResponse;
 import com.demo.notes.model.Note;
+import com.demo.notes.search.IndexedNote;
+import com.demo.notes.search.NoteTitle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository pour la gestion des notes.
@@ -21,15 +36,221 @@ import java.util.List;
 public interface NoteRepository extends JpaRepository<Note, Long> {
     
     /**
-     * Récupère toutes les notes appartenant à un utilisateur spécifique.
+     * Nombre de lignes lues par aller-retour lors d'un export.
+     */
+    String EXPORT_FETCH_SIZE = "500";
+    
+    /**
+     * Récupère la première page des résumés de notes d'un utilisateur.
+     * 
+     * Les notes sont triées par date de mise à jour puis par identifiant,
+     * décroissants: l'ordre est total, condition de la pagination par curseur.
+     * 
+     * Projection: seules les colonnes du résumé sont lues (ni le contenu,
+     * ni le propriétaire), aucune entité Note n'est chargée.
+     * 
+     * @param userId L'identifiant de l'utilisateur
+     * @param limit Le nombre maximal de notes
+     * @return Les résumés des notes les plus récentes de l'utilisateur
+     */
+    @Query("SELECT new com.demo.notes.dto.NoteSummaryResponse(n.id, n.title, n.createdAt, n.updatedAt) " +
+           "FROM Note n WHERE n.user.id = :userId ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummaryResponse> findFirstPage(@Param("userId") Long userId, Limit limit);
+    
+    /**
+     * Récupère les résumés de la page suivant un curseur (pagination par clé).
+     * 
+     * Seules les notes strictement après la dernière note de la page
+     * précédente, dans l'ordre (updatedAt, id) décroissant, sont lues:
+     * le coût ne dépend pas de la position dans la liste, grâce à l'index
+     * idx_notes_user_updated.
+     * 
+     * @param userId L'identifiant de l'utilisateur
+     * @param updatedAt Date de mise à jour de la dernière note de la page précédente
+     * @param id Identifiant de la dernière note de la page précédente
+     * @param limit Le nombre maximal de notes
+     * @return Les résumés des notes suivantes
+     */
+    @Query("SELECT new com.demo.notes.dto.NoteSummaryResponse(n.id, n.title, n.createdAt, n.updatedAt) " +
+           "FROM Note n WHERE n.user.id = :userId " +
+           "AND (n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+           "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummaryResponse> findPageAfter(@Param("userId") Long userId,
+                             @Param("updatedAt") LocalDateTime updatedAt,
+                             @Param("id") Long id,
+                             Limit limit);
+    
+    /**
+     * Récupère la première page des résumés des notes d'un utilisateur
+     * modifiées depuis une date (synchronisation incrémentale).
+     * 
+     * Parcourt l'index idx_notes_user_updated sur la seule plage des notes
+     * modifiées: le coût dépend du nombre de changements, pas du nombre de notes.
+     * 
+     * @param userId L'identifiant de l'utilisateur
+     * @param since La date de début (exclue)
+     * @param limit Le nombre maximal de notes
+     * @return Les résumés, des plus récemment modifiées aux plus anciennes
+     */
+    @Query("SELECT new com.demo.notes.dto.NoteSummaryResponse(n.id, n.title, n.createdAt, n.updatedAt) " +
+           "FROM Note n WHERE n.user.id = :userId AND n.updatedAt > :since " +
+           "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummaryResponse> findChangedSince(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                               Limit limit);
+    
+    /**
+     * Récupère les résumés des notes modifiées depuis une date, de la page
+     * suivant un curseur (voir findPageAfter).
+     * 
+     * @param userId L'identifiant de l'utilisateur
+     * @param since La date de début (exclue)
+     * @param updatedAt Date de mise à jour de la dernière note de la page précédente
+     * @param id Identifiant de la dernière note de la page précédente
+     * @param limit Le nombre maximal de notes
+     * @return Les résumés des notes suivantes
+     */
+    @Query("SELECT new com.demo.notes.dto.NoteSummaryResponse(n.id, n.title, n.createdAt, n.updatedAt) " +
+           "FROM Note n WHERE n.user.id = :userId AND n.updatedAt > :since " +
+           "AND (n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+           "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummaryResponse> findChangedAfter(@Param("userId") Long userId,
+                                @Param("since") LocalDateTime since,
+                                @Param("updatedAt") LocalDateTime updatedAt,
+                                @Param("id") Long id,
+                                Limit limit);
+    
+    /**
+     * Récupère les titres de toutes les notes d'un utilisateur.
      * 
-     * Méthode de requête dérivée: Spring génère automatiquement
-     * la requête SQL à partir du nom de la méthode.
+     * Utilisé pour construire ses suggestions de titres: les colonnes lues
+     * figurent dans l'index idx_notes_user_updated, la table n'est pas lue.
      * 
      * @param userId L'identifiant de l'utilisateur
-     * @return Liste des notes de l'utilisateur, ordonnées par date de mise à jour décroissante
+     * @return Les titres des notes de l'utilisateur
+     */
+    @Query("SELECT new com.demo.notes.search.NoteTitle(n.id, n.title) FROM Note n WHERE n.user.id = :userId")
+    List<NoteTitle> findTitlesByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Parcourt toutes les notes d'un utilisateur, pour l'export.
+     * 
+     * Les lignes sont lues au fil du parcours (curseur JDBC, par paquets
+     * de EXPORT_FETCH_SIZE), par identifiant: l'index de user_id suffit,
+     * sans tri de toutes les notes de l'utilisateur. Le flux doit être
+     * consommé puis fermé dans une transaction.
+     * 
+     * @param userId L'identifiant de l'utilisateur
+     * @return Les notes de l'utilisateur, par identifiant croissant
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.demo.notes.dto.NoteExportItem(n.id, n.title, n.body.text, n.createdAt, n.updatedAt, n.user.id) " +
+           "FROM Note n WHERE n.user.id = :userId ORDER BY n.id")
+    Stream<NoteExportItem> streamByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Parcourt toutes les notes, tous utilisateurs confondus, pour l'export
+     * complet (même mode de lecture que streamByUserId).
+     * 
+     * @return Les notes, par identifiant croissant
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.demo.notes.dto.NoteExportItem(n.id, n.title, n.body.text, n.createdAt, n.updatedAt, n.user.id) " +
+           "FROM Note n ORDER BY n.id")
+    Stream<NoteExportItem> streamAll();
+    
+    /**
+     * Recherche une note par son identifiant et son propriétaire.
+     * 
+     * @param id L'identifiant de la note
+     * @param userId L'identifiant du propriétaire
+     * @return La note, si elle existe et appartient à l'utilisateur
+     */
+    Optional<Note> findByIdAndUserId(Long id, Long userId);
+    
+    /**
+     * Recherche une note par son identifiant et son propriétaire, avec son
+     * contenu (une seule requête, jointure sur note_contents).
+     * 
+     * @param id L'identifiant de la note
+     * @param userId L'identifiant du propriétaire
+     * @return La note, si elle existe et appartient à l'utilisateur
+     */
+    @EntityGraph(attributePaths = "body")
+    Optional<Note> findWithContentByIdAndUserId(Long id, Long userId);
+    
+    /**
+     * Récupère uniquement la version d'une note (ETag), sans charger la note.
+     * 
+     * @param id L'identifiant de la note
+     * @param userId L'identifiant du propriétaire
+     * @return La version, si la note existe et appartient à l'utilisateur
+     */
+    @Query("SELECT n.version FROM Note n WHERE n.id = :id AND n.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    /**
+     * Recherche des notes par identifiants, parmi celles d'un propriétaire.
+     * 
+     * Utilisé par les opérations par lots: les notes visées par un groupe
+     * d'opérations sont lues en une requête.
+     * 
+     * @param ids Les identifiants des notes
+     * @param userId L'identifiant du propriétaire
+     * @return Les notes trouvées (celles des autres utilisateurs sont ignorées)
+     */
+    @Query("SELECT n FROM Note n WHERE n.id IN :ids AND n.user.id = :userId")
+    List<Note> findOwnedByIds(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+    
+    /**
+     * Lit un lot de notes à indexer dans une plage d'identifiants, par identifiant croissant.
+     * 
+     * Utilisé pour reconstruire l'index de recherche: chaque tâche de la
+     * reconstruction parcourt sa plage par lots successifs (pagination par
+     * clé sur l'identifiant), sans charger les entités.
+     * 
+     * @param afterId L'identifiant de la dernière note du lot précédent (exclu)
+     * @param toId La borne supérieure de la plage (incluse)
+     * @param limit La taille du lot
+     * @return Les notes du lot
+     */
+    @Query("SELECT new com.demo.notes.search.IndexedNote(n.id, n.user.id, n.title, n.body.text, n.updatedAt) " +
+           "FROM Note n WHERE n.id > :afterId AND n.id <= :toId ORDER BY n.id")
+    List<IndexedNote> findIndexRange(@Param("afterId") Long afterId, @Param("toId") Long toId, Limit limit);
+    
+    /**
+     * Lit un lot de notes modifiées depuis une date, dans l'ordre (updatedAt, id).
+     * 
+     * Utilisé pour rattraper l'index de recherche après un arrêt: le lot
+     * suivant reprend après la dernière note du lot précédent.
+     * 
+     * @param updatedAt Date de modification de la dernière note lue (ou date de départ)
+     * @param id Identifiant de la dernière note lue (0 au départ)
+     * @param limit La taille du lot
+     * @return Les notes du lot
+     */
+    @Query("SELECT new com.demo.notes.search.IndexedNote(n.id, n.user.id, n.title, n.body.text, n.updatedAt) " +
+           "FROM Note n WHERE n.updatedAt >= :updatedAt AND (n.updatedAt > :updatedAt OR n.id > :id) " +
+           "ORDER BY n.updatedAt, n.id")
+    List<IndexedNote> findUpdatedSince(@Param("updatedAt") LocalDateTime updatedAt,
+                                       @Param("id") Long id,
+                                       Limit limit);
+    
+    /**
+     * Parmi des identifiants de notes, retourne ceux qui existent encore.
+     * 
+     * @param ids Les identifiants à vérifier
+     * @return Les identifiants des notes existantes
+     */
+    @Query("SELECT n.id FROM Note n WHERE n.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Retourne le plus grand identifiant de note.
+     * 
+     * @return L'identifiant maximal, ou null s'il n'y a aucune note
      */
-    List<Note> findByUserIdOrderByUpdatedAtDesc(Long userId);
+    @Query("SELECT MAX(n.id) FROM Note n")
+    Long findMaxId();
     
     /**
      * Compte le nombre de notes appartenant à un utilisateur.
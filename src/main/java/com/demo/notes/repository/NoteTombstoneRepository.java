@@ -0,0 +1,66 @@
+package com.demo.notes.repository;
+
+import com.demo.notes.model.NoteTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository pour les traces des notes supprimées.
+ *
+ * @author Demo
+ */
+@Repository
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+    /**
+     * Récupère la première page des traces d'un utilisateur depuis une date.
+     *
+     * Les traces sont triées par date de suppression puis par identifiant de
+     * note, croissants: l'ordre est total, condition de la pagination par curseur.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @param since La date de début (exclue)
+     * @param limit Le nombre maximal de traces
+     * @return Les traces des notes supprimées, des plus anciennes aux plus récentes
+     */
+    @Query("SELECT t FROM NoteTombstone t WHERE t.userId = :userId AND t.deletedAt > :since " +
+           "ORDER BY t.deletedAt, t.noteId")
+    List<NoteTombstone> findDeletedSince(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                         Limit limit);
+
+    /**
+     * Récupère les traces de la page suivant un curseur (pagination par clé).
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @param deletedAt Date de suppression de la dernière trace de la page précédente
+     * @param noteId Identifiant de note de la dernière trace de la page précédente
+     * @param limit Le nombre maximal de traces
+     * @return Les traces suivantes
+     */
+    @Query("SELECT t FROM NoteTombstone t WHERE t.userId = :userId " +
+           "AND (t.deletedAt > :deletedAt OR (t.deletedAt = :deletedAt AND t.noteId > :noteId)) " +
+           "ORDER BY t.deletedAt, t.noteId")
+    List<NoteTombstone> findDeletedAfter(@Param("userId") Long userId,
+                                         @Param("deletedAt") LocalDateTime deletedAt,
+                                         @Param("noteId") Long noteId,
+                                         Limit limit);
+
+    /**
+     * Supprime les traces antérieures à une date (fin de conservation).
+     *
+     * @param cutoff La date limite
+     * @return Le nombre de traces supprimées
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NoteTombstone t WHERE t.deletedAt <= :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,73 @@
+package com.demo.notes.repository;
+
+import com.demo.notes.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository pour la gestion des refresh tokens.
+ *
+ * @author Demo
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Recherche un refresh token par son empreinte, avec son utilisateur
+     * et les rôles de celui-ci, en une seule requête.
+     *
+     * @param tokenHash L'empreinte SHA-256 du token
+     * @return Le token s'il existe
+     */
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.user u LEFT JOIN FETCH u.roles WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Marque un token comme utilisé, s'il ne l'était pas déjà.
+     *
+     * La condition sur "used" rend l'opération atomique: de deux
+     * rafraîchissements concurrents avec le même token, un seul réussit.
+     *
+     * @param id L'identifiant du token
+     * @return 1 si le token a été marqué, 0 s'il était déjà utilisé
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.used = true WHERE r.id = :id AND r.used = false")
+    int markUsed(@Param("id") Long id);
+
+    /**
+     * Supprime tous les tokens d'une famille (réutilisation détectée ou logout).
+     *
+     * @param familyId L'identifiant de la famille
+     * @return Le nombre de tokens supprimés
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    /**
+     * Supprime tous les tokens d'un utilisateur (révocation des sessions, suppression).
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @return Le nombre de tokens supprimés
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Supprime les tokens expirés.
+     *
+     * @param now La date courante
+     * @return Le nombre de tokens supprimés
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
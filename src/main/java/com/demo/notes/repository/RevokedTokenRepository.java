@@ -0,0 +1,43 @@
+package com.demo.notes.repository;
+
+import com.demo.notes.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository pour la gestion des tokens révoqués.
+ *
+ * @author Demo
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Récupère les identifiants des tokens révoqués encore non expirés.
+     *
+     * Utilisé pour reconstruire le filtre de Bloom en mémoire.
+     *
+     * @param now La date courante
+     * @return Les identifiants (jti) des révocations actives
+     */
+    @Query("SELECT r.jti FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveJtis(@Param("now") LocalDateTime now);
+
+    /**
+     * Supprime les révocations dont le token a expiré.
+     *
+     * @param now La date courante
+     * @return Le nombre d'entrées supprimées
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
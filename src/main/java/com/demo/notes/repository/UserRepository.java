@@ -2,6 +2,9 @@ package com.demo.notes.repository;
 
 import com.demo.notes.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -39,4 +42,55 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true si un utilisateur avec ce nom existe, false sinon
      */
     boolean existsByUsername(String username);
+    
+    /**
+     * Récupère uniquement la version des droits d'un utilisateur.
+     * 
+     * Requête légère (ni rôles ni notes) utilisée pour vérifier
+     * qu'un token JWT n'a pas été invalidé.
+     * 
+     * @param id L'identifiant de l'utilisateur
+     * @return La version courante, ou Optional.empty() si l'utilisateur n'existe plus
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+    
+    /**
+     * Récupère uniquement le compteur des modifications des notes d'un utilisateur.
+     * 
+     * Lu par clé primaire, sans charger l'utilisateur ni ses notes:
+     * sert d'ETag à la liste des notes.
+     * 
+     * @param id L'identifiant de l'utilisateur
+     * @return Le compteur, ou Optional.empty() si l'utilisateur n'existe plus
+     */
+    @Query("SELECT u.notesVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findNotesVersionById(@Param("id") Long id);
+    
+    /**
+     * Incrémente le compteur des modifications des notes d'un utilisateur.
+     * 
+     * Appelé dans la transaction de chaque création, modification ou
+     * suppression de notes: le compteur change au commit, avec les notes.
+     * 
+     * @param id L'identifiant de l'utilisateur
+     * @return Le nombre de lignes modifiées (0 ou 1)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.notesVersion = u.notesVersion + 1 WHERE u.id = :id")
+    int incrementNotesVersion(@Param("id") Long id);
+    
+    /**
+     * Remplace le hash du mot de passe d'un utilisateur.
+     * 
+     * Utilisé pour ré-encoder un mot de passe au coût BCrypt courant
+     * lors d'une connexion réussie.
+     * 
+     * @param username Le nom d'utilisateur
+     * @param password Le nouveau hash
+     * @return Le nombre de lignes modifiées (0 ou 1)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
 }
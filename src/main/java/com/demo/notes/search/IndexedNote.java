@@ -0,0 +1,21 @@
+package com.demo.notes.search;
+
+import java.time.LocalDateTime;
+
+/**
+ * Champs d'une note nécessaires à son indexation.
+ *
+ * Construit par projection JPQL lors d'une reconstruction de l'index
+ * (propriétaire lu dans la clé étrangère, sans charger l'utilisateur),
+ * ou depuis un NoteChangedEvent.
+ *
+ * @param id L'identifiant de la note
+ * @param ownerId L'identifiant du propriétaire
+ * @param title Le titre
+ * @param content Le contenu HTML
+ * @param updatedAt La date de dernière modification
+ *
+ * @author Demo
+ */
+public record IndexedNote(Long id, Long ownerId, String title, String content, LocalDateTime updatedAt) {
+}
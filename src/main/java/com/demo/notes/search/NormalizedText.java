@@ -0,0 +1,172 @@
+package com.demo.notes.search;
+
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+
+import java.util.Arrays;
+
+/**
+ * Texte mis sous la forme du champ des trigrammes (minuscules, sans accents),
+ * avec la correspondance vers les positions du texte d'origine.
+ *
+ * Sert à vérifier les candidats trouvés par les trigrammes (recherche de
+ * sous-chaînes et recherche approchée) et à situer l'occurrence trouvée
+ * dans le texte d'origine, pour l'extrait.
+ *
+ * La normalisation est celle de NoteAnalyzer (LowerCaseFilter puis
+ * ASCIIFoldingFilter), appliquée caractère par caractère: un caractère
+ * peut en produire plusieurs ("œ" devient "oe").
+ *
+ * @author Demo
+ */
+final class NormalizedText {
+
+    /**
+     * Occurrence trouvée, en positions du texte d'origine.
+     *
+     * @param start Début (inclus)
+     * @param end Fin (exclue)
+     * @param edits Nombre de modifications (insertion, suppression ou
+     *              substitution d'un caractère) séparant l'occurrence du motif
+     */
+    record Match(int start, int end, int edits) {
+    }
+
+    private final String text;
+    private final String normalized;
+
+    /**
+     * Position dans le texte d'origine de chaque caractère normalisé
+     * (et, en dernière case, la longueur du texte d'origine).
+     */
+    private final int[] offsets;
+
+    private NormalizedText(String text, String normalized, int[] offsets) {
+        this.text = text;
+        this.normalized = normalized;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Normalise un texte.
+     *
+     * @param text Le texte d'origine
+     * @return Le texte normalisé
+     */
+    static NormalizedText of(String text) {
+        // ASCIIFoldingFilter produit au plus 4 caractères par caractère
+        char[] output = new char[text.length() * 4];
+        int[] offsets = new int[output.length + 1];
+        char[] lower = new char[2];
+        int length = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            int lowerLength = Character.toChars(Character.toLowerCase(codePoint), lower, 0);
+            int end = ASCIIFoldingFilter.foldToASCII(lower, 0, output, length, lowerLength);
+            Arrays.fill(offsets, length, end, i);
+            length = end;
+            i += Character.charCount(codePoint);
+        }
+        offsets[length] = text.length();
+        return new NormalizedText(text, new String(output, 0, length), offsets);
+    }
+
+    /**
+     * Le texte normalisé.
+     */
+    String normalized() {
+        return normalized;
+    }
+
+    /**
+     * Le texte d'origine.
+     */
+    String text() {
+        return text;
+    }
+
+    /**
+     * Recherche un motif (déjà normalisé) dans le texte, à un nombre de
+     * modifications près.
+     *
+     * Sans modification admise, il s'agit d'une recherche de sous-chaîne.
+     * Sinon, algorithme de Sellers (distance de Levenshtein entre le motif
+     * et la meilleure sous-chaîne du texte), avec la coupure d'Ukkonen: seules
+     * les lignes dont le coût reste dans la borne sont calculées, soit un
+     * coût proportionnel à la longueur du texte fois le nombre de
+     * modifications admises, en moyenne.
+     *
+     * @param pattern Le motif normalisé
+     * @param maxEdits Le nombre maximal de modifications
+     * @return La première occurrence de coût minimal, ou null s'il n'y en a pas
+     */
+    Match find(String pattern, int maxEdits) {
+        if (maxEdits == 0) {
+            int index = normalized.indexOf(pattern);
+            return index < 0 ? null : match(index, index + pattern.length(), 0);
+        }
+
+        int m = pattern.length();
+        int[] cost = new int[m + 1];
+        int[] start = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            cost[i] = i;
+        }
+        int lastActive = Math.min(maxEdits, m);
+        Match best = null;
+
+        for (int j = 0; j < normalized.length(); j++) {
+            char c = normalized.charAt(j);
+            int diagonalCost = cost[0];
+            int diagonalStart = start[0];
+            cost[0] = 0;
+            start[0] = j + 1;
+            int rows = Math.min(m, lastActive + 1);
+            for (int i = 1; i <= rows; i++) {
+                // Au-delà de la dernière ligne active, le coût précédent dépasse la borne
+                int leftCost = i <= lastActive ? cost[i] : maxEdits + 1;
+                int leftStart = start[i];
+
+                int value = diagonalCost + (pattern.charAt(i - 1) == c ? 0 : 1);
+                int from = diagonalStart;
+                if (cost[i - 1] + 1 < value) {
+                    value = cost[i - 1] + 1;
+                    from = start[i - 1];
+                }
+                if (leftCost + 1 < value) {
+                    value = leftCost + 1;
+                    from = leftStart;
+                }
+                cost[i] = value;
+                start[i] = from;
+                diagonalCost = leftCost;
+                diagonalStart = leftStart;
+            }
+
+            if (rows > lastActive && cost[rows] <= maxEdits) {
+                lastActive = rows;
+            } else {
+                lastActive = Math.min(lastActive, rows);
+                while (cost[lastActive] > maxEdits) {
+                    lastActive--;
+                }
+            }
+
+            if (lastActive == m && (best == null || cost[m] < best.edits())) {
+                best = match(start[m], j + 1, cost[m]);
+                if (cost[m] == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private Match match(int normalizedStart, int normalizedEnd, int edits) {
+        if (normalizedEnd == normalizedStart) {
+            return new Match(offsets[normalizedStart], offsets[normalizedStart], edits);
+        }
+        // Fin du caractère d'origine dont provient le dernier caractère trouvé
+        int last = offsets[normalizedEnd - 1];
+        return new Match(offsets[normalizedStart], last + Character.charCount(text.codePointAt(last)), edits);
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.notes.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.ngram.NGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * Analyseur des notes, utilisé à l'indexation comme à la recherche.
+ *
+ * Découpage Unicode standard, puis minuscules et suppression des accents:
+ * "Réunion" et "reunion" désignent le même terme. Pas de racinisation ni de
+ * mots vides, les notes mélangeant les langues.
+ *
+ * Le champ des trigrammes (NoteIndex.FIELD_TRIGRAMS) n'est pas découpé en
+ * mots: le texte entier, en minuscules et sans accents, est découpé en
+ * séquences de trois caractères (espaces et ponctuation compris), pour la
+ * recherche de sous-chaînes et la recherche approchée.
+ *
+ * @author Demo
+ */
+public class NoteAnalyzer extends Analyzer {
+
+    /**
+     * Longueur des n-grammes du champ des trigrammes.
+     */
+    static final int TRIGRAM = 3;
+
+    public NoteAnalyzer() {
+        // Composants différents selon le champ: ne pas les partager entre champs
+        super(PER_FIELD_REUSE_STRATEGY);
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        if (NoteIndex.FIELD_TRIGRAMS.equals(fieldName)) {
+            Tokenizer tokenizer = new KeywordTokenizer();
+            TokenStream stream = new LowerCaseFilter(tokenizer);
+            stream = new ASCIIFoldingFilter(stream);
+            stream = new NGramTokenFilter(stream, TRIGRAM, TRIGRAM, false);
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+        Tokenizer tokenizer = new StandardTokenizer();
+        TokenStream stream = new LowerCaseFilter(tokenizer);
+        stream = new ASCIIFoldingFilter(stream);
+        return new TokenStreamComponents(tokenizer, stream);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+    }
+}
@@ -0,0 +1,258 @@
+package com.demo.notes.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.charfilter.HTMLStripCharFilter;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Index Lucene des notes, sur le disque local.
+ *
+ * Détient l'IndexWriter (écritures, utilisé par NoteIndexer) et le
+ * SearcherManager (lectures "near real-time", utilisé par NoteSearchService),
+ * et définit la structure des documents:
+ * - id: identifiant de la note (terme exact, et doc value pour les parcours)
+ * - owner: propriétaire (point pour le filtre, doc value pour le tri de l'index)
+ * - title, content: texte analysé et stocké (contenu débarrassé du HTML,
+ *   indexé avec les positions des termes pour le highlighter)
+ * - trigrams: trigrammes du titre et du contenu (non stockés), pour la
+ *   recherche de sous-chaînes et la recherche approchée
+ * - updatedAt: date de modification, stockée pour l'affichage
+ *
+ * L'index est trié sur le propriétaire: les notes d'un utilisateur forment
+ * une plage contiguë de documents, la seule parcourue par ses recherches.
+ *
+ * Chaque commit Lucene enregistre la marque de progression de l'indexation
+ * (date de modification la plus récente indexée): au redémarrage, seules les
+ * notes modifiées depuis sont relues en base. Il enregistre aussi la version
+ * de la structure des documents: un index d'une version antérieure est
+ * traité comme vide, donc reconstruit.
+ *
+ * @author Demo
+ */
+@Slf4j
+@Component
+public class NoteIndex {
+
+    static final String FIELD_ID = "id";
+    static final String FIELD_OWNER = "owner";
+    static final String FIELD_TITLE = "title";
+    static final String FIELD_CONTENT = "content";
+    static final String FIELD_TRIGRAMS = "trigrams";
+    static final String FIELD_UPDATED_AT = "updatedAt";
+
+    /**
+     * Clé de la marque de progression dans les données du commit.
+     */
+    private static final String HIGH_WATER_MARK = "highWaterMark";
+
+    /**
+     * Clé de la version de la structure des documents dans les données du commit.
+     */
+    private static final String FORMAT = "format";
+
+    /**
+     * Version courante de la structure des documents (2: champ des trigrammes).
+     */
+    private static final String FORMAT_VERSION = "2";
+
+    /**
+     * Contenu: stocké (pour l'extrait) et indexé avec les positions des termes
+     * dans le texte, utilisées par le highlighter.
+     */
+    private static final FieldType CONTENT_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    /**
+     * Trigrammes: non stockés, indexés avec leur fréquence (classement BM25
+     * des sous-chaînes) mais sans positions, vérifiées sur le texte stocké.
+     */
+    private static final FieldType TRIGRAM_TYPE = new FieldType();
+
+    static {
+        CONTENT_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        CONTENT_TYPE.freeze();
+        TRIGRAM_TYPE.setTokenized(true);
+        TRIGRAM_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+        TRIGRAM_TYPE.freeze();
+    }
+
+    /**
+     * Répertoire de l'index sur le disque local.
+     */
+    @Value("${search.index.path:data/search-index}")
+    private Path indexPath;
+
+    private final Analyzer analyzer = new NoteAnalyzer();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    /**
+     * Ouvre (ou crée) l'index.
+     *
+     * @throws IOException Si le répertoire de l'index est inaccessible
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        directory = FSDirectory.open(indexPath);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setIndexSort(new Sort(new SortField(FIELD_OWNER, SortField.Type.LONG)))
+                // Seul NoteIndexer écrit sur disque, avec la marque de progression:
+                // un index partiel (reconstruction en échec) n'est jamais conservé
+                .setCommitOnClose(false);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+        log.info("Index de recherche ouvert: {} ({} notes, marque {})",
+                indexPath.toAbsolutePath(), writer.getDocStats().numDocs, getHighWaterMark());
+    }
+
+    /**
+     * Ferme l'index (après l'arrêt de NoteIndexer, qui en dépend).
+     *
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    IndexWriter getWriter() {
+        return writer;
+    }
+
+    SearcherManager getSearcherManager() {
+        return searcherManager;
+    }
+
+    /**
+     * Marque de progression enregistrée par le dernier commit.
+     *
+     * @return La date de modification la plus récente indexée, ou null si
+     *         l'index n'a jamais été construit ou l'a été dans une version
+     *         antérieure de la structure des documents
+     */
+    public LocalDateTime getHighWaterMark() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData == null) {
+            return null;
+        }
+        String mark = null;
+        String format = null;
+        for (Map.Entry<String, String> entry : commitData) {
+            if (HIGH_WATER_MARK.equals(entry.getKey())) {
+                mark = entry.getValue();
+            } else if (FORMAT.equals(entry.getKey())) {
+                format = entry.getValue();
+            }
+        }
+        return mark != null && FORMAT_VERSION.equals(format) ? LocalDateTime.parse(mark) : null;
+    }
+
+    /**
+     * Écrit les modifications sur disque avec leur marque de progression.
+     *
+     * @param highWaterMark La date de modification la plus récente indexée
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    void commit(LocalDateTime highWaterMark) throws IOException {
+        writer.setLiveCommitData(Map.of(
+                HIGH_WATER_MARK, highWaterMark.toString(),
+                FORMAT, FORMAT_VERSION).entrySet());
+        writer.commit();
+    }
+
+    /**
+     * Rend les dernières écritures visibles aux recherches.
+     *
+     * @throws IOException En cas d'erreur de lecture
+     */
+    void refresh() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * Terme désignant le document d'une note.
+     */
+    static Term idTerm(Long noteId) {
+        return new Term(FIELD_ID, noteId.toString());
+    }
+
+    /**
+     * Construit le document Lucene d'une note.
+     */
+    static Document toDocument(IndexedNote note) {
+        String content = stripHtml(note.content());
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, note.id().toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField(FIELD_ID, note.id()));
+        document.add(new LongPoint(FIELD_OWNER, note.ownerId()));
+        document.add(new NumericDocValuesField(FIELD_OWNER, note.ownerId()));
+        document.add(new TextField(FIELD_TITLE, note.title(), Field.Store.YES));
+        document.add(new Field(FIELD_CONTENT, content, CONTENT_TYPE));
+        document.add(new Field(FIELD_TRIGRAMS, normalizeSpaces(note.title()), TRIGRAM_TYPE));
+        document.add(new Field(FIELD_TRIGRAMS, content, TRIGRAM_TYPE));
+        document.add(new StoredField(FIELD_UPDATED_AT, note.updatedAt().toString()));
+        return document;
+    }
+
+    /**
+     * Extrait le texte d'un contenu HTML (balises retirées, entités décodées,
+     * blancs normalisés).
+     */
+    static String stripHtml(String html) {
+        StringBuilder text = new StringBuilder(html.length());
+        try (Reader reader = new HTMLStripCharFilter(new StringReader(html))) {
+            char[] buffer = new char[1024];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return normalizeSpaces(text.toString());
+    }
+
+    /**
+     * Remplace chaque suite de blancs par une espace et retire ceux des extrémités.
+     */
+    static String normalizeSpaces(String text) {
+        return text.replaceAll("\\s+", " ").strip();
+    }
+}
@@ -0,0 +1,568 @@
+package com.demo.notes.search;
+
+import com.demo.notes.event.NoteChangedEvent;
+import com.demo.notes.event.UserSecurityChangedEvent;
+import com.demo.notes.exception.ConflictException;
+import com.demo.notes.repository.NoteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.util.Bits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintenance incrémentale de l'index de recherche (NoteIndex).
+ *
+ * Les créations, modifications et suppressions de notes (NoteChangedEvent)
+ * et les suppressions d'utilisateurs sont placées, après le commit, dans
+ * une file bornée (search.indexer.queue-capacity). Un thread dédié la vide
+ * par lots (search.indexer.batch-size) et rend chaque lot visible aux
+ * recherches en un seul rafraîchissement, au plus une fois par intervalle
+ * (search.indexer.refresh-interval): les requêtes HTTP n'attendent jamais
+ * l'index.
+ *
+ * Reprise sur incident:
+ * - Chaque commit de l'index enregistre la marque de progression (date de
+ *   modification la plus récente indexée)
+ * - Au démarrage, les notes modifiées depuis cette marque (moins une marge
+ *   couvrant les transactions encore ouvertes, search.indexer.catch-up-margin)
+ *   sont réindexées, puis les notes supprimées en base retirées de l'index
+ * - Si la file déborde, l'opération est abandonnée et le même rattrapage
+ *   est programmé: aucune requête n'est bloquée ni aucune mise à jour perdue
+ * - Sans marque (index neuf, ou de structure antérieure), l'index est
+ *   entièrement reconstruit
+ *
+ * La reconstruction complète répartit les notes, par plages d'identifiants,
+ * sur un pool d'un thread par cœur (search.rebuild.threads); IndexWriter
+ * accepte les écritures concurrentes. Les événements reçus pendant ce temps
+ * restent en file et sont appliqués ensuite.
+ *
+ * Métriques: search.indexer.queue (profondeur de la file) et
+ * search.indexer.dropped (opérations abandonnées, file pleine).
+ *
+ * @author Demo
+ */
+@Slf4j
+@Component
+public class NoteIndexer {
+
+    /**
+     * Nombre d'identifiants couverts par une tâche de la reconstruction.
+     */
+    private static final long REBUILD_RANGE_SIZE = 10_000;
+
+    /**
+     * Opération en attente d'application à l'index.
+     */
+    private sealed interface Operation permits Save, Delete, DeleteOwner {
+    }
+
+    private record Save(IndexedNote note) implements Operation {
+    }
+
+    private record Delete(Long noteId) implements Operation {
+    }
+
+    private record DeleteOwner(Long ownerId) implements Operation {
+    }
+
+    @Autowired
+    private NoteIndex noteIndex;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Nombre maximal d'opérations en attente.
+     */
+    @Value("${search.indexer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * Nombre maximal d'opérations appliquées par lot (et de notes lues par requête).
+     */
+    @Value("${search.indexer.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Intervalle minimal entre deux rafraîchissements de l'index.
+     */
+    @Value("${search.indexer.refresh-interval:PT1S}")
+    private Duration refreshInterval;
+
+    /**
+     * Marge retranchée à la marque de progression lors d'un rattrapage.
+     */
+    @Value("${search.indexer.catch-up-margin:PT5M}")
+    private Duration catchUpMargin;
+
+    /**
+     * Taille du pool de la reconstruction complète (0 = nombre de cœurs).
+     */
+    @Value("${search.rebuild.threads:0}")
+    private int rebuildThreads;
+
+    private BlockingQueue<Operation> queue;
+
+    /**
+     * Sérialise les écritures: lots, rattrapage, reconstruction et commit.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * Date depuis laquelle un rattrapage est nécessaire (opérations abandonnées), null sinon.
+     */
+    private final AtomicReference<LocalDateTime> pendingCatchUp = new AtomicReference<>();
+
+    /**
+     * Date de modification la plus récente indexée; null tant que l'index
+     * n'a pas été construit (ou si une reconstruction a échoué): il n'est
+     * alors jamais écrit sur disque.
+     */
+    private volatile LocalDateTime highWaterMark;
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        highWaterMark = noteIndex.getHighWaterMark();
+        Gauge.builder("search.indexer.queue", queue, BlockingQueue::size)
+                .description("Opérations en attente d'indexation")
+                .register(meterRegistry);
+        dropped = Counter.builder("search.indexer.dropped")
+                .description("Opérations abandonnées (file pleine), rattrapées depuis la base")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Démarre le thread d'indexation une fois l'application démarrée:
+     * rattrapage (ou construction initiale), puis traitement de la file.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "note-indexer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Arrête le thread d'indexation, applique les opérations restantes et
+     * écrit l'index sur disque.
+     *
+     * @throws InterruptedException Si l'arrêt est interrompu
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join();
+        }
+        List<Operation> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            apply(remaining);
+            remaining.clear();
+        }
+        commit();
+    }
+
+    /**
+     * Met en file une création, modification ou suppression de note, après le commit.
+     *
+     * @param event L'événement de changement
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getChange() == NoteChangedEvent.Change.DELETED) {
+            enqueue(new Delete(event.getNoteId()));
+        } else {
+            enqueue(new Save(new IndexedNote(event.getNoteId(), event.getOwnerId(),
+                    event.getTitle(), event.getContent(), event.getUpdatedAt())));
+        }
+    }
+
+    /**
+     * Met en file le retrait des notes d'un utilisateur supprimé (supprimées en cascade en base).
+     *
+     * @param event L'événement de changement
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        if (event.getChange() == UserSecurityChangedEvent.Change.DELETED) {
+            enqueue(new DeleteOwner(event.getUserId()));
+        }
+    }
+
+    /**
+     * Lance une reconstruction complète de l'index en arrière-plan.
+     *
+     * @throws ConflictException Si une reconstruction est déjà en cours
+     */
+    public void startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ConflictException("Une reconstruction de l'index de recherche est déjà en cours");
+        }
+        Thread thread = new Thread(this::rebuild, "note-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Écrit périodiquement l'index sur disque, avec sa marque de progression.
+     *
+     * Ignoré si une écriture est en cours (reconstruction, rattrapage):
+     * le commit suivant s'en chargera.
+     */
+    @Scheduled(fixedDelayString = "${search.index.commit-interval:PT30S}",
+               initialDelayString = "${search.index.commit-interval:PT30S}")
+    public void scheduledCommit() {
+        if (writeLock.tryLock()) {
+            try {
+                commit();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void commit() {
+        LocalDateTime mark = highWaterMark;
+        if (mark == null) {
+            return;
+        }
+        try {
+            if (noteIndex.getWriter().hasUncommittedChanges()) {
+                noteIndex.commit(mark);
+            }
+        } catch (IOException e) {
+            log.warn("Échec de l'écriture de l'index de recherche", e);
+        }
+    }
+
+    /**
+     * Met une opération en file; si la file est pleine, programme un rattrapage.
+     */
+    private void enqueue(Operation operation) {
+        if (!queue.offer(operation)) {
+            dropped.increment();
+            requestCatchUp(LocalDateTime.now());
+        }
+    }
+
+    private void requestCatchUp(LocalDateTime from) {
+        pendingCatchUp.accumulateAndGet(from, (current, next) ->
+                current == null || next.isBefore(current) ? next : current);
+    }
+
+    /**
+     * Boucle du thread d'indexation.
+     */
+    private void run() {
+        try {
+            recover();
+        } catch (RuntimeException e) {
+            log.error("Échec de la reprise de l'index de recherche", e);
+        }
+
+        long refreshNanos = refreshInterval.toNanos();
+        long lastRefresh = System.nanoTime() - refreshNanos;
+        List<Operation> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Operation first = queue.poll(refreshNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    // Regroupe les opérations arrivées d'ici le prochain rafraîchissement
+                    long wait = lastRefresh + refreshNanos - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    apply(batch);
+                    batch.clear();
+                    lastRefresh = System.nanoTime();
+                }
+
+                LocalDateTime catchUpFrom = pendingCatchUp.getAndSet(null);
+                if (catchUpFrom != null) {
+                    catchUp(catchUpFrom);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erreur du thread d'indexation", e);
+            }
+        }
+    }
+
+    /**
+     * Remet l'index en phase avec la base au démarrage.
+     */
+    private void recover() {
+        LocalDateTime mark = highWaterMark;
+        if (mark == null) {
+            if (rebuilding.compareAndSet(false, true)) {
+                rebuild();
+            }
+        } else {
+            catchUp(mark);
+        }
+    }
+
+    /**
+     * Applique un lot d'opérations et le rend visible aux recherches.
+     *
+     * En cas d'erreur d'écriture, un rattrapage est programmé.
+     */
+    private void apply(List<Operation> batch) {
+        writeLock.lock();
+        try {
+            IndexWriter writer = noteIndex.getWriter();
+            LocalDateTime mark = highWaterMark;
+            for (Operation operation : batch) {
+                switch (operation) {
+                    case Save save -> {
+                        writer.updateDocument(NoteIndex.idTerm(save.note().id()), NoteIndex.toDocument(save.note()));
+                        mark = latest(mark, save.note().updatedAt());
+                    }
+                    case Delete delete -> writer.deleteDocuments(NoteIndex.idTerm(delete.noteId()));
+                    case DeleteOwner deleteOwner -> writer.deleteDocuments(
+                            LongPoint.newExactQuery(NoteIndex.FIELD_OWNER, deleteOwner.ownerId()));
+                }
+            }
+            if (highWaterMark != null) {
+                highWaterMark = mark;
+            }
+            noteIndex.refresh();
+        } catch (IOException e) {
+            log.error("Échec de l'indexation d'un lot de {} opérations", batch.size(), e);
+            requestCatchUp(LocalDateTime.now());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Réindexe les notes modifiées depuis une date (moins la marge de
+     * rattrapage), puis retire les notes supprimées en base.
+     */
+    private void catchUp(LocalDateTime from) {
+        writeLock.lock();
+        try {
+            if (highWaterMark == null) {
+                // Reconstruction en échec: seule une nouvelle reconstruction rétablit l'index
+                return;
+            }
+            IndexWriter writer = noteIndex.getWriter();
+            LocalDateTime since = from.minus(catchUpMargin);
+            LocalDateTime mark = highWaterMark;
+            LocalDateTime lastUpdatedAt = since;
+            long lastId = 0;
+            int reindexed = 0;
+            List<IndexedNote> batch;
+            do {
+                batch = noteRepository.findUpdatedSince(lastUpdatedAt, lastId, Limit.of(batchSize));
+                for (IndexedNote note : batch) {
+                    writer.updateDocument(NoteIndex.idTerm(note.id()), NoteIndex.toDocument(note));
+                    mark = latest(mark, note.updatedAt());
+                    lastUpdatedAt = note.updatedAt();
+                    lastId = note.id();
+                }
+                reindexed += batch.size();
+            } while (batch.size() == batchSize);
+
+            noteIndex.refresh();
+            int removed = removeDeletedNotes();
+
+            highWaterMark = mark;
+            noteIndex.commit(mark);
+            noteIndex.refresh();
+            log.info("Index de recherche rattrapé depuis {}: {} notes réindexées, {} retirées",
+                    since, reindexed, removed);
+        } catch (IOException e) {
+            log.error("Échec du rattrapage de l'index de recherche", e);
+            requestCatchUp(from);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Retire de l'index les notes qui n'existent plus en base
+     * (suppressions non appliquées avant un arrêt ou un débordement de la file).
+     *
+     * Les identifiants sont lus dans les doc values de l'index et vérifiés
+     * en base par lots.
+     *
+     * @return Le nombre de notes retirées
+     */
+    private int removeDeletedNotes() throws IOException {
+        int removed = 0;
+        List<Long> ids = new ArrayList<>(batchSize);
+        IndexSearcher searcher = noteIndex.getSearcherManager().acquire();
+        try {
+            for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                LeafReader reader = leaf.reader();
+                NumericDocValues values = reader.getNumericDocValues(NoteIndex.FIELD_ID);
+                if (values == null) {
+                    continue;
+                }
+                Bits liveDocs = reader.getLiveDocs();
+                for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        ids.add(values.longValue());
+                        if (ids.size() == batchSize) {
+                            removed += removeMissing(ids);
+                            ids.clear();
+                        }
+                    }
+                }
+            }
+            if (!ids.isEmpty()) {
+                removed += removeMissing(ids);
+            }
+        } finally {
+            noteIndex.getSearcherManager().release(searcher);
+        }
+        return removed;
+    }
+
+    private int removeMissing(List<Long> ids) throws IOException {
+        Set<Long> existing = new HashSet<>(noteRepository.findExistingIds(ids));
+        int removed = 0;
+        for (Long id : ids) {
+            if (!existing.contains(id)) {
+                noteIndex.getWriter().deleteDocuments(NoteIndex.idTerm(id));
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Reconstruit entièrement l'index depuis la base, en parallèle.
+     *
+     * L'appelant a positionné le drapeau "rebuilding", remis à zéro ici.
+     * En cas d'échec, la marque est effacée: l'index partiel n'est jamais
+     * écrit sur disque, et le dernier commit complet est conservé.
+     */
+    private void rebuild() {
+        writeLock.lock();
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            long start = System.nanoTime();
+            highWaterMark = null;
+            IndexWriter writer = noteIndex.getWriter();
+            writer.deleteAll();
+
+            int indexed = 0;
+            int threads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+            Long maxId = noteRepository.findMaxId();
+            if (maxId != null) {
+                ExecutorService pool = Executors.newFixedThreadPool(threads,
+                        new CustomizableThreadFactory("note-index-rebuild-"));
+                try {
+                    List<Future<Integer>> tasks = new ArrayList<>();
+                    for (long from = 0; from < maxId; from += REBUILD_RANGE_SIZE) {
+                        long afterId = from;
+                        long toId = Math.min(from + REBUILD_RANGE_SIZE, maxId);
+                        tasks.add(pool.submit(() -> indexRange(writer, afterId, toId)));
+                    }
+                    for (Future<Integer> task : tasks) {
+                        indexed += task.get();
+                    }
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+
+            // Les notes modifiées pendant la reconstruction arrivent par la file
+            highWaterMark = startedAt;
+            noteIndex.commit(startedAt);
+            noteIndex.refresh();
+            log.info("Index de recherche reconstruit: {} notes en {} ms ({} threads)",
+                    indexed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), threads);
+        } catch (IOException e) {
+            log.error("Échec de la reconstruction de l'index de recherche", e);
+        } catch (ExecutionException e) {
+            log.error("Échec de la reconstruction de l'index de recherche", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writeLock.unlock();
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Indexe les notes d'une plage d'identifiants (tâche de la reconstruction).
+     *
+     * @return Le nombre de notes indexées
+     */
+    private int indexRange(IndexWriter writer, long afterId, long toId) throws IOException {
+        int indexed = 0;
+        long lastId = afterId;
+        List<IndexedNote> batch;
+        do {
+            batch = noteRepository.findIndexRange(lastId, toId, Limit.of(batchSize));
+            for (IndexedNote note : batch) {
+                writer.addDocument(NoteIndex.toDocument(note));
+                lastId = note.id();
+            }
+            indexed += batch.size();
+        } while (batch.size() == batchSize);
+        return indexed;
+    }
+
+    private static LocalDateTime latest(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isAfter(current) ? candidate : current;
+    }
+}
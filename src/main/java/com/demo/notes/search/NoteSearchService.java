@@ -0,0 +1,329 @@
+package com.demo.notes.search;
+
+import com.demo.notes.dto.NoteSearchResultResponse;
+import com.demo.notes.exception.InvalidRequestException;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Recherche plein texte dans les notes (index NoteIndex).
+ *
+ * Trois modes (SearchMode):
+ * - Mots: tous les termes recherchés doivent apparaître dans la note, titre
+ *   ou contenu; le classement est celui de BM25 (similarité par défaut de
+ *   Lucene). L'extrait est produit par le UnifiedHighlighter à partir des
+ *   positions enregistrées dans l'index, sans ré-analyse du texte.
+ * - Sous-chaîne: les notes contenant tous les trigrammes du texte recherché
+ *   sont des candidates, vérifiées sur le texte stocké.
+ * - Approchée: les candidates partagent au moins une partie des trigrammes
+ *   du texte recherché (une modification d'un caractère en change au plus
+ *   trois); elles sont vérifiées par un calcul de distance d'édition
+ *   bornée et classées par similarité des trigrammes.
+ *
+ * Les recherches sont filtrées sur le propriétaire: grâce au tri de
+ * l'index, elles ne parcourent que la plage de documents de celui-ci.
+ *
+ * L'index est tenu à jour par NoteIndexer: une modification y devient
+ * visible dans l'intervalle de rafraîchissement (search.indexer.refresh-interval).
+ *
+ * @author Demo
+ */
+@Service
+public class NoteSearchService {
+
+    /**
+     * Poids d'un terme trouvé dans le titre, relativement au contenu.
+     */
+    private static final float TITLE_BOOST = 2.0f;
+
+    /**
+     * Longueur visée d'un extrait (en caractères, hors balises), arrondie à la phrase
+     * et centrée sur le terme trouvé.
+     */
+    private static final int SNIPPET_LENGTH = 160;
+
+    /**
+     * Champs stockés relus pour construire un résultat (le contenu est lu par le highlighter).
+     */
+    private static final Set<String> RESULT_FIELDS = Set.of(
+            NoteIndex.FIELD_ID, NoteIndex.FIELD_TITLE, NoteIndex.FIELD_UPDATED_AT);
+
+    /**
+     * Champs stockés relus pour vérifier un candidat des recherches par trigrammes.
+     */
+    private static final Set<String> CANDIDATE_FIELDS = Set.of(
+            NoteIndex.FIELD_ID, NoteIndex.FIELD_TITLE, NoteIndex.FIELD_CONTENT, NoteIndex.FIELD_UPDATED_AT);
+
+    /**
+     * Nombre de candidats examinés par résultat demandé (recherches par
+     * trigrammes), et plafond: borne le coût de la vérification.
+     */
+    private static final int CANDIDATES_PER_RESULT = 5;
+    private static final int MAX_CANDIDATES = 500;
+
+    /**
+     * Longueur maximale du texte d'une recherche approchée (la vérification
+     * est proportionnelle à cette longueur).
+     */
+    private static final int MAX_FUZZY_LENGTH = 64;
+
+    /**
+     * Nombre maximal de trigrammes d'une recherche (clauses de la requête Lucene).
+     */
+    private static final int MAX_TRIGRAMS = 128;
+
+    @Autowired
+    private NoteIndex noteIndex;
+
+    /**
+     * Recherche dans les notes d'un utilisateur.
+     *
+     * @param ownerId L'identifiant du propriétaire des notes
+     * @param text Le texte recherché
+     * @param mode Le mode de recherche
+     * @param limit Le nombre maximal de résultats
+     * @return Les notes trouvées, les plus pertinentes en premier
+     * @throws InvalidRequestException Si le texte d'une recherche approchée est trop long
+     */
+    public List<NoteSearchResultResponse> search(Long ownerId, String text, SearchMode mode, int limit) {
+        return switch (mode) {
+            case WORDS -> searchWords(ownerId, text, limit);
+            case SUBSTRING -> searchTrigrams(ownerId, text, 0, limit);
+            case FUZZY -> searchTrigrams(ownerId, text, maxEdits(text), limit);
+        };
+    }
+
+    /**
+     * Recherche par mots dans les notes d'un utilisateur.
+     *
+     * Tous les termes de la recherche doivent apparaître dans la note
+     * (titre ou contenu); les notes sont classées par pertinence BM25,
+     * un terme trouvé dans le titre comptant davantage.
+     *
+     * @param ownerId L'identifiant du propriétaire des notes
+     * @param text Le texte recherché
+     * @param limit Le nombre maximal de résultats
+     * @return Les notes trouvées, les plus pertinentes en premier
+     */
+    private List<NoteSearchResultResponse> searchWords(Long ownerId, String text, int limit) {
+        List<String> terms = analyze(NoteIndex.FIELD_CONTENT, text);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        BooleanQuery.Builder textQuery = new BooleanQuery.Builder();
+        for (String term : terms) {
+            textQuery.add(new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(NoteIndex.FIELD_TITLE, term)), TITLE_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(NoteIndex.FIELD_CONTENT, term)), BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.MUST);
+        }
+        Query query = new BooleanQuery.Builder()
+                .add(textQuery.build(), BooleanClause.Occur.MUST)
+                .add(LongPoint.newExactQuery(NoteIndex.FIELD_OWNER, ownerId), BooleanClause.Occur.FILTER)
+                .build();
+
+        try {
+            IndexSearcher searcher = noteIndex.getSearcherManager().acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, limit);
+                String[] snippets = highlighter(searcher).highlight(NoteIndex.FIELD_CONTENT, query, topDocs, 1);
+
+                StoredFields storedFields = searcher.storedFields();
+                List<NoteSearchResultResponse> results = new ArrayList<>(topDocs.scoreDocs.length);
+                for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc hit = topDocs.scoreDocs[i];
+                    Document document = storedFields.document(hit.doc, RESULT_FIELDS);
+                    results.add(new NoteSearchResultResponse(
+                        Long.valueOf(document.get(NoteIndex.FIELD_ID)),
+                        document.get(NoteIndex.FIELD_TITLE),
+                        snippets[i],
+                        document.get(NoteIndex.FIELD_UPDATED_AT),
+                        hit.score));
+                }
+                return results;
+            } finally {
+                noteIndex.getSearcherManager().release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Recherche par trigrammes: sous-chaîne (maxEdits = 0) ou approchée.
+     *
+     * Une sous-chaîne exige tous les trigrammes du texte recherché
+     * (classement BM25 sur les trigrammes). Une recherche approchée en exige
+     * au moins n - 3 x maxEdits parmi n (au moins un), chacun comptant pour
+     * un: le score, rapporté à n, est la similarité des trigrammes. Les
+     * candidats sont ensuite vérifiés sur le titre et le contenu stockés.
+     */
+    private List<NoteSearchResultResponse> searchTrigrams(Long ownerId, String text, int maxEdits, int limit) {
+        String pattern = NormalizedText.of(NoteIndex.normalizeSpaces(text)).normalized();
+        if (maxEdits > 0 && pattern.length() > MAX_FUZZY_LENGTH) {
+            throw new InvalidRequestException(
+                    "La recherche approchée est limitée à " + MAX_FUZZY_LENGTH + " caractères");
+        }
+        List<String> trigrams = new ArrayList<>(new LinkedHashSet<>(analyze(NoteIndex.FIELD_TRIGRAMS, text)));
+        if (trigrams.isEmpty()) {
+            return List.of();
+        }
+        if (trigrams.size() > MAX_TRIGRAMS) {
+            // Sous-chaîne longue: une partie des trigrammes suffit à filtrer, la vérification fait le reste
+            trigrams = trigrams.subList(0, MAX_TRIGRAMS);
+        }
+
+        BooleanQuery.Builder trigramQuery = new BooleanQuery.Builder();
+        for (String trigram : trigrams) {
+            Query termQuery = new TermQuery(new Term(NoteIndex.FIELD_TRIGRAMS, trigram));
+            if (maxEdits == 0) {
+                trigramQuery.add(termQuery, BooleanClause.Occur.MUST);
+            } else {
+                trigramQuery.add(new ConstantScoreQuery(termQuery), BooleanClause.Occur.SHOULD);
+            }
+        }
+        if (maxEdits > 0) {
+            trigramQuery.setMinimumNumberShouldMatch(Math.max(1, trigrams.size() - NoteAnalyzer.TRIGRAM * maxEdits));
+        }
+        Query query = new BooleanQuery.Builder()
+                .add(trigramQuery.build(), BooleanClause.Occur.MUST)
+                .add(LongPoint.newExactQuery(NoteIndex.FIELD_OWNER, ownerId), BooleanClause.Occur.FILTER)
+                .build();
+
+        try {
+            IndexSearcher searcher = noteIndex.getSearcherManager().acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, Math.min(limit * CANDIDATES_PER_RESULT, MAX_CANDIDATES));
+                StoredFields storedFields = searcher.storedFields();
+                List<NoteSearchResultResponse> results = new ArrayList<>(limit);
+                for (ScoreDoc hit : topDocs.scoreDocs) {
+                    Document document = storedFields.document(hit.doc, CANDIDATE_FIELDS);
+                    String content = document.get(NoteIndex.FIELD_CONTENT);
+                    NormalizedText.Match match = NormalizedText.of(content).find(pattern, maxEdits);
+                    if (match == null && NormalizedText.of(document.get(NoteIndex.FIELD_TITLE)).find(pattern, maxEdits) == null) {
+                        continue;
+                    }
+                    results.add(new NoteSearchResultResponse(
+                        Long.valueOf(document.get(NoteIndex.FIELD_ID)),
+                        document.get(NoteIndex.FIELD_TITLE),
+                        snippet(content, match),
+                        document.get(NoteIndex.FIELD_UPDATED_AT),
+                        maxEdits == 0 ? hit.score : hit.score / trigrams.size()));
+                    if (results.size() == limit) {
+                        break;
+                    }
+                }
+                return results;
+            } finally {
+                noteIndex.getSearcherManager().release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Nombre de modifications admises par une recherche approchée, selon la
+     * longueur du texte recherché: aucune sous 4 caractères, une jusqu'à 7,
+     * deux au-delà.
+     */
+    private static int maxEdits(String text) {
+        int length = NoteIndex.normalizeSpaces(text).length();
+        return length < 4 ? 0 : length < 8 ? 1 : 2;
+    }
+
+    /**
+     * Extrait du contenu autour de l'occurrence trouvée (échappé, occurrence
+     * entourée de <mark>), ou début du contenu si l'occurrence est dans le titre.
+     */
+    private static String snippet(String content, NormalizedText.Match match) {
+        int start = match != null ? match.start() : 0;
+        int end = match != null ? match.end() : 0;
+        int from = Math.max(0, start - Math.max(0, SNIPPET_LENGTH - (end - start)) / 2);
+        int to = Math.min(content.length(), Math.max(end, from + SNIPPET_LENGTH));
+        // Coupe aux espaces plutôt qu'au milieu d'un mot
+        int space = content.indexOf(' ', from);
+        if (from > 0 && space >= 0 && space < start) {
+            from = space + 1;
+        }
+        space = content.lastIndexOf(' ', to);
+        if (to < content.length() && space > end) {
+            to = space;
+        }
+
+        StringBuilder snippet = new StringBuilder();
+        if (from > 0) {
+            snippet.append("… ");
+        }
+        snippet.append(HtmlUtils.htmlEscape(content.substring(from, start), "UTF-8"));
+        if (match != null) {
+            snippet.append("<mark>").append(HtmlUtils.htmlEscape(content.substring(start, end), "UTF-8")).append("</mark>");
+        }
+        snippet.append(HtmlUtils.htmlEscape(content.substring(end, to), "UTF-8"));
+        if (to < content.length()) {
+            snippet.append(" …");
+        }
+        return snippet.toString();
+    }
+
+    /**
+     * Crée le highlighter d'une recherche (lié au lecteur courant).
+     *
+     * Le texte est échappé: seuls les termes trouvés sont entourés de <mark>.
+     * Sans terme trouvé dans le contenu, l'extrait est le début de la note.
+     */
+    private UnifiedHighlighter highlighter(IndexSearcher searcher) {
+        return UnifiedHighlighter.builder(searcher, noteIndex.getAnalyzer())
+                .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "… ", true))
+                .withBreakIterator(() -> LengthGoalBreakIterator.createClosestToLength(
+                        BreakIterator.getSentenceInstance(Locale.ROOT), SNIPPET_LENGTH, 0.5f))
+                .build();
+    }
+
+    /**
+     * Découpe le texte recherché en termes, avec l'analyseur du champ.
+     */
+    private List<String> analyze(String field, String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = noteIndex.getAnalyzer().tokenStream(field, NoteIndex.normalizeSpaces(text))) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+}
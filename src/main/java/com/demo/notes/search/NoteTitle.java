@@ -0,0 +1,13 @@
+package com.demo.notes.search;
+
+/**
+ * Titre d'une note, lu par projection JPQL pour construire les suggestions
+ * d'un utilisateur (TitleSuggestionService).
+ *
+ * @param id L'identifiant de la note
+ * @param title Le titre
+ *
+ * @author Demo
+ */
+public record NoteTitle(Long id, String title) {
+}
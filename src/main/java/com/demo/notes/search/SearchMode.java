@@ -0,0 +1,45 @@
+package com.demo.notes.search;
+
+import com.demo.notes.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+/**
+ * Mode de recherche dans les notes.
+ *
+ * @author Demo
+ */
+public enum SearchMode {
+
+    /**
+     * Mots entiers, classés par pertinence BM25 (mode par défaut).
+     */
+    WORDS,
+
+    /**
+     * Sous-chaîne exacte (parties de mots, extraits de code...), à casse
+     * et accents près.
+     */
+    SUBSTRING,
+
+    /**
+     * Sous-chaîne à quelques fautes de frappe près, classée par similarité
+     * des trigrammes.
+     */
+    FUZZY;
+
+    /**
+     * Lit un mode depuis un paramètre de requête (casse indifférente).
+     *
+     * @param value La valeur du paramètre
+     * @return Le mode
+     * @throws InvalidRequestException Si le mode est inconnu
+     */
+    public static SearchMode parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Mode de recherche inconnu: " + value);
+        }
+    }
+}
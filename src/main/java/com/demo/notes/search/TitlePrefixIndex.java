@@ -0,0 +1,226 @@
+package com.demo.notes.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Index des titres des notes d'un utilisateur, pour la recherche par préfixe.
+ *
+ * Structure immuable et compacte: un tableau trié des clés (titre normalisé,
+ * à partir du début de chacun de ses mots), et pour chaque clé l'indice de
+ * la note dans les tableaux des identifiants et des titres. Une recherche
+ * est une recherche dichotomique suivie d'un parcours des clés qui
+ * commencent par le préfixe: aucune allocation hors du résultat.
+ *
+ * La normalisation (minuscules, accents retirés) est celle de la recherche
+ * plein texte: "ecole" trouve "École".
+ *
+ * Une modification produit un nouvel index (copie), publié à la place de
+ * l'ancien: les lectures concurrentes n'ont besoin d'aucun verrou.
+ * Les changements d'une transaction sont appliqués en une seule copie.
+ *
+ * @author Demo
+ */
+final class TitlePrefixIndex {
+
+    /**
+     * Longueur maximale d'une clé: au-delà, le préfixe recherché est tronqué
+     * (les suggestions portent sur ses premiers caractères).
+     */
+    static final int MAX_KEY_LENGTH = 32;
+
+    /**
+     * Taille estimée d'une chaîne hors caractères (en-tête de l'objet et du tableau).
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final long[] ids;
+    private final String[] titles;
+    private final String[] keys;
+    private final int[] notes;
+    private final int weight;
+
+    private TitlePrefixIndex(long[] ids, String[] titles) {
+        this.ids = ids;
+        this.titles = titles;
+
+        List<Key> entries = new ArrayList<>(titles.length * 2);
+        for (int note = 0; note < titles.length; note++) {
+            String normalized = normalize(titles[note]);
+            for (int start = 0; start < normalized.length(); start++) {
+                if (isWordStart(normalized, start)) {
+                    int end = Math.min(normalized.length(), start + MAX_KEY_LENGTH);
+                    entries.add(new Key(normalized.substring(start, end), note));
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(Key::text));
+
+        keys = new String[entries.size()];
+        notes = new int[entries.size()];
+        long bytes = 4L * ids.length * 3;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).text();
+            notes[i] = entries.get(i).note();
+            bytes += STRING_OVERHEAD + 8 + keys[i].length();
+        }
+        for (String title : titles) {
+            bytes += STRING_OVERHEAD + title.length() * 2L;
+        }
+        weight = (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private record Key(String text, int note) {
+    }
+
+    /**
+     * Construit l'index des titres d'un utilisateur.
+     *
+     * @param titles Les titres de ses notes
+     * @return L'index
+     */
+    static TitlePrefixIndex of(Collection<NoteTitle> titles) {
+        long[] ids = new long[titles.size()];
+        String[] texts = new String[titles.size()];
+        int i = 0;
+        for (NoteTitle title : titles) {
+            ids[i] = title.id();
+            texts[i] = title.title();
+            i++;
+        }
+        return new TitlePrefixIndex(ids, texts);
+    }
+
+    /**
+     * Copie de l'index où des notes sont ajoutées, renommées ou retirées.
+     *
+     * Les clés ne sont triées qu'une fois, quel que soit le nombre de
+     * changements: ceux d'une même transaction (lot, import) sont appliqués
+     * ensemble.
+     *
+     * @param changes Le nouveau titre de chaque note changée (null: note supprimée)
+     * @return Le nouvel index (ou celui-ci si aucun changement ne le modifie)
+     */
+    TitlePrefixIndex with(Map<Long, String> changes) {
+        long[] newIds = new long[ids.length + changes.size()];
+        String[] newTitles = new String[newIds.length];
+        Map<Long, String> added = new HashMap<>(changes);
+        boolean modified = false;
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            String title = titles[i];
+            if (added.containsKey(ids[i])) {
+                String changed = added.remove(ids[i]);
+                modified |= !title.equals(changed);
+                title = changed;
+            }
+            if (title != null) {
+                newIds[count] = ids[i];
+                newTitles[count] = title;
+                count++;
+            }
+        }
+        for (Map.Entry<Long, String> note : added.entrySet()) {
+            if (note.getValue() != null) {
+                newIds[count] = note.getKey();
+                newTitles[count] = note.getValue();
+                count++;
+                modified = true;
+            }
+        }
+        if (!modified) {
+            return this;
+        }
+        return new TitlePrefixIndex(Arrays.copyOf(newIds, count), Arrays.copyOf(newTitles, count));
+    }
+
+    /**
+     * Recherche les notes dont un mot du titre commence par le préfixe.
+     *
+     * Les notes sont dans l'ordre alphabétique du texte trouvé (à partir
+     * du mot qui commence par le préfixe), chacune une seule fois.
+     *
+     * @param prefix Le préfixe (casse et accents indifférents)
+     * @param limit Le nombre maximal de notes
+     * @return Les notes trouvées
+     */
+    List<NoteTitle> lookup(String prefix, int limit) {
+        String normalized = normalize(prefix.stripLeading());
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        if (normalized.length() > MAX_KEY_LENGTH) {
+            normalized = normalized.substring(0, MAX_KEY_LENGTH);
+        }
+
+        List<NoteTitle> results = new ArrayList<>(Math.min(limit, ids.length));
+        int[] found = new int[Math.min(limit, ids.length)];
+        for (int i = lowerBound(normalized); i < keys.length && results.size() < limit; i++) {
+            if (!keys[i].startsWith(normalized)) {
+                break;
+            }
+            int note = notes[i];
+            if (!contains(found, results.size(), note)) {
+                found[results.size()] = note;
+                results.add(new NoteTitle(ids[note], titles[note]));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Taille mémoire estimée de l'index, en octets.
+     */
+    int weight() {
+        return weight;
+    }
+
+    /**
+     * Met un texte sous la forme des clés: minuscules, sans accents.
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isWordStart(String text, int index) {
+        return Character.isLetterOrDigit(text.charAt(index))
+                && (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1)));
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Première clé supérieure ou égale au préfixe.
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
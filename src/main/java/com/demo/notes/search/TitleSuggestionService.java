@@ -0,0 +1,169 @@
+package com.demo.notes.search;
+
+import com.demo.notes.dto.NoteSuggestionResponse;
+import com.demo.notes.event.NoteChangedEvent;
+import com.demo.notes.event.UserSecurityChangedEvent;
+import com.demo.notes.repository.NoteRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suggestions de titres de notes pendant la saisie (recherche par préfixe).
+ *
+ * Les titres d'un utilisateur sont chargés en mémoire à sa première
+ * demande, en une requête (TitlePrefixIndex), puis les suggestions sont
+ * servies sans accès à la base. Les index sont conservés dans un cache
+ * borné en mémoire (search.suggest.max-memory, taille estimée de chaque
+ * index): au-delà, les index les moins utilisés sont retirés, de même que
+ * ceux d'un utilisateur inactif (search.suggest.idle-timeout).
+ *
+ * Un index chargé est tenu à jour, après le commit, par les événements de
+ * modification des notes (regroupés par transaction).
+ *
+ * @author Demo
+ */
+@Service
+public class TitleSuggestionService {
+
+    private static final String CACHE_NAME = "search.title-suggestions";
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Mémoire totale des index chargés (taille estimée).
+     */
+    @Value("${search.suggest.max-memory:64MB}")
+    private DataSize maxMemory;
+
+    /**
+     * Durée sans suggestion après laquelle l'index d'un utilisateur est retiré.
+     */
+    @Value("${search.suggest.idle-timeout:PT30M}")
+    private Duration idleTimeout;
+
+    /**
+     * Index des titres, par identifiant du propriétaire.
+     */
+    private LoadingCache<Long, TitlePrefixIndex> cache;
+
+    /**
+     * Construit le cache et enregistre ses métriques.
+     */
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((Long ownerId, TitlePrefixIndex index) -> index.weight())
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build(ownerId -> TitlePrefixIndex.of(noteRepository.findTitlesByUserId(ownerId)));
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Suggère les notes d'un utilisateur dont un mot du titre commence par un préfixe.
+     *
+     * @param ownerId L'identifiant du propriétaire des notes
+     * @param prefix Le préfixe saisi (casse et accents indifférents)
+     * @param limit Le nombre maximal de suggestions
+     * @return Les notes trouvées, par ordre alphabétique du texte trouvé
+     */
+    public List<NoteSuggestionResponse> suggest(Long ownerId, String prefix, int limit) {
+        if (prefix.isBlank()) {
+            return List.of();
+        }
+        return cache.get(ownerId).lookup(prefix, limit).stream()
+                .map(note -> new NoteSuggestionResponse(note.id(), note.title()))
+                .toList();
+    }
+
+    /**
+     * Reporte une création, modification ou suppression de note dans l'index
+     * de son propriétaire, s'il est chargé.
+     *
+     * Dans une transaction, les changements sont regroupés et appliqués
+     * ensemble après le commit (une seule copie de l'index par propriétaire,
+     * même pour un lot ou un import de milliers de notes); ils sont ignorés
+     * en cas d'annulation. Hors transaction, ils sont appliqués aussitôt.
+     *
+     * Si l'index est en cours de chargement, la mise à jour s'applique à la
+     * fin de celui-ci (elle est sans effet si la note y figure déjà).
+     *
+     * @param event L'événement de changement
+     */
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        String title = event.getChange() == NoteChangedEvent.Change.DELETED ? null : event.getTitle();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(event.getOwnerId(), Collections.singletonMap(event.getNoteId(), title));
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.computeIfAbsent(event.getOwnerId(), ownerId -> new LinkedHashMap<>())
+                .put(event.getNoteId(), title);
+    }
+
+    /**
+     * Retire l'index d'un utilisateur supprimé.
+     *
+     * @param event L'événement de changement
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        if (event.getChange() == UserSecurityChangedEvent.Change.DELETED) {
+            cache.invalidate(event.getUserId());
+        }
+    }
+
+    private void apply(Long ownerId, Map<Long, String> changes) {
+        cache.asMap().computeIfPresent(ownerId, (id, index) -> index.with(changes));
+    }
+
+    /**
+     * Changements d'une transaction, par propriétaire, appliqués après son commit.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        /**
+         * Nouveau titre de chaque note changée (null: note supprimée), par propriétaire.
+         */
+        private final Map<Long, Map<Long, String>> changes = new HashMap<>();
+
+        @Override
+        public void afterCommit() {
+            changes.forEach(TitleSuggestionService.this::apply);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(TitleSuggestionService.this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.demo.notes.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom minimal, thread-safe, pour des chaînes de caractères.
+ *
+ * Répond en temps constant à la question "cette valeur a-t-elle été ajoutée ?":
+ * - false: la valeur n'a certainement jamais été ajoutée
+ * - true: la valeur a probablement été ajoutée (faux positifs possibles,
+ *   au taux choisi à la création)
+ *
+ * Les valeurs ne peuvent pas être retirées: le filtre est reconstruit
+ * lorsque l'ensemble sous-jacent a été purgé.
+ *
+ * @author Demo
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    /**
+     * Crée un filtre dimensionné pour un nombre d'éléments et un taux de faux positifs.
+     *
+     * @param expectedInsertions Nombre d'éléments attendus
+     * @param falsePositiveRate Taux de faux positifs toléré (ex: 0.01)
+     * @return Le filtre vide
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new BloomFilter(Math.max(64, m), k);
+    }
+
+    /**
+     * Ajoute une valeur au filtre.
+     *
+     * @param value La valeur à ajouter
+     */
+    public void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            setBit(index);
+        }
+    }
+
+    /**
+     * Indique si une valeur a probablement été ajoutée.
+     *
+     * @param value La valeur à tester
+     * @return false si la valeur est certainement absente
+     */
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * Hachage 64 bits (FNV-1a suivi du mélange final de SplitMix64).
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
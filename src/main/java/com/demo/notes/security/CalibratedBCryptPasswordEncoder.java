@@ -0,0 +1,97 @@
+package com.demo.notes.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Encodeur BCrypt dont le facteur de coût est calibré sur la machine.
+ *
+ * Au démarrage, le temps de hachage est mesuré pour des coûts croissants:
+ * le coût retenu est le plus élevé dont la durée reste sous la cible
+ * (ex: 50 ms), sans descendre sous un plancher de sécurité. Le débit
+ * de connexion par cœur est ainsi prévisible quel que soit le matériel.
+ *
+ * Tout hash dont le coût diffère du coût calibré (plus faible ou plus
+ * élevé) est signalé comme "à ré-encoder": Spring Security le remplace
+ * alors lors de la prochaine connexion réussie.
+ *
+ * @author Demo
+ */
+@Slf4j
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    /**
+     * Nombre de mesures par coût (la meilleure est retenue, pour limiter le bruit).
+     */
+    private static final int SAMPLES = 3;
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Mesure la machine et crée un encodeur au coût adapté.
+     *
+     * @param target Durée de hachage visée
+     * @param minStrength Coût plancher (jamais en dessous, même sur une machine lente)
+     * @param maxStrength Coût plafond
+     * @return L'encodeur calibré
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(Duration target, int minStrength, int maxStrength) {
+        int chosen = minStrength;
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            Duration elapsed = measure(candidate);
+            log.debug("BCrypt cost {}: {} ms", candidate, elapsed.toMillis());
+            if (elapsed.compareTo(target) > 0) {
+                break;
+            }
+            chosen = candidate;
+        }
+        log.info("BCrypt cost calibrated to {} (target {} ms, floor {})",
+                chosen, target.toMillis(), minStrength);
+        return new CalibratedBCryptPasswordEncoder(chosen);
+    }
+
+    /**
+     * Mesure la durée d'un hachage pour un coût donné.
+     */
+    private static Duration measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Duration.ofNanos(best);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Indique si un hash doit être ré-encodé: c'est le cas dès que son coût
+     * diffère du coût calibré, à la hausse comme à la baisse.
+     *
+     * @param encodedPassword Le hash BCrypt ($2a$10$...)
+     * @return true si le hash doit être remplacé
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            int cost = Integer.parseInt(encodedPassword.substring(4, 6));
+            return cost != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package com.demo.notes.security;
 
-import com.demo.notes.dto.ErrorResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.demo.notes.exception.ErrorBody;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.http.MediaType;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
@@ -19,8 +18,12 @@ import java.io.IOException;
  * tente d'accéder à une ressource protégée. Elle renvoie une réponse
  * JSON avec un code 401 (Unauthorized).
  * 
+ * Les corps de réponse sont pré-sérialisés (ErrorBody): un 401 ne coûte
+ * ni ObjectMapper ni sérialisation, même sous un trafic de scan.
+ * 
  * @author Demo
  */
+@Slf4j
 @Component
 public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
@@ -43,49 +46,24 @@ public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
             AuthenticationException authException)
             throws IOException, ServletException {
 
-        // Définition du code de statut HTTP 401
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-
-        // Définition du type de contenu JSON
-        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-
         // Déterminer le message d'erreur en fonction de la requête
-        String errorMessage;
         String requestURI = request.getRequestURI();
         String referer = request.getHeader("Referer");
 
-        // Debug logging
-        System.out.println("=== JwtAuthenticationEntryPoint DEBUG ===");
-        System.out.println("Request URI: " + requestURI);
-        System.out.println("Referer: " + referer);
-        System.out.println("Exception: " + authException.getMessage());
-        System.out.println("Exception class: " + authException.getClass().getName());
-
         // Check if this is a login request or error redirect from login
         boolean isLoginRequest = (requestURI != null && requestURI.contains("/login")) ||
                 (referer != null && referer.contains("/login"));
-        System.out.println("Is login request: " + isLoginRequest);
-
-        if (isLoginRequest) {
-            // Message spécifique pour les échecs de connexion
-            errorMessage = "Nom d'utilisateur ou mot de passe incorrect";
-            System.out.println("Using login-specific error message");
-        } else {
-            // Message générique pour les autres cas (accès non autorisé)
-            errorMessage = "Authentification requise pour accéder à cette ressource";
-            System.out.println("Using generic error message");
-        }
 
-        System.out.println("Final error message: " + errorMessage);
-        System.out.println("========================================");
+        log.debug("Accès non authentifié: uri={}, login={}, exception={}",
+                requestURI, isLoginRequest, authException.getClass().getSimpleName());
 
-        // Création de la réponse d'erreur
-        ErrorResponse errorResponse = new ErrorResponse(
-                "Unauthorized",
-                errorMessage);
+        // Message spécifique pour les échecs de connexion,
+        // générique pour les autres cas (accès non autorisé)
+        ErrorBody body = isLoginRequest
+                ? ErrorBody.BAD_CREDENTIALS
+                : ErrorBody.AUTHENTICATION_REQUIRED;
 
-        // Conversion de l'objet en JSON et écriture dans la réponse
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.writeValue(response.getOutputStream(), errorResponse);
+        // Écriture du corps pré-sérialisé avec le code HTTP 401
+        body.writeTo(response, HttpServletResponse.SC_UNAUTHORIZED);
     }
 }
@@ -1,14 +1,19 @@
 package com.demo.notes.security;
 
 import com.demo.notes.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -21,14 +26,17 @@ import java.io.IOException;
  * 
  * Ce filtre intercepte chaque requête HTTP pour:
  * 1. Extraire le token JWT de l'en-tête Authorization
- * 2. Valider le token
- * 3. Charger les détails de l'utilisateur
+ * 2. Valider le token (signature et expiration, une seule fois par requête)
+ *    et vérifier qu'il n'a pas été révoqué (déconnexion)
+ * 3. Obtenir les détails de l'utilisateur (depuis le token en mode sans état,
+ *    depuis la base sinon)
  * 4. Créer un contexte d'authentification Spring Security
  * 
  * Le filtre est exécuté une seule fois par requête (OncePerRequestFilter).
  * 
  * @author Demo
  */
+@Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
@@ -38,6 +46,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
     
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    /**
+     * Authentification sans état: l'utilisateur est reconstruit depuis
+     * les claims du token au lieu d'être rechargé depuis la base.
+     */
+    @Value("${jwt.stateless:true}")
+    private boolean statelessAuthentication;
+    
     /**
      * Méthode principale du filtre, exécutée pour chaque requête.
      * 
@@ -57,16 +78,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extraction du token JWT de la requête
             String jwt = parseJwt(request);
             
-            // Si un token est présent et valide
-            if (jwt != null && jwtUtils.getUsernameFromToken(jwt) != null) {
-                // Extraction du nom d'utilisateur depuis le token
-                String username = jwtUtils.getUsernameFromToken(jwt);
+            // Si un token est présent
+            if (jwt != null) {
+                // Vérification du token (une seule fois par requête, puis servie par le cache)
+                Claims claims = jwtUtils.getAllClaimsFromToken(jwt);
                 
-                // Chargement des détails complets de l'utilisateur
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Résolution de l'utilisateur (depuis le token ou depuis la base)
+                UserDetails userDetails = resolveUser(claims);
                 
-                // Validation du token avec les détails de l'utilisateur
-                if (jwtUtils.validateToken(jwt, userDetails)) {
+                if (userDetails != null) {
                     // Création d'un objet d'authentification Spring Security
                     UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(
@@ -85,16 +105,55 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
-        } catch (Exception e) {
-            // En cas d'erreur, on log mais on ne bloque pas la requête
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            // Token mal formé, expiré ou d'un utilisateur supprimé: cas attendu
+            // (clients au token expiré, scanners), sans pile d'appels
             // Les endpoints protégés refuseront l'accès
-            logger.error("Cannot set user authentication: {}", e);
+            log.debug("Token JWT refusé: {}", e.getMessage());
+        } catch (Exception e) {
+            // Erreur inattendue: journalisée, sans bloquer la requête
+            log.error("Impossible d'authentifier la requête", e);
         }
         
         // Continue la chaîne de filtres
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * Détermine l'utilisateur authentifié à partir des claims du token.
+     * 
+     * - Token révoqué (déconnexion): refusé
+     * - Token portant id, rôles et version: la version est vérifiée en mémoire
+     *   (utilisateur supprimé ou droits modifiés = token refusé), puis
+     *   l'utilisateur est reconstruit depuis les claims, sans accès à la base
+     * - Mode sans état désactivé, ou token d'une version antérieure:
+     *   l'utilisateur est chargé depuis la base
+     * 
+     * @param claims Les claims vérifiés du token
+     * @return L'utilisateur authentifié, ou null si le token n'est plus valable
+     */
+    private UserDetails resolveUser(Claims claims) {
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            return null;
+        }
+        
+        UserPrincipal principal = jwtUtils.getPrincipalFromClaims(claims);
+        if (principal != null) {
+            if (!tokenVersionRegistry.isCurrent(principal.getId(), principal.getTokenVersion())) {
+                return null;
+            }
+            if (statelessAuthentication) {
+                return principal;
+            }
+        }
+        
+        String username = claims.getSubject();
+        if (username == null) {
+            return null;
+        }
+        return userDetailsService.loadUserByUsername(username);
+    }
+    
     /**
      * Extrait le token JWT de l'en-tête Authorization.
      * 
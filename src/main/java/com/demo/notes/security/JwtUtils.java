@@ -1,9 +1,14 @@
 package com.demo.notes.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -11,8 +16,11 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Utilitaire pour la génération et la validation des tokens JWT.
@@ -22,13 +30,33 @@ import java.util.function.Function;
  * - L'extraction des informations (claims) depuis un token
  * - La validation de l'authenticité et de la validité des tokens
  * 
- * Les tokens incluent le nom d'utilisateur et une date d'expiration.
+ * Les tokens incluent le nom d'utilisateur, une date d'expiration et, pour
+ * l'authentification sans état, l'identifiant, les rôles et la version des
+ * droits de l'utilisateur.
+ * 
+ * La clé de signature et le parser sont construits une seule fois au
+ * démarrage; les tokens déjà vérifiés sont servis par le VerifiedTokenCache.
  * 
  * @author Demo
  */
 @Component
 public class JwtUtils {
     
+    /**
+     * Claim portant l'identifiant de l'utilisateur.
+     */
+    public static final String CLAIM_USER_ID = "uid";
+    
+    /**
+     * Claim portant la liste des rôles de l'utilisateur.
+     */
+    public static final String CLAIM_ROLES = "roles";
+    
+    /**
+     * Claim portant la version des droits de l'utilisateur (tokenVersion).
+     */
+    public static final String CLAIM_VERSION = "ver";
+    
     /**
      * Clé secrète pour signer les tokens JWT.
      * Récupérée depuis application.properties.
@@ -37,19 +65,34 @@ public class JwtUtils {
     private String secret;
     
     /**
-     * Durée de validité d'un token en millisecondes.
-     * Récupérée depuis application.properties (par défaut 24h).
+     * Durée de validité d'un token d'accès en millisecondes.
+     * Récupérée depuis application.properties (15 min: le token est renouvelé via un refresh token).
      */
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    
     /**
-     * Obtient la clé secrète sous forme de SecretKey pour JJWT.
-     * 
-     * @return La clé secrète encodée
+     * Clé de signature, dérivée une seule fois du secret.
+     */
+    private SecretKey signingKey;
+    
+    /**
+     * Parser réutilisable (thread-safe) configuré avec la clé de signature.
+     */
+    private JwtParser parser;
+    
+    /**
+     * Construit la clé de signature et le parser au démarrage.
      */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
     
     /**
@@ -88,44 +131,87 @@ public class JwtUtils {
     /**
      * Extrait tous les claims depuis un token JWT.
      * 
+     * Le token n'est vérifié (signature HMAC + expiration) qu'à sa première
+     * présentation; les appels suivants sont servis par le cache.
+     * 
      * @param token Le token JWT
      * @return Tous les claims du token
+     * @throws io.jsonwebtoken.JwtException Si le token est invalide ou expiré
+     */
+    public Claims getAllClaimsFromToken(String token) {
+        return verifiedTokenCache.get(token, this::verify);
+    }
+    
+    /**
+     * Vérifie la signature et l'expiration d'un token.
+     * 
+     * @param token Le token JWT
+     * @return Les claims du token
      */
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private Claims verify(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     /**
-     * Vérifie si un token est expiré.
+     * Vérifie si des claims sont expirés.
      * 
-     * @param token Le token JWT à vérifier
+     * @param claims Les claims du token
      * @return true si le token est expiré, false sinon
      */
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
+    private Boolean isTokenExpired(Claims claims) {
+        final Date expiration = claims.getExpiration();
         return expiration.before(new Date());
     }
     
     /**
      * Génère un token JWT pour un utilisateur.
      * 
+     * Si l'utilisateur est un UserPrincipal, le token embarque son identifiant,
+     * ses rôles et la version de ses droits: il suffit alors à reconstruire
+     * l'authentification sans interroger la base de données.
+     * 
      * @param userDetails Les détails de l'utilisateur
      * @return Le token JWT généré
      */
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof UserPrincipal principal) {
+            claims.put(CLAIM_USER_ID, principal.getId());
+            claims.put(CLAIM_VERSION, principal.getTokenVersion());
+            claims.put(CLAIM_ROLES, principal.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.toList()));
+        }
         return doGenerateToken(claims, userDetails.getUsername());
     }
     
+    /**
+     * Reconstruit l'utilisateur authentifié depuis les claims d'un token.
+     * 
+     * @param claims Les claims vérifiés du token
+     * @return Le principal, ou null si le token ne porte pas les claims
+     *         nécessaires (token émis par une version antérieure)
+     */
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number version = claims.get(CLAIM_VERSION, Number.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (userId == null || version == null || roles == null) {
+            return null;
+        }
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(role.toString()))
+                .collect(Collectors.toList());
+        return new UserPrincipal(userId.longValue(), claims.getSubject(), null,
+                version.intValue(), authorities);
+    }
+    
     /**
      * Crée un token JWT avec les claims spécifiés.
      * 
      * Le token contient:
      * - Les claims personnalisés (si fournis)
+     * - Un identifiant unique (jti), utilisé pour la révocation
      * - Le subject (nom d'utilisateur)
      * - La date d'émission
      * - La date d'expiration
@@ -137,10 +223,11 @@ public class JwtUtils {
     private String doGenerateToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
@@ -156,7 +243,7 @@ public class JwtUtils {
      * @return true si le token est valide, false sinon
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = getAllClaimsFromToken(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 }
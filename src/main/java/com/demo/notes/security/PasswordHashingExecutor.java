@@ -0,0 +1,102 @@
+package com.demo.notes.security;
+
+import com.demo.notes.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pool de threads dédié au hachage des mots de passe (BCrypt).
+ *
+ * Le hachage est volontairement coûteux en CPU: exécuté sur les threads
+ * de Tomcat, une rafale de connexions priverait toutes les autres requêtes
+ * de threads de traitement. Ce pool:
+ * - Est dimensionné sur le nombre de cœurs (security.hashing.threads)
+ * - Dispose d'une file d'attente bornée (security.hashing.queue-capacity)
+ * - Refuse immédiatement les tâches lorsque la file est pleine
+ *   (ServiceOverloadedException, traduite en 503 + Retry-After)
+ *
+ * Métriques publiées sous le nom "password.hashing": profondeur de la file
+ * (executor.queued), durée d'exécution (executor) et d'attente (executor.idle).
+ *
+ * @author Demo
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final String EXECUTOR_NAME = "password.hashing";
+
+    private final ThreadPoolExecutor pool;
+
+    private final ExecutorService executor;
+
+    /**
+     * Refus renvoyé lorsque la file est pleine (sans pile d'appels, partagé).
+     */
+    private final ServiceOverloadedException overloaded;
+
+    private final PasswordEncoder passwordEncoder;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   @Value("${security.hashing.threads:0}") int threads,
+                                   @Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.hashing.retry-after:1}") long retryAfterSeconds,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.overloaded = new ServiceOverloadedException(
+                "Trop de demandes d'authentification en cours, veuillez réessayer",
+                retryAfterSeconds);
+        this.pool = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                (task, rejectedBy) -> {
+                    throw overloaded;
+                });
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, EXECUTOR_NAME);
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Encode un mot de passe sur le pool dédié.
+     *
+     * @param rawPassword Le mot de passe en clair
+     * @return Le hash du mot de passe, disponible de façon asynchrone
+     * @throws ServiceOverloadedException Si la file d'attente est pleine
+     */
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Soumet une tâche de hachage (login, encodage d'un mot de passe...).
+     *
+     * @param task La tâche à exécuter sur le pool dédié
+     * @param <T> Type du résultat
+     * @return Le résultat, disponible de façon asynchrone
+     * @throws ServiceOverloadedException Si la file d'attente est pleine
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Arrête le pool à l'arrêt de l'application.
+     */
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -1,7 +1,9 @@
 package com.demo.notes.security;
 
 import com.demo.notes.service.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,7 +13,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -19,7 +21,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * Configuration de Spring Security.
@@ -54,24 +58,53 @@ public class SecurityConfig {
         return new JwtAuthenticationFilter();
     }
     
+    /**
+     * Durée de hachage visée lors de la calibration de BCrypt.
+     */
+    @Value("${security.password.target-hash-time:50ms}")
+    private Duration targetHashTime;
+    
+    /**
+     * Coût BCrypt minimal, quelle que soit la vitesse de la machine.
+     */
+    @Value("${security.password.min-strength:10}")
+    private int minStrength;
+    
+    /**
+     * Coût BCrypt maximal.
+     */
+    @Value("${security.password.max-strength:16}")
+    private int maxStrength;
+    
     /**
      * Configure l'encodeur de mots de passe BCrypt.
      * 
      * BCrypt est un algorithme de hachage sécurisé qui inclut
      * automatiquement un salt et est résistant aux attaques par force brute.
      * 
+     * Le coût est calibré au démarrage pour atteindre la durée visée
+     * (security.password.target-hash-time). Les hashs sont préfixés par
+     * leur algorithme ({bcrypt}); les anciens hashs sans préfixe restent
+     * reconnus et sont ré-encodés à la prochaine connexion réussie.
+     * 
      * @return L'encodeur de mots de passe
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        PasswordEncoder bcrypt = CalibratedBCryptPasswordEncoder.calibrate(
+            targetHashTime, minStrength, maxStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(
+            "bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
     
     /**
      * Configure le provider d'authentification.
      * 
      * Utilise notre UserDetailsService personnalisé et l'encodeur BCrypt
-     * pour vérifier les identifiants lors de la connexion.
+     * pour vérifier les identifiants lors de la connexion. Le même service
+     * enregistre les hashs ré-encodés au coût calibré.
      * 
      * @return Le provider d'authentification configuré
      */
@@ -80,6 +113,7 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
     
@@ -133,10 +167,18 @@ public class SecurityConfig {
             
             // Configuration des autorisations
             .authorizeHttpRequests(auth -> auth
+                // Reprise d'une requête asynchrone (login, création d'utilisateur):
+                // la requête d'origine a déjà été autorisée
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                
                 // Endpoints publics accessibles sans authentification
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/", "/index.html", "/assets/**", "/favicon.ico", "/sw.js", "/manifest.json", "/error").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                
+                // Métriques réservées aux administrateurs
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 
                 // Tous les autres endpoints nécessitent une authentification
                 .anyRequest().authenticated()
@@ -0,0 +1,151 @@
+package com.demo.notes.security;
+
+import com.demo.notes.model.RevokedToken;
+import com.demo.notes.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Liste de révocation des tokens JWT (déconnexion).
+ *
+ * Les tokens révoqués sont identifiés par leur claim "jti" et persistés en
+ * base (table revoked_tokens) pour survivre à un redémarrage. Chaque entrée
+ * est conservée jusqu'à l'expiration du token, puis purgée périodiquement.
+ *
+ * Pour que la vérification faite à chaque requête reste en O(1) et sans
+ * accès à la base, un filtre de Bloom en mémoire précède la table:
+ * - Réponse négative du filtre (cas courant): le token n'est pas révoqué
+ * - Réponse positive: confirmée par une lecture en base (faux positifs possibles)
+ *
+ * Le filtre est construit depuis la base à l'initialisation du service,
+ * avant que le serveur n'accepte des requêtes (un token révoqué avant un
+ * redémarrage reste refusé), puis reconstruit après chaque purge.
+ *
+ * @author Demo
+ */
+@Slf4j
+@Component
+public class TokenRevocationService {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Nombre de révocations actives pour lequel le filtre est dimensionné.
+     */
+    @Value("${jwt.revocation.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    /**
+     * Taux de faux positifs visé pour le filtre.
+     */
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    /**
+     * Filtre courant, remplacé en bloc à chaque reconstruction.
+     */
+    private volatile BloomFilter filter;
+
+    /**
+     * Sérialise les ajouts au filtre et sa reconstruction, pour qu'aucune
+     * révocation ne soit perdue lors du remplacement du filtre.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Nombre de vérifications ayant nécessité une lecture en base.
+     */
+    private Counter databaseChecks;
+
+    @PostConstruct
+    void init() {
+        // Migrations déjà appliquées (l'EntityManagerFactory en dépend)
+        rebuild();
+        databaseChecks = Counter.builder("jwt.revocation.database-checks")
+                .description("Vérifications de révocation confirmées en base (filtre positif)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Révoque un token jusqu'à son expiration.
+     *
+     * @param jti L'identifiant du token (claim "jti")
+     * @param expiration La date d'expiration du token
+     */
+    public void revoke(String jti, Date expiration) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.save(new RevokedToken(jti, expiresAt));
+
+        lock.lock();
+        try {
+            filter.put(jti);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indique si un token a été révoqué.
+     *
+     * @param jti L'identifiant du token (claim "jti"), null pour un token
+     *            émis par une version antérieure
+     * @return true si le token a été révoqué
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        databaseChecks.increment();
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    /**
+     * Supprime les révocations dont le token a expiré, puis reconstruit
+     * le filtre pour qu'il ne conserve pas leur trace.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}",
+               initialDelayString = "${jwt.revocation.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("{} révocation(s) expirée(s) purgée(s)", purged);
+        }
+        rebuild();
+    }
+
+    /**
+     * Reconstruit le filtre depuis les révocations actives en base.
+     *
+     * Le verrou est tenu pendant la lecture et le remplacement: une
+     * révocation concurrente est ajoutée au nouveau filtre, après lui.
+     */
+    private void rebuild() {
+        lock.lock();
+        try {
+            List<String> active = revokedTokenRepository.findActiveJtis(LocalDateTime.now());
+            BloomFilter rebuilt = BloomFilter.create(
+                    Math.max(expectedInsertions, 2L * active.size()), falsePositiveRate);
+            active.forEach(rebuilt::put);
+            filter = rebuilt;
+            log.debug("Filtre de révocation reconstruit ({} token(s) révoqué(s))", active.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.notes.security;
+
+import com.demo.notes.event.UserSecurityChangedEvent;
+import com.demo.notes.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Registre en mémoire des versions de droits des utilisateurs.
+ *
+ * Permet de vérifier à chaque requête, sans accès à la base, qu'un token
+ * JWT est toujours valable:
+ * - L'utilisateur existe toujours (sinon: token refusé)
+ * - La version portée par le token est la version courante (sinon: rôles
+ *   modifiés ou sessions révoquées depuis l'émission du token)
+ *
+ * La version d'un utilisateur est lue une fois en base puis conservée;
+ * l'entrée est invalidée après le commit de tout changement le concernant.
+ *
+ * @author Demo
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final String CACHE_NAME = "security.token-versions";
+
+    private final LoadingCache<Long, Optional<Integer>> versions;
+
+    public TokenVersionRegistry(UserRepository userRepository,
+                                @Value("${jwt.version-cache.maximum-size:100000}") long maximumSize,
+                                MeterRegistry meterRegistry) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(userRepository::findTokenVersionById);
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, CACHE_NAME);
+    }
+
+    /**
+     * Vérifie qu'un token émis avec la version donnée est toujours valable.
+     *
+     * @param userId L'identifiant de l'utilisateur (claim "uid")
+     * @param tokenVersion La version embarquée dans le token (claim "ver")
+     * @return true si l'utilisateur existe et que la version est à jour
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Optional<Integer> current = versions.get(userId);
+        return current.isPresent() && current.get() == tokenVersion;
+    }
+
+    /**
+     * Invalide la version connue d'un utilisateur après le commit
+     * d'un changement de sécurité (création, modification, suppression).
+     *
+     * @param event L'événement de changement
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        versions.invalidate(event.getUserId());
+    }
+}
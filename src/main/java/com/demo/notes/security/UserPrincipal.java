@@ -0,0 +1,114 @@
+package com.demo.notes.security;
+
+import com.demo.notes.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Utilisateur authentifié, tel que vu par Spring Security.
+ *
+ * Contrairement au User standard de Spring Security, ce principal
+ * transporte l'identifiant de l'utilisateur et la version de ses
+ * droits (tokenVersion), ce qui permet:
+ * - D'émettre un token JWT auto-suffisant (id, rôles, version)
+ * - De reconstruire l'authentification depuis le token, sans base de données
+ *
+ * Les instances sont immuables.
+ *
+ * @author Demo
+ */
+public class UserPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final int tokenVersion;
+    private final Set<GrantedAuthority> authorities;
+
+    public UserPrincipal(Long id, String username, String password, int tokenVersion,
+                         Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.tokenVersion = tokenVersion;
+        this.authorities = Collections.unmodifiableSet(Set.copyOf(authorities));
+    }
+
+    /**
+     * Construit un principal depuis l'entité User (rôles compris).
+     *
+     * @param user L'utilisateur chargé depuis la base
+     * @return Le principal correspondant
+     */
+    public static UserPrincipal fromUser(User user) {
+        Set<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getName()))
+                .collect(Collectors.toSet());
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(),
+                user.getTokenVersion(), authorities);
+    }
+
+    /**
+     * Retourne une copie de ce principal avec un nouveau hash de mot de passe.
+     *
+     * @param newPassword Le nouveau hash
+     * @return Le principal mis à jour
+     */
+    public UserPrincipal withPassword(String newPassword) {
+        return new UserPrincipal(id, username, newPassword, tokenVersion, authorities);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal[id=" + id + ", username=" + username + "]";
+    }
+}
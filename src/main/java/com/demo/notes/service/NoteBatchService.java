@@ -0,0 +1,298 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.NoteBatchItemResult;
+import com.demo.notes.dto.NoteBatchOperation;
+import com.demo.notes.dto.NoteBatchResponse;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.event.NoteChangedEvent;
+import com.demo.notes.exception.ConflictException;
+import com.demo.notes.exception.InvalidRequestException;
+import com.demo.notes.exception.ResourceNotFoundException;
+import com.demo.notes.model.Note;
+import com.demo.notes.model.User;
+import com.demo.notes.repository.NoteRepository;
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service d'opérations par lots sur les notes (import depuis d'autres outils).
+ *
+ * Les opérations sont appliquées dans l'ordre, par groupes de
+ * notes.batch.chunk-size opérations, chacun dans sa propre transaction:
+ * - les notes modifiées ou supprimées par le groupe sont lues en une requête
+ * - les compteurs de références des contenus (NoteContentStore) sont mis à
+ *   jour une fois par contenu distinct du groupe
+ * - les nouvelles versions des notes (NoteRevisionService) sont enregistrées
+ *   en un lot, une par note écrite
+ * - les écritures sont envoyées au flush en lots JDBC (hibernate.jdbc.batch_size),
+ *   les identifiants des nouvelles notes étant tirés de la séquence par blocs
+ * - le contexte de persistance est vidé après chaque groupe: la mémoire
+ *   utilisée ne dépend pas de la taille de la requête
+ *
+ * Chaque opération reçoit son résultat: une opération invalide (400) ou
+ * visant une note inexistante ou d'un autre utilisateur (404) n'empêche
+ * pas les autres. Si l'enregistrement d'un groupe échoue, seul ce groupe
+ * est annulé: 409 pour chacune de ses opérations si une de ses notes a été
+ * modifiée ou supprimée entre-temps par une autre requête (version de la
+ * note), 500 sinon.
+ *
+ * @author Demo
+ */
+@Slf4j
+@Service
+public class NoteBatchService {
+
+    private static final String CREATE = "create";
+    private static final String UPDATE = "update";
+    private static final String DELETE = "delete";
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NoteSyncService noteSyncService;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Nombre maximal d'opérations par requête.
+     */
+    @Value("${notes.batch.max-operations:10000}")
+    private int maxOperations;
+
+    /**
+     * Nombre d'opérations par transaction.
+     */
+    @Value("${notes.batch.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Applique un lot d'opérations aux notes d'un utilisateur.
+     *
+     * @param operations Les opérations, dans l'ordre d'application
+     * @param owner L'utilisateur authentifié
+     * @return Le résultat de chaque opération
+     * @throws InvalidRequestException Si le lot dépasse le nombre maximal d'opérations
+     */
+    public NoteBatchResponse apply(List<NoteBatchOperation> operations, UserPrincipal owner) {
+        if (operations.size() > maxOperations) {
+            throw new InvalidRequestException("Un lot est limité à " + maxOperations + " opérations");
+        }
+
+        NoteBatchItemResult[] results = new NoteBatchItemResult[operations.size()];
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(from + chunkSize, operations.size());
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyChunk(operations, start, end, owner, results));
+            } catch (OptimisticLockException | OptimisticLockingFailureException e) {
+                log.debug("Opérations {} à {} d'un lot en conflit avec une autre requête", start, end - 1);
+                cancelChunk(results, start, end, HttpStatus.CONFLICT, ConflictException.NOTE_MODIFIED.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Échec de l'enregistrement des opérations {} à {} d'un lot", start, end - 1, e);
+                cancelChunk(results, start, end, HttpStatus.INTERNAL_SERVER_ERROR, "Échec de l'enregistrement");
+            }
+        }
+
+        int failed = (int) Arrays.stream(results).filter(result -> result.getError() != null).count();
+        return new NoteBatchResponse(results.length - failed, failed, Arrays.asList(results));
+    }
+
+    /**
+     * Applique un groupe d'opérations (dans la transaction du groupe).
+     */
+    private void applyChunk(List<NoteBatchOperation> operations, int start, int end,
+                            UserPrincipal owner, NoteBatchItemResult[] results) {
+        // Notes visées par le groupe, appartenant à l'utilisateur, en une requête
+        Set<Long> ids = new HashSet<>();
+        for (int i = start; i < end; i++) {
+            if (operations.get(i).getId() != null) {
+                ids.add(operations.get(i).getId());
+            }
+        }
+        Map<Long, Note> notes = ids.isEmpty() ? new HashMap<>()
+                : noteRepository.findOwnedByIds(ids, owner.getId()).stream()
+                        .collect(Collectors.toMap(Note::getId, note -> note));
+
+        User user = userRepository.getReferenceById(owner.getId());
+        NoteContentStore.References references = noteContentStore.references();
+        // Contenu des notes créées ou modifiées (pour les événements, sans relecture)
+        Map<Long, String> saved = new LinkedHashMap<>();
+        // Version lue des notes modifiées (historique), avant leur première modification
+        Map<Long, LoadedNote> loaded = new HashMap<>();
+        List<Long> deleted = new ArrayList<>();
+
+        for (int i = start; i < end; i++) {
+            NoteBatchOperation operation = operations.get(i);
+            String type = operation.getOp() == null ? "" : operation.getOp().toLowerCase(Locale.ROOT);
+            String invalid = switch (type) {
+                case CREATE -> validate(operation);
+                case UPDATE, DELETE -> operation.getId() == null ? "L'identifiant est obligatoire"
+                        : type.equals(UPDATE) ? validate(operation) : null;
+                default -> "Opération inconnue: " + operation.getOp();
+            };
+            if (invalid != null) {
+                results[i] = failure(i, HttpStatus.BAD_REQUEST, invalid);
+                continue;
+            }
+
+            if (type.equals(CREATE)) {
+                Note note = new Note();
+                note.setTitle(operation.getTitle());
+                note.setBody(references.acquire(operation.getContent()));
+                note.setUser(user);
+                // Identifiant attribué par la séquence, l'insertion attend le flush
+                entityManager.persist(note);
+                notes.put(note.getId(), note);
+                saved.put(note.getId(), operation.getContent());
+                results[i] = new NoteBatchItemResult(i, HttpStatus.CREATED.value(), note.getId(), null);
+                continue;
+            }
+
+            Note note = notes.get(operation.getId());
+            if (note == null) {
+                results[i] = failure(i, HttpStatus.NOT_FOUND, ResourceNotFoundException.NOTE.getMessage());
+            } else if (type.equals(UPDATE)) {
+                // Première modification d'une note lue (pas créée par le groupe)
+                if (!saved.containsKey(note.getId())) {
+                    loaded.put(note.getId(), new LoadedNote(note.getVersion(), note.getContent()));
+                }
+                note.setTitle(operation.getTitle());
+                note.setBody(references.replace(note.getBody(), operation.getContent()));
+                saved.put(note.getId(), operation.getContent());
+                results[i] = new NoteBatchItemResult(i, HttpStatus.OK.value(), note.getId(), null);
+            } else {
+                references.release(note.getBody());
+                entityManager.remove(note);
+                notes.remove(note.getId());
+                saved.remove(note.getId());
+                deleted.add(note.getId());
+                results[i] = new NoteBatchItemResult(i, HttpStatus.NO_CONTENT.value(), note.getId(), null);
+            }
+        }
+
+        // Traces des suppressions, écrites au flush avec le reste du groupe
+        if (!deleted.isEmpty()) {
+            noteSyncService.recordDeletions(owner.getId(), deleted);
+        }
+        // Historique des notes supprimées, avant elles (clé étrangère)
+        if (!deleted.isEmpty()) {
+            noteRevisionService.delete(deleted, references);
+        }
+        // Compteurs des contenus, une ligne par contenu distinct du groupe
+        references.apply();
+        // Écriture en lots JDBC; renseigne aussi les dates de modification
+        entityManager.flush();
+        // Mises à jour sans effet (mêmes titre et contenu): version inchangée,
+        // ni historique, ni compteur de la liste, ni événement
+        saved.keySet().removeIf(id -> {
+            LoadedNote before = loaded.get(id);
+            return before != null && before.version().equals(notes.get(id).getVersion());
+        });
+        // Nouvelles versions: notes créées, et notes modifiées
+        NoteRevisionService.Revisions revisions = noteRevisionService.revisions();
+        for (Map.Entry<Long, String> content : saved.entrySet()) {
+            Note note = notes.get(content.getKey());
+            LoadedNote before = loaded.get(note.getId());
+            revisions.add(note, before == null ? null : before.content(), content.getValue());
+        }
+        revisions.apply();
+        // Une seule incrémentation du compteur (ETag de la liste) par groupe
+        if (!saved.isEmpty() || !deleted.isEmpty()) {
+            userRepository.incrementNotesVersion(owner.getId());
+        }
+        for (Map.Entry<Long, String> content : saved.entrySet()) {
+            Note note = notes.get(content.getKey());
+            eventPublisher.publishEvent(NoteChangedEvent.saved(
+                note.getId(), owner.getId(), note.getTitle(), content.getValue(), note.getUpdatedAt()));
+        }
+        for (Long id : deleted) {
+            eventPublisher.publishEvent(NoteChangedEvent.deleted(id, owner.getId()));
+        }
+        // Tout est écrit: le commit n'a pas à revérifier les entités du groupe
+        entityManager.clear();
+    }
+
+    /**
+     * Marque en échec les opérations d'un groupe annulé.
+     */
+    private void cancelChunk(NoteBatchItemResult[] results, int start, int end, HttpStatus status, String error) {
+        for (int i = start; i < end; i++) {
+            // Les opérations valides du groupe ont été annulées avec lui
+            if (results[i] == null || results[i].getError() == null) {
+                results[i] = failure(i, status, error);
+            }
+        }
+        entityManager.clear();
+    }
+
+    /**
+     * Valide le titre et le contenu d'une opération (contraintes de NoteRequest).
+     *
+     * @return Les messages d'erreur, ou null si l'opération est valide
+     */
+    private String validate(NoteBatchOperation operation) {
+        Set<ConstraintViolation<NoteRequest>> violations =
+                validator.validate(new NoteRequest(operation.getTitle(), operation.getContent()));
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Version et contenu d'une note lue par un groupe, avant sa modification.
+     */
+    private record LoadedNote(Long version, String content) {
+    }
+
+    private static NoteBatchItemResult failure(int index, HttpStatus status, String error) {
+        return new NoteBatchItemResult(index, status.value(), null, error);
+    }
+}
@@ -0,0 +1,119 @@
+package com.demo.notes.service;
+
+import com.demo.notes.model.NoteContentConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recompression en tâche de fond du contenu des notes.
+ *
+ * Les contenus enregistrés avant la compression (ou au-dessous d'un seuil
+ * depuis abaissé) restent lisibles mais occupent toute leur taille. Ce
+ * service parcourt les contenus (note_contents) par empreinte, par groupes
+ * de notes.content.compaction-batch-size, et réécrit ceux que
+ * NoteContentConverter compresserait aujourd'hui.
+ *
+ * Les valeurs brutes de la colonne sont lues et écrites en JDBC: les notes
+ * ne changent pas (ni version, ni date de modification, ni ETag). Un
+ * contenu ne change jamais de texte (il est adressé par son empreinte):
+ * sa réécriture n'entre en conflit avec aucune autre écriture.
+ *
+ * Toute nouvelle écriture passant par le convertisseur, un parcours complet
+ * suffit: les suivants sont ignorés jusqu'au prochain démarrage.
+ *
+ * @author Demo
+ */
+@Slf4j
+@Service
+public class NoteContentCompactionService {
+
+    private static final String SCAN =
+            "SELECT c.hash, c.data FROM note_contents c WHERE c.hash > ? ORDER BY c.hash FETCH FIRST ? ROWS ONLY";
+
+    private static final String UPDATE = "UPDATE note_contents SET data = ? WHERE hash = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NoteContentConverter noteContentConverter;
+
+    /**
+     * Nombre de contenus lus (et réécrits au plus) par requête.
+     */
+    @Value("${notes.content.compaction-batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Un parcours complet a abouti depuis le démarrage.
+     */
+    private volatile boolean completed;
+
+    /**
+     * Recompresse les contenus qui ne sont pas au format courant.
+     */
+    @Scheduled(initialDelayString = "${notes.content.compaction-delay:PT1M}",
+               fixedDelayString = "${notes.content.compaction-interval:PT1H}")
+    public void compact() {
+        if (completed) {
+            return;
+        }
+
+        String after = "";
+        long scanned = 0;
+        long compacted = 0;
+        long savedBytes = 0;
+        while (true) {
+            List<StoredContent> rows = jdbcTemplate.query(SCAN,
+                    (rs, rowNum) -> new StoredContent(rs.getString(1), rs.getBytes(2)),
+                    after, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            List<Integer> gains = new ArrayList<>();
+            for (StoredContent row : rows) {
+                if (!noteContentConverter.isCompacted(row.data())) {
+                    byte[] data = noteContentConverter.convertToDatabaseColumn(
+                            noteContentConverter.convertToEntityAttribute(row.data()));
+                    if (data.length < row.data().length) {
+                        updates.add(new Object[] {data, row.hash()});
+                        gains.add(row.data().length - data.length);
+                    }
+                }
+            }
+            if (!updates.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE, updates);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        compacted++;
+                        savedBytes += gains.get(i);
+                    }
+                }
+            }
+
+            scanned += rows.size();
+            after = rows.get(rows.size() - 1).hash();
+        }
+
+        completed = true;
+        if (compacted > 0) {
+            log.info("Contenus des notes recompressés: {} sur {}, {} octets gagnés",
+                    compacted, scanned, savedBytes);
+        }
+    }
+
+    /**
+     * Valeur brute d'un contenu de note.
+     */
+    private record StoredContent(String hash, byte[] data) {
+    }
+}
@@ -0,0 +1,292 @@
+package com.demo.notes.service;
+
+import com.demo.notes.model.NoteContent;
+import com.demo.notes.model.NoteContentConverter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Stockage des contenus de notes, adressés par leur empreinte (NoteContent).
+ *
+ * Chaque contenu distinct est stocké une fois, avec le nombre de notes (et
+ * d'instantanés de l'historique, NoteRevisionService) qui l'utilisent.
+ * Les écritures d'une transaction sont regroupées (References):
+ * - les compteurs sont mis à jour en lots JDBC, une ligne par contenu
+ *   distinct, quel que soit le nombre de notes concernées
+ * - un contenu absent est inséré avec ses références, dans la transaction
+ *   (sur sa connexion: aucune autre connexion du pool n'est demandée). Si
+ *   une autre transaction insère en même temps le même contenu, l'insertion
+ *   est annulée jusqu'à un point de sauvegarde et le contenu, inséré par
+ *   l'autre, est simplement référencé
+ *
+ * Un contenu dont le compteur retombe à zéro n'est pas supprimé tout de
+ * suite: la collecte (collectGarbage) les supprime par petits lots en tâche
+ * de fond, après notes.content.gc-grace (un contenu retiré puis aussitôt
+ * réutilisé, annulation d'une modification par exemple, n'est pas réécrit).
+ *
+ * @author Demo
+ */
+@Slf4j
+@Service
+public class NoteContentStore {
+
+    private static final String INCREMENT =
+            "UPDATE note_contents SET ref_count = ref_count + ? WHERE hash = ?";
+
+    private static final String DECREMENT =
+            "UPDATE note_contents SET ref_count = ref_count - ?, released_at = ? WHERE hash = ?";
+
+    private static final String INSERT =
+            "INSERT INTO note_contents (hash, data, ref_count, released_at) " +
+            "SELECT ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM note_contents WHERE hash = ?)";
+
+    private static final String DELETE_UNREFERENCED =
+            "DELETE FROM note_contents c WHERE c.ref_count = 0 AND c.released_at < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM notes n WHERE n.content_hash = c.hash) " +
+            "AND NOT EXISTS (SELECT 1 FROM note_revisions r WHERE r.content_hash = c.hash) " +
+            "FETCH FIRST ? ROWS ONLY";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NoteContentConverter noteContentConverter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Délai avant la suppression d'un contenu qui n'est plus référencé.
+     */
+    @Value("${notes.content.gc-grace:PT1H}")
+    private Duration gcGrace;
+
+    /**
+     * Nombre de contenus supprimés par transaction lors de la collecte.
+     */
+    @Value("${notes.content.gc-batch-size:500}")
+    private int gcBatchSize;
+
+    /**
+     * Calcule l'empreinte d'un contenu.
+     *
+     * @param text Le contenu
+     * @return Son empreinte SHA-256 (UTF-8), en hexadécimal
+     */
+    public static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Commence un ensemble de références prises et rendues, à enregistrer
+     * ensemble (References.apply) dans la transaction courante.
+     *
+     * @return Un ensemble vide
+     */
+    public References references() {
+        return new References();
+    }
+
+    /**
+     * Références prises et rendues par les notes d'une transaction.
+     *
+     * Les notes désignent aussitôt leur contenu (référence JPA, sans
+     * lecture); apply() doit être appelé avant le flush des notes, qui
+     * vérifie la clé étrangère vers note_contents.
+     */
+    public class References {
+
+        /**
+         * Variation du compteur de chaque contenu.
+         */
+        private final Map<String, Long> deltas = new LinkedHashMap<>();
+
+        /**
+         * Texte des contenus pris (à insérer s'ils n'existent pas).
+         */
+        private final Map<String, String> texts = new HashMap<>();
+
+        /**
+         * Prend une référence sur un contenu.
+         *
+         * @param text Le contenu
+         * @return Le contenu, à attribuer à la note
+         */
+        public NoteContent acquire(String text) {
+            String hash = hash(text);
+            deltas.merge(hash, 1L, Long::sum);
+            texts.putIfAbsent(hash, text);
+            return entityManager.getReference(NoteContent.class, hash);
+        }
+
+        /**
+         * Rend la référence d'une note sur son contenu (note modifiée ou supprimée).
+         *
+         * @param content Le contenu que la note utilisait
+         */
+        public void release(NoteContent content) {
+            release(content.getHash());
+        }
+
+        /**
+         * Rend une référence sur un contenu désigné par son empreinte
+         * (instantané de l'historique supprimé).
+         *
+         * @param hash L'empreinte du contenu
+         */
+        public void release(String hash) {
+            deltas.merge(hash, -1L, Long::sum);
+        }
+
+        /**
+         * Remplace le contenu d'une note, s'il a changé.
+         *
+         * @param current Le contenu actuel de la note
+         * @param text Le nouveau contenu
+         * @return Le contenu à attribuer à la note (current s'il est inchangé)
+         */
+        public NoteContent replace(NoteContent current, String text) {
+            if (hash(text).equals(current.getHash())) {
+                return current;
+            }
+            release(current);
+            return acquire(text);
+        }
+
+        /**
+         * Enregistre les variations des compteurs (dans la transaction courante).
+         */
+        public void apply() {
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> increments = new ArrayList<>();
+            List<Object[]> decrements = new ArrayList<>();
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                if (delta.getValue() > 0) {
+                    increments.add(new Object[] {delta.getValue(), delta.getKey()});
+                } else if (delta.getValue() < 0) {
+                    decrements.add(new Object[] {-delta.getValue(), now, delta.getKey()});
+                }
+            }
+
+            if (!increments.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(INCREMENT, increments);
+                List<Object[]> missing = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        missing.add(increments.get(i));
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    insert(missing, now);
+                }
+            }
+            if (!decrements.isEmpty()) {
+                jdbcTemplate.batchUpdate(DECREMENT, decrements);
+            }
+
+            deltas.clear();
+            texts.clear();
+        }
+
+        /**
+         * Insère des contenus absents, avec leurs références.
+         *
+         * @param missing Les incréments (delta, empreinte) des contenus absents
+         */
+        private void insert(List<Object[]> missing, LocalDateTime now) {
+            List<Object[]> rows = new ArrayList<>(missing.size());
+            for (Object[] increment : missing) {
+                String hash = (String) increment[1];
+                rows.add(new Object[] {
+                        hash, noteContentConverter.convertToDatabaseColumn(texts.get(hash)), increment[0], now, hash});
+            }
+            int[] counts = atSavepoint(() -> jdbcTemplate.batchUpdate(INSERT, rows));
+            if (counts == null) {
+                // Même contenu inséré en même temps par une autre transaction: un par un
+                counts = new int[rows.size()];
+                for (int i = 0; i < rows.size(); i++) {
+                    Object[] row = rows.get(i);
+                    Integer count = atSavepoint(() -> jdbcTemplate.update(INSERT, row));
+                    counts[i] = count != null ? count : 0;
+                }
+            }
+            // Contenus insérés (et validés) par une autre transaction: il suffit de les référencer
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0 && jdbcTemplate.update(INCREMENT, missing.get(i)) == 0) {
+                    throw new IllegalStateException("Contenu de note introuvable après son insertion");
+                }
+            }
+        }
+
+        /**
+         * Exécute une insertion après un point de sauvegarde de la transaction,
+         * annulée jusqu'à lui si le contenu existe déjà.
+         *
+         * @return Le résultat de l'insertion, ou null si elle a été annulée
+         */
+        private <T> T atSavepoint(Supplier<T> insert) {
+            return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+                Savepoint savepoint = connection.setSavepoint();
+                T result;
+                try {
+                    result = insert.get();
+                } catch (DuplicateKeyException e) {
+                    connection.rollback(savepoint);
+                    return null;
+                }
+                connection.releaseSavepoint(savepoint);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * Supprime les contenus qui ne sont plus référencés depuis notes.content.gc-grace,
+     * par lots de notes.content.gc-batch-size (une transaction par lot).
+     *
+     * Un contenu au compteur nul mais encore utilisé par une note ou un
+     * instantané (compteur faussé) est ignoré: il ne bloque pas la collecte
+     * des suivants.
+     */
+    @Scheduled(initialDelayString = "${notes.content.gc-interval:PT10M}",
+               fixedDelayString = "${notes.content.gc-interval:PT10M}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gcGrace);
+        long deleted = 0;
+        int count;
+        do {
+            count = jdbcTemplate.update(DELETE_UNREFERENCED, cutoff, gcBatchSize);
+            deleted += count;
+        } while (count == gcBatchSize);
+        if (deleted > 0) {
+            log.info("{} contenu(s) de note non référencé(s) supprimé(s)", deleted);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.demo.notes.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Différences entre deux versions du contenu d'une note (NoteRevisionService).
+ *
+ * Le contenu cible est décrit à partir du contenu de base (textes en UTF-8)
+ * par une suite d'opérations: copie d'une plage de la base, ou insertion
+ * d'octets nouveaux. Une modification locale (la plupart des
+ * enregistrements de l'éditeur) tient en quelques octets: préfixe et
+ * suffixe communs copiés, seule la partie modifiée est insérée. Les
+ * passages déplacés ou recopiés ailleurs dans la note sont retrouvés par
+ * blocs de BLOCK_SIZE octets.
+ *
+ * Format (entiers en varint):
+ * - longueur de la base, longueur de la cible
+ * - opérations: (longueur << 1) | 1 puis la position dans la base pour une
+ *   copie, (longueur << 1) puis les octets pour une insertion
+ *
+ * @author Demo
+ */
+final class NoteDelta {
+
+    /**
+     * Taille des blocs indexés dans la base (plus petite copie recherchée
+     * hors préfixe et suffixe communs).
+     */
+    private static final int BLOCK_SIZE = 16;
+
+    private NoteDelta() {
+    }
+
+    /**
+     * Calcule les différences d'une base vers une cible.
+     *
+     * @param base Le contenu de base (UTF-8)
+     * @param target Le contenu cible (UTF-8)
+     * @return Les différences encodées
+     */
+    static byte[] encode(byte[] base, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, base.length);
+        writeVarint(out, target.length);
+
+        // Préfixe et suffixe communs
+        int limit = Math.min(base.length, target.length);
+        int prefix = 0;
+        while (prefix < limit && base[prefix] == target[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && base[base.length - 1 - suffix] == target[target.length - 1 - suffix]) {
+            suffix++;
+        }
+        if (prefix > 0) {
+            writeCopy(out, 0, prefix);
+        }
+
+        // Partie modifiée: copie des blocs de la base qui s'y retrouvent
+        int end = target.length - suffix;
+        Map<Integer, Integer> blocks = indexBlocks(base);
+        int literal = prefix;
+        int i = prefix;
+        while (i + BLOCK_SIZE <= end) {
+            Integer candidate = blocks.get(hashBlock(target, i));
+            if (candidate == null || !matches(base, candidate, target, i)) {
+                i++;
+                continue;
+            }
+            int from = candidate;
+            int length = BLOCK_SIZE;
+            while (from + length < base.length && i + length < end && base[from + length] == target[i + length]) {
+                length++;
+            }
+            // Extension vers l'arrière, sur les octets pas encore émis
+            while (i > literal && from > 0 && base[from - 1] == target[i - 1]) {
+                from--;
+                i--;
+                length++;
+            }
+            writeInsert(out, target, literal, i);
+            writeCopy(out, from, length);
+            i += length;
+            literal = i;
+        }
+        writeInsert(out, target, literal, end);
+
+        if (suffix > 0) {
+            writeCopy(out, base.length - suffix, suffix);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Applique des différences à leur base.
+     *
+     * @param base Le contenu de base (UTF-8)
+     * @param delta Les différences, calculées depuis cette base
+     * @return Le contenu cible (UTF-8)
+     * @throws IllegalStateException Si les différences sont invalides ou ne
+     *         correspondent pas à la base
+     */
+    static byte[] apply(byte[] base, byte[] delta) {
+        int[] position = {0};
+        if (readVarint(delta, position) != base.length) {
+            throw new IllegalStateException("Différences d'une autre version de la note");
+        }
+        int targetLength = readVarint(delta, position);
+        if (targetLength < 0) {
+            throw new IllegalStateException("Différences de version invalides");
+        }
+        byte[] target = new byte[targetLength];
+        int written = 0;
+        while (position[0] < delta.length) {
+            int header = readVarint(delta, position);
+            int length = header >>> 1;
+            if (length > target.length - written) {
+                throw new IllegalStateException("Différences de version invalides");
+            }
+            if ((header & 1) == 1) {
+                int from = readVarint(delta, position);
+                if (from < 0 || from > base.length - length) {
+                    throw new IllegalStateException("Différences de version invalides");
+                }
+                System.arraycopy(base, from, target, written, length);
+            } else {
+                if (length > delta.length - position[0]) {
+                    throw new IllegalStateException("Différences de version tronquées");
+                }
+                System.arraycopy(delta, position[0], target, written, length);
+                position[0] += length;
+            }
+            written += length;
+        }
+        if (written != target.length) {
+            throw new IllegalStateException("Différences de version tronquées");
+        }
+        return target;
+    }
+
+    /**
+     * Indexe les blocs alignés de la base (première position de chaque empreinte).
+     */
+    private static Map<Integer, Integer> indexBlocks(byte[] base) {
+        Map<Integer, Integer> blocks = new HashMap<>();
+        for (int from = 0; from + BLOCK_SIZE <= base.length; from += BLOCK_SIZE) {
+            blocks.putIfAbsent(hashBlock(base, from), from);
+        }
+        return blocks;
+    }
+
+    private static int hashBlock(byte[] data, int from) {
+        int hash = 1;
+        for (int i = from; i < from + BLOCK_SIZE; i++) {
+            hash = 31 * hash + data[i];
+        }
+        return hash;
+    }
+
+    private static boolean matches(byte[] base, int from, byte[] target, int at) {
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if (base[from + i] != target[at + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeCopy(ByteArrayOutputStream out, int from, int length) {
+        writeVarint(out, (length << 1) | 1);
+        writeVarint(out, from);
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, byte[] target, int from, int to) {
+        if (to > from) {
+            writeVarint(out, (to - from) << 1);
+            out.write(target, from, to - from);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalStateException("Différences de version tronquées");
+            }
+            byte b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Différences de version invalides");
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo.notes.service;
+
+/**
+ * ETags (forts) des notes, pour les requêtes conditionnelles
+ * (If-None-Match sur les lectures, If-Match sur les écritures).
+ *
+ * - Note: identifiant et version de la note (Note.version)
+ * - Liste des notes: propriétaire et compteur des modifications de ses
+ *   notes (User.notesVersion), lu sans lire les notes
+ *
+ * @author Demo
+ */
+public final class NoteETags {
+
+    private NoteETags() {
+    }
+
+    /**
+     * ETag d'une note.
+     *
+     * @param id L'identifiant de la note
+     * @param version Sa version
+     * @return L'ETag, guillemets compris
+     */
+    public static String note(Long id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * ETag de la liste des notes d'un utilisateur (toutes pages confondues).
+     *
+     * Le propriétaire en fait partie: deux utilisateurs d'un même navigateur
+     * ne partagent pas leurs réponses en cache.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @param notesVersion Le compteur des modifications de ses notes
+     * @return L'ETag, guillemets compris
+     */
+    public static String list(Long userId, long notesVersion) {
+        return "\"u" + userId + "-" + notesVersion + "\"";
+    }
+
+    /**
+     * Vérifie un en-tête If-None-Match: "*" ou une liste d'ETags dont l'un
+     * est l'ETag courant (comparaison faible: le préfixe W/ est ignoré).
+     *
+     * @param ifNoneMatch La valeur de l'en-tête
+     * @param current L'ETag courant de la ressource
+     * @return true si le client a déjà la version courante (304)
+     */
+    public static boolean notModified(String ifNoneMatch, String current) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String etag = candidate.trim();
+            if (etag.startsWith("W/")) {
+                etag = etag.substring(2);
+            }
+            if (etag.equals("*") || etag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vérifie un en-tête If-Match: "*" ou une liste d'ETags dont l'un est
+     * l'ETag courant (comparaison forte: un ETag faible ne correspond jamais).
+     *
+     * @param ifMatch La valeur de l'en-tête
+     * @param current L'ETag courant de la ressource
+     * @return true si la condition est remplie
+     */
+    public static boolean matches(String ifMatch, String current) {
+        for (String candidate : ifMatch.split(",")) {
+            String etag = candidate.trim();
+            if (etag.equals("*") || etag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.NoteExportItem;
+import com.demo.notes.repository.NoteRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service d'export des notes au format NDJSON (un objet JSON par ligne).
+ *
+ * Les notes sont lues au fil de l'eau (flux JDBC, voir
+ * NoteRepository.streamByUserId) et écrites au fur et à mesure dans la
+ * réponse: aucune liste n'est constituée, et les lignes lues sont des
+ * projections, pas des entités (le contexte de persistance reste vide).
+ * La mémoire utilisée ne dépend donc pas du nombre de notes.
+ *
+ * @author Demo
+ */
+@Service
+@Transactional(readOnly = true)
+public class NoteExportService {
+
+    /**
+     * Nombre de lignes entre deux envois au client.
+     */
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Exporte les notes d'un utilisateur.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @param out Le flux de sortie (non fermé)
+     * @return Le nombre de notes exportées
+     * @throws IOException En cas d'erreur d'écriture (client déconnecté...)
+     */
+    public long exportUserNotes(Long userId, OutputStream out) throws IOException {
+        try (Stream<NoteExportItem> notes = noteRepository.streamByUserId(userId)) {
+            return write(notes, out);
+        }
+    }
+
+    /**
+     * Exporte les notes de tous les utilisateurs.
+     *
+     * @param out Le flux de sortie (non fermé)
+     * @return Le nombre de notes exportées
+     * @throws IOException En cas d'erreur d'écriture (client déconnecté...)
+     */
+    public long exportAllNotes(OutputStream out) throws IOException {
+        try (Stream<NoteExportItem> notes = noteRepository.streamAll()) {
+            return write(notes, out);
+        }
+    }
+
+    private long write(Stream<NoteExportItem> notes, OutputStream out) throws IOException {
+        // Envois au client tous les FLUSH_EVERY lignes, pas après chaque note
+        ObjectWriter writer = objectMapper.writerFor(NoteExportItem.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                // Lignes séparées par '\n' (et non par l'espace par défaut de Jackson)
+                .setRootValueSeparator(null)) {
+            Iterator<NoteExportItem> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+}
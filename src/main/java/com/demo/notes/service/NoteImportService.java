@@ -0,0 +1,213 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.NoteBatchItemResult;
+import com.demo.notes.dto.NoteBatchOperation;
+import com.demo.notes.dto.NoteImportError;
+import com.demo.notes.dto.NoteImportResponse;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.security.UserPrincipal;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Service d'import de notes au format NDJSON (un objet JSON par ligne,
+ * celui de l'export: seuls title et content sont repris).
+ *
+ * Le corps de la requête est lu au fil de l'eau, un groupe de
+ * notes.batch.chunk-size lignes à la fois. Chaque groupe est enregistré
+ * par NoteBatchService (validation, transaction propre, lots JDBC) avant
+ * la lecture du suivant:
+ * - la mémoire utilisée ne dépend pas de la taille du fichier (un groupe,
+ *   et des lignes d'au plus notes.import.max-line-length caractères)
+ * - aucune transaction ne dure tout l'import: les autres écritures ne
+ *   sont retenues que le temps d'un groupe
+ * - le client ne peut pas envoyer plus vite que l'enregistrement: la
+ *   lecture suspendue, le flux TCP se remplit et le ralentit
+ *
+ * Une ligne invalide (JSON mal formé, titre ou contenu manquant) est
+ * rejetée sans interrompre l'import. Les groupes déjà enregistrés le
+ * restent si l'import s'interrompt (client déconnecté...).
+ *
+ * @author Demo
+ */
+@Slf4j
+@Service
+public class NoteImportService {
+
+    private static final String CREATE = "create";
+
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Nombre de lignes enregistrées par transaction.
+     */
+    @Value("${notes.batch.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Longueur maximale d'une ligne, en caractères.
+     */
+    @Value("${notes.import.max-line-length:1048576}")
+    private int maxLineLength;
+
+    /**
+     * Nombre maximal de lignes rejetées détaillées dans le bilan.
+     */
+    @Value("${notes.import.max-errors:100}")
+    private int maxErrors;
+
+    /**
+     * Importe des notes pour un utilisateur.
+     *
+     * @param in Le contenu NDJSON, décompressé (non fermé)
+     * @param owner L'utilisateur authentifié, propriétaire des notes créées
+     * @return Le bilan de l'import
+     * @throws IOException En cas d'erreur de lecture (client déconnecté...)
+     */
+    public NoteImportResponse importNotes(InputStream in, UserPrincipal owner) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(NoteRequest.class)
+                .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        Reader text = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        NoteImportResponse response = new NoteImportResponse();
+        List<NoteBatchOperation> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+        // Lignes rejetées depuis le dernier enregistrement, détaillées dans
+        // l'ordre des lignes avec les erreurs de validation du groupe
+        List<NoteImportError> chunkErrors = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+
+        try {
+            while (readLine(text, line)) {
+                long lineNumber = response.getLines() + 1;
+                response.setLines(lineNumber);
+                if (line.length() > maxLineLength) {
+                    reject(response, chunkErrors, lineNumber, "Ligne trop longue (" + maxLineLength + " caractères au plus)");
+                    continue;
+                }
+                String json = line.toString();
+                if (json.isBlank()) {
+                    continue;
+                }
+
+                NoteRequest note;
+                try {
+                    note = reader.readValue(json);
+                } catch (JsonProcessingException e) {
+                    reject(response, chunkErrors, lineNumber, "JSON invalide: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (note == null) {
+                    reject(response, chunkErrors, lineNumber, "JSON invalide: objet attendu");
+                    continue;
+                }
+
+                chunk.add(new NoteBatchOperation(CREATE, null, note.getTitle(), note.getContent()));
+                chunkLines.add(lineNumber);
+                if (chunk.size() == chunkSize) {
+                    save(chunk, chunkLines, chunkErrors, owner, response);
+                }
+            }
+            save(chunk, chunkLines, chunkErrors, owner, response);
+        } catch (IOException e) {
+            log.warn("Import de notes de l'utilisateur {} interrompu à la ligne {} ({} notes déjà importées)",
+                    owner.getId(), response.getLines(), response.getImported());
+            throw e;
+        }
+
+        log.info("Import de notes de l'utilisateur {}: {} lignes lues, {} notes importées, {} lignes rejetées",
+                owner.getId(), response.getLines(), response.getImported(), response.getFailed());
+        return response;
+    }
+
+    /**
+     * Enregistre un groupe de lignes (une transaction) puis le vide.
+     *
+     * Les erreurs de validation du groupe sont fusionnées avec ses erreurs
+     * de lecture, dans l'ordre des lignes, avant d'être ajoutées au bilan:
+     * celui-ci détaille bien les maxErrors premières lignes rejetées.
+     */
+    private void save(List<NoteBatchOperation> chunk, List<Long> chunkLines,
+                      List<NoteImportError> chunkErrors,
+                      UserPrincipal owner, NoteImportResponse response) {
+        if (!chunk.isEmpty()) {
+            List<NoteBatchItemResult> results = noteBatchService.apply(chunk, owner).getResults();
+            for (NoteBatchItemResult result : results) {
+                if (result.getError() == null) {
+                    response.setImported(response.getImported() + 1);
+                } else {
+                    response.setFailed(response.getFailed() + 1);
+                    chunkErrors.add(new NoteImportError(chunkLines.get(result.getIndex()), result.getError()));
+                }
+            }
+            chunk.clear();
+            chunkLines.clear();
+            log.debug("Import de notes de l'utilisateur {}: {} lignes lues, {} notes importées",
+                    owner.getId(), response.getLines(), response.getImported());
+        }
+
+        chunkErrors.sort(Comparator.comparingLong(NoteImportError::getLine));
+        int remaining = maxErrors - response.getErrors().size();
+        response.getErrors().addAll(chunkErrors.subList(0, Math.max(0, Math.min(remaining, chunkErrors.size()))));
+        chunkErrors.clear();
+    }
+
+    /**
+     * Rejette une ligne à la lecture.
+     *
+     * Les erreurs de lecture arrivent dans l'ordre des lignes: au-delà de
+     * maxErrors, les suivantes ne seraient de toute façon pas détaillées.
+     */
+    private void reject(NoteImportResponse response, List<NoteImportError> chunkErrors, long line, String error) {
+        response.setFailed(response.getFailed() + 1);
+        if (response.getErrors().size() + chunkErrors.size() < maxErrors) {
+            chunkErrors.add(new NoteImportError(line, error));
+        }
+    }
+
+    /**
+     * Lit la ligne suivante, sans son séparateur ("\n" ou "\r\n").
+     *
+     * Une ligne plus longue que maxLineLength est lue jusqu'au bout mais
+     * n'est conservée que sur maxLineLength + 1 caractères (de quoi la
+     * reconnaître trop longue).
+     *
+     * @return false en fin de flux
+     */
+    private boolean readLine(Reader text, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = text.read();
+        if (c < 0) {
+            return false;
+        }
+        while (c >= 0 && c != '\n') {
+            if (line.length() <= maxLineLength) {
+                line.append((char) c);
+            }
+            c = text.read();
+        }
+        if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,310 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.NoteRevisionPageResponse;
+import com.demo.notes.dto.NoteRevisionResponse;
+import com.demo.notes.dto.NoteRevisionSummaryResponse;
+import com.demo.notes.exception.ResourceNotFoundException;
+import com.demo.notes.model.Note;
+import com.demo.notes.model.NoteContentConverter;
+import com.demo.notes.repository.NoteRepository;
+import com.demo.notes.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Historique des versions des notes (note_revisions).
+ *
+ * Chaque écriture d'une note enregistre sa nouvelle version (titre et
+ * contenu), numérotée comme la note (Note.version). Pour que la place
+ * occupée ne croisse pas comme taille de la note × nombre de modifications:
+ * - une version sur notes.revisions.snapshot-interval est un instantané,
+ *   qui référence le contenu dans NoteContentStore (déjà stocké pour la
+ *   note: l'instantané ne coûte qu'une référence)
+ * - les autres ne stockent que leurs différences avec la version
+ *   précédente (NoteDelta), quelques octets pour une modification locale
+ * - une version dont les différences ne sont pas nettement plus petites
+ *   que le contenu devient un instantané
+ *
+ * Chaque version connaît l'instantané dont part sa chaîne (base_revision):
+ * la reconstruire lit au plus snapshot-interval lignes, en une requête,
+ * quel que soit le nombre de versions de la note.
+ *
+ * Les versions sont supprimées avec leur note (delete*), en rendant les
+ * références de leurs instantanés.
+ *
+ * @author Demo
+ */
+@Service
+@Transactional
+public class NoteRevisionService {
+
+    private static final String INSERT =
+            "INSERT INTO note_revisions (note_id, revision, base_revision, title, content_hash, delta, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String FIND_PREVIOUS_BASES =
+            "SELECT r.note_id, r.base_revision FROM note_revisions r JOIN notes n ON n.id = r.note_id " +
+            "WHERE n.id IN (:ids) AND r.revision = n.version - 1";
+
+    private static final String FIND_PAGE =
+            "SELECT r.revision, r.title, r.created_at FROM note_revisions r " +
+            "WHERE r.note_id = ? AND r.revision < ? ORDER BY r.revision DESC FETCH FIRST ? ROWS ONLY";
+
+    private static final String FIND_CHAIN =
+            "SELECT r.revision, r.title, c.data, r.delta, r.created_at FROM note_revisions r " +
+            "LEFT JOIN note_contents c ON c.hash = r.content_hash " +
+            "WHERE r.note_id = ? AND r.revision <= ? " +
+            "AND r.revision >= (SELECT b.base_revision FROM note_revisions b WHERE b.note_id = ? AND b.revision = ?) " +
+            "ORDER BY r.revision";
+
+    private static final String FIND_SNAPSHOTS =
+            "SELECT r.content_hash FROM note_revisions r WHERE r.note_id IN (:ids) AND r.content_hash IS NOT NULL";
+
+    private static final String DELETE = "DELETE FROM note_revisions WHERE note_id IN (:ids)";
+
+    private static final String FIND_USER_SNAPSHOTS =
+            "SELECT r.content_hash FROM note_revisions r JOIN notes n ON n.id = r.note_id " +
+            "WHERE n.user_id = ? AND r.content_hash IS NOT NULL";
+
+    private static final String DELETE_BY_USER =
+            "DELETE FROM note_revisions WHERE note_id IN (SELECT n.id FROM notes n WHERE n.user_id = ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private NoteContentConverter noteContentConverter;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    /**
+     * Nombre maximal de versions d'une chaîne de différences (instantané compris).
+     */
+    @Value("${notes.revisions.snapshot-interval:20}")
+    private int snapshotInterval;
+
+    /**
+     * Récupère une page de l'historique d'une note, de la version la plus
+     * récente à la plus ancienne.
+     *
+     * @param noteId L'identifiant de la note
+     * @param owner L'utilisateur authentifié
+     * @param before Les versions antérieures à celle-ci (null: depuis la plus récente)
+     * @param limit Le nombre maximal de versions
+     * @return Les versions de la page et la valeur de before de la page suivante
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
+     */
+    @Transactional(readOnly = true)
+    public NoteRevisionPageResponse getRevisions(Long noteId, UserPrincipal owner, Long before, int limit) {
+        checkOwner(noteId, owner);
+        // Une version de plus que demandé: indique s'il reste une page
+        List<NoteRevisionSummaryResponse> items = jdbcTemplate.query(FIND_PAGE,
+                (rs, rowNum) -> new NoteRevisionSummaryResponse(
+                        rs.getLong(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime().toString()),
+                noteId, before != null ? before : Long.MAX_VALUE, limit + 1);
+        Long next = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            next = items.get(limit - 1).getRevision();
+        }
+        return new NoteRevisionPageResponse(items, next);
+    }
+
+    /**
+     * Reconstruit une version d'une note.
+     *
+     * @param noteId L'identifiant de la note
+     * @param revision Le numéro de la version
+     * @param owner L'utilisateur authentifié
+     * @return La note à cette version
+     * @throws ResourceNotFoundException Si la note ou la version n'existe pas
+     */
+    @Transactional(readOnly = true)
+    public NoteRevisionResponse getRevision(Long noteId, Long revision, UserPrincipal owner) {
+        checkOwner(noteId, owner);
+        return findRevision(noteId, revision).orElseThrow(() -> ResourceNotFoundException.REVISION);
+    }
+
+    /**
+     * Reconstruit une version d'une note: contenu de son instantané, puis
+     * différences des versions suivantes jusqu'à elle.
+     *
+     * @param noteId L'identifiant de la note (propriétaire déjà vérifié)
+     * @param revision Le numéro de la version
+     * @return La note à cette version, si elle existe
+     */
+    @Transactional(readOnly = true)
+    public Optional<NoteRevisionResponse> findRevision(Long noteId, Long revision) {
+        return Optional.ofNullable(jdbcTemplate.query(FIND_CHAIN, rs -> {
+            byte[] content = null;
+            NoteRevisionResponse found = null;
+            while (rs.next()) {
+                byte[] snapshot = rs.getBytes(3);
+                content = snapshot != null
+                        ? noteContentConverter.convertToEntityAttribute(snapshot).getBytes(StandardCharsets.UTF_8)
+                        : NoteDelta.apply(content, rs.getBytes(4));
+                found = new NoteRevisionResponse(noteId, rs.getLong(1), rs.getString(2), null,
+                        rs.getTimestamp(5).toLocalDateTime().toString());
+            }
+            if (found == null) {
+                return null;
+            }
+            found.setContent(new String(content, StandardCharsets.UTF_8));
+            return found;
+        }, noteId, revision, noteId, revision));
+    }
+
+    /**
+     * Enregistre la nouvelle version d'une note (écriture déjà envoyée en base).
+     *
+     * @param note La note enregistrée
+     * @param previous Le contenu de la version précédente (null pour une nouvelle note)
+     * @param content Le contenu enregistré
+     */
+    public void record(Note note, String previous, String content) {
+        Revisions revisions = revisions();
+        revisions.add(note, previous, content);
+        revisions.apply();
+    }
+
+    /**
+     * Commence un ensemble de versions à enregistrer ensemble (Revisions.apply).
+     *
+     * @return Un ensemble vide
+     */
+    public Revisions revisions() {
+        return new Revisions();
+    }
+
+    /**
+     * Supprime l'historique de notes (avant leur suppression), en rendant
+     * les références de leurs instantanés.
+     *
+     * @param noteIds Les identifiants des notes
+     * @param references Les références de la transaction, à enregistrer par l'appelant
+     */
+    public void delete(Collection<Long> noteIds, NoteContentStore.References references) {
+        Map<String, Object> params = Map.of("ids", noteIds);
+        namedParameterJdbcTemplate.queryForList(FIND_SNAPSHOTS, params, String.class)
+                .forEach(references::release);
+        namedParameterJdbcTemplate.update(DELETE, params);
+    }
+
+    /**
+     * Supprime l'historique de toutes les notes d'un utilisateur (avant leur
+     * suppression), en rendant les références de leurs instantanés.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @param references Les références de la transaction, à enregistrer par l'appelant
+     */
+    public void deleteByUserId(Long userId, NoteContentStore.References references) {
+        jdbcTemplate.queryForList(FIND_USER_SNAPSHOTS, String.class, userId)
+                .forEach(references::release);
+        jdbcTemplate.update(DELETE_BY_USER, userId);
+    }
+
+    private void checkOwner(Long noteId, UserPrincipal owner) {
+        if (noteRepository.findVersionByIdAndUserId(noteId, owner.getId()).isEmpty()) {
+            throw ResourceNotFoundException.NOTE;
+        }
+    }
+
+    /**
+     * Nouvelles versions de notes, enregistrées en lots JDBC.
+     *
+     * Les notes doivent être écrites en base (flush) avant apply(): leur
+     * version et leur date de modification sont celles de la version.
+     */
+    public class Revisions {
+
+        private final List<PendingRevision> pending = new ArrayList<>();
+
+        /**
+         * Ajoute la nouvelle version d'une note.
+         *
+         * @param note La note (écrite en base avant apply)
+         * @param previous Le contenu de la version précédente (null pour une nouvelle note)
+         * @param content Le contenu de la nouvelle version
+         */
+        public void add(Note note, String previous, String content) {
+            pending.add(new PendingRevision(note, previous, content));
+        }
+
+        /**
+         * Enregistre les versions (dans la transaction courante).
+         */
+        public void apply() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            // Instantané de départ de la chaîne de la version précédente
+            List<Long> ids = pending.stream()
+                    .filter(revision -> revision.previous() != null)
+                    .map(revision -> revision.note().getId())
+                    .toList();
+            Map<Long, Long> bases = new HashMap<>();
+            if (!ids.isEmpty()) {
+                namedParameterJdbcTemplate.query(FIND_PREVIOUS_BASES, Map.of("ids", ids),
+                        rs -> {
+                            bases.put(rs.getLong(1), rs.getLong(2));
+                        });
+            }
+
+            NoteContentStore.References references = noteContentStore.references();
+            List<Object[]> rows = new ArrayList<>(pending.size());
+            for (PendingRevision revision : pending) {
+                Note note = revision.note();
+                long number = note.getVersion();
+                byte[] content = revision.content().getBytes(StandardCharsets.UTF_8);
+                Long base = revision.previous() != null ? bases.get(note.getId()) : null;
+                byte[] delta = null;
+                if (base != null && number - base < snapshotInterval) {
+                    delta = NoteDelta.encode(revision.previous().getBytes(StandardCharsets.UTF_8), content);
+                    // Différences à peine plus petites que le contenu: instantané
+                    if (delta.length * 2 > content.length) {
+                        delta = null;
+                    }
+                }
+                String hash = null;
+                if (delta == null) {
+                    base = number;
+                    hash = references.acquire(revision.content()).getHash();
+                }
+                rows.add(new Object[] {note.getId(), number, base, note.getTitle(), hash, delta,
+                        Timestamp.valueOf(note.getUpdatedAt())});
+            }
+
+            // Contenus des instantanés référencés avant l'insertion (clé étrangère)
+            references.apply();
+            jdbcTemplate.batchUpdate(INSERT, rows);
+            pending.clear();
+        }
+    }
+
+    /**
+     * Version d'une note en attente d'enregistrement.
+     */
+    private record PendingRevision(Note note, String previous, String content) {
+    }
+}
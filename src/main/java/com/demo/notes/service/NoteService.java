@@ -1,17 +1,36 @@
 package com.demo.notes.service;
 
+import com.demo.notes.dto.NotePageResponse;
 import com.demo.notes.dto.NoteRequest;
 import com.demo.notes.dto.NoteResponse;
+import com.demo.notes.dto.NoteRevisionResponse;
+import com.demo.notes.dto.NoteSummaryResponse;
+import com.demo.notes.dto.NoteTextEdit;
+import com.demo.notes.dto.NoteTextEditsRequest;
+import com.demo.notes.event.NoteChangedEvent;
+import com.demo.notes.exception.ConflictException;
+import com.demo.notes.exception.InvalidRequestException;
+import com.demo.notes.exception.PreconditionFailedException;
+import com.demo.notes.exception.ResourceNotFoundException;
 import com.demo.notes.model.Note;
-import com.demo.notes.model.User;
+import com.demo.notes.model.NoteContent;
 import com.demo.notes.repository.NoteRepository;
 import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -19,12 +38,26 @@ import java.util.stream.Collectors;
  * 
  * Fournit les opérations métier pour:
  * - Créer des notes
- * - Récupérer les notes d'un utilisateur
- * - Modifier des notes
+ * - Récupérer les notes d'un utilisateur (par pages)
+ * - Modifier des notes (en entier, ou en partie: JSON Merge Patch ou plages de texte)
  * - Supprimer des notes
+ * - Restaurer une version antérieure d'une note
  * 
- * Chaque opération vérifie que l'utilisateur a le droit
- * d'effectuer l'action sur la note (propriété).
+ * Chaque opération est restreinte aux notes de l'utilisateur authentifié:
+ * le propriétaire (identifiant issu du principal) fait partie de la requête,
+ * et une note d'un autre utilisateur est traitée comme inexistante.
+ * 
+ * Chaque écriture incrémente le compteur des modifications des notes du
+ * propriétaire (User.notesVersion), ETag de sa liste de notes (NoteETags).
+ * 
+ * Les modifications sont protégées par la version de la note (verrouillage
+ * optimiste, Note.version): une modification partie d'une version dépassée
+ * est refusée (409) au lieu d'écraser la modification concurrente.
+ * 
+ * Le contenu des notes est stocké à part, une fois par valeur
+ * (NoteContentStore): une note désigne son contenu par son empreinte.
+ * Chaque version enregistrée d'une note est conservée dans son historique
+ * (NoteRevisionService).
  * 
  * @author Demo
  */
@@ -32,154 +65,468 @@ import java.util.stream.Collectors;
 @Transactional
 public class NoteService {
     
+    private static final String TITLE = "title";
+    private static final String CONTENT = "content";
+    private static final String VERSION = "version";
+    
     @Autowired
     private NoteRepository noteRepository;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private NoteSyncService noteSyncService;
+    
+    @Autowired
+    private NoteContentStore noteContentStore;
+    
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+    
+    @Autowired
+    private Validator validator;
+    
     /**
      * Crée une nouvelle note pour un utilisateur.
      * 
+     * Le propriétaire est référencé par son identifiant (proxy JPA),
+     * sans être relu en base. Un contenu déjà stocké (même note ailleurs,
+     * modèle...) n'est pas réécrit: seul son compteur de références change.
+     * 
      * @param request Les données de la note à créer
-     * @param username Le nom de l'utilisateur créant la note
+     * @param owner L'utilisateur authentifié créant la note
      * @return La note créée
-     * @throws UsernameNotFoundException Si l'utilisateur n'existe pas
      */
-    public NoteResponse createNote(NoteRequest request, String username) {
-        // Récupération de l'utilisateur
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé"));
-        
+    public NoteResponse createNote(NoteRequest request, UserPrincipal owner) {
         // Création de la note
         Note note = new Note();
         note.setTitle(request.getTitle());
-        note.setContent(request.getContent());
-        note.setUser(user);
+        note.setUser(userRepository.getReferenceById(owner.getId()));
+        NoteContentStore.References references = noteContentStore.references();
+        note.setBody(references.acquire(request.getContent()));
+        references.apply();
         
-        // Sauvegarde en base
-        Note savedNote = noteRepository.save(note);
+        // Sauvegarde en base (avant la première version de son historique)
+        Note savedNote = noteRepository.saveAndFlush(note);
+        noteRevisionService.record(savedNote, null, request.getContent());
+        userRepository.incrementNotesVersion(owner.getId());
+        publishSaved(savedNote, request.getContent(), owner);
         
         // Conversion en DTO
-        return convertToResponse(savedNote);
+        return convertToResponse(savedNote, request.getContent(), owner);
     }
     
     /**
-     * Récupère toutes les notes d'un utilisateur.
+     * Récupère une page des résumés de notes d'un utilisateur (pagination par curseur).
      * 
+     * Les résumés sont lus par projection, sans le contenu des notes.
      * Les notes sont triées par date de modification décroissante
-     * (les plus récentes en premier).
+     * (les plus récentes en premier), puis par identifiant décroissant.
+     * 
+     * Le curseur désigne la dernière note de la page précédente: la page
+     * suivante reste cohérente même si des notes sont modifiées entre deux
+     * appels, et son coût ne dépend pas de sa position dans la liste.
      * 
-     * @param username Le nom de l'utilisateur
-     * @return Liste des notes de l'utilisateur
-     * @throws UsernameNotFoundException Si l'utilisateur n'existe pas
+     * @param owner L'utilisateur authentifié
+     * @param cursor Le curseur renvoyé par la page précédente, ou null pour la première page
+     * @param limit Le nombre maximal de notes de la page
+     * @return Les résumés de la page et le curseur de la page suivante
+     * @throws InvalidRequestException Si le curseur est invalide
      */
     @Transactional(readOnly = true)
-    public List<NoteResponse> getUserNotes(String username) {
-        // Récupération de l'utilisateur
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé"));
+    public NotePageResponse getUserNotes(UserPrincipal owner, String cursor, int limit) {
+        // Une note de plus que demandé: indique s'il existe une page suivante
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<NoteSummaryResponse> notes;
+        if (cursor == null || cursor.isEmpty()) {
+            notes = noteRepository.findFirstPage(owner.getId(), fetchLimit);
+        } else {
+            NoteCursor position = NoteCursor.decode(cursor);
+            notes = noteRepository.findPageAfter(
+                owner.getId(), position.updatedAt(), position.id(), fetchLimit);
+        }
         
-        // Récupération et conversion des notes
-        return noteRepository.findByUserIdOrderByUpdatedAtDesc(user.getId())
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        String next = null;
+        if (notes.size() > limit) {
+            notes = notes.subList(0, limit);
+            NoteSummaryResponse last = notes.get(limit - 1);
+            next = new NoteCursor(LocalDateTime.parse(last.getUpdatedAt()), last.getId()).encode();
+        }
+        
+        return new NotePageResponse(notes, next);
+    }
+    
+    /**
+     * Retourne l'ETag de la liste des notes d'un utilisateur.
+     * 
+     * Une lecture par clé primaire du compteur des modifications, sans lire
+     * les notes. À appeler avant de lire la liste: une modification
+     * enregistrée entre les deux donne une liste plus récente que l'ETag
+     * (redemandée à la prochaine requête), jamais l'inverse.
+     * 
+     * @param owner L'utilisateur authentifié
+     * @return L'ETag de la liste
+     */
+    @Transactional(readOnly = true)
+    public String getListETag(UserPrincipal owner) {
+        long version = userRepository.findNotesVersionById(owner.getId()).orElse(0L);
+        return NoteETags.list(owner.getId(), version);
+    }
+    
+    /**
+     * Retourne l'ETag d'une note, sans la charger.
+     * 
+     * @param noteId L'identifiant de la note
+     * @param owner L'utilisateur authentifié
+     * @return L'ETag de la note
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
+     */
+    @Transactional(readOnly = true)
+    public String getNoteETag(Long noteId, UserPrincipal owner) {
+        return noteRepository.findVersionByIdAndUserId(noteId, owner.getId())
+                .map(version -> NoteETags.note(noteId, version))
+                .orElseThrow(() -> ResourceNotFoundException.NOTE);
     }
     
     /**
      * Récupère une note spécifique par son ID.
      * 
-     * Vérifie que la note appartient bien à l'utilisateur demandeur.
+     * La note est recherchée par identifiant ET propriétaire, en une seule
+     * requête: une note d'un autre utilisateur est traitée comme inexistante.
      * 
      * @param noteId L'identifiant de la note
-     * @param username Le nom de l'utilisateur
+     * @param owner L'utilisateur authentifié
      * @return La note demandée
-     * @throws RuntimeException Si la note n'existe pas ou n'appartient pas à l'utilisateur
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
      */
     @Transactional(readOnly = true)
-    public NoteResponse getNoteById(Long noteId, String username) {
-        Note note = noteRepository.findById(noteId)
-                .orElseThrow(() -> new RuntimeException("Note non trouvée"));
-        
-        // Vérification de la propriété
-        if (!note.getUser().getUsername().equals(username)) {
-            throw new RuntimeException("Accès non autorisé à cette note");
-        }
+    public NoteResponse getNoteById(Long noteId, UserPrincipal owner) {
+        Note note = noteRepository.findWithContentByIdAndUserId(noteId, owner.getId())
+                .orElseThrow(() -> ResourceNotFoundException.NOTE);
         
-        return convertToResponse(note);
+        return convertToResponse(note, note.getContent(), owner);
     }
     
     /**
      * Met à jour une note existante.
      * 
-     * Seul le propriétaire de la note peut la modifier.
+     * Seul le propriétaire de la note peut la modifier: la note est
+     * recherchée par identifiant et propriétaire.
      * Les dates de modification sont automatiquement mises à jour.
      * 
+     * La version attendue peut être donnée par l'ETag (If-Match, 412 si
+     * elle ne correspond pas) ou par le corps de la requête (409). Une
+     * modification concurrente enregistrée entre la lecture et l'écriture
+     * est détectée par l'UPDATE lui-même (409).
+     * 
      * @param noteId L'identifiant de la note à modifier
      * @param request Les nouvelles données de la note
-     * @param username Le nom de l'utilisateur
+     * @param owner L'utilisateur authentifié
+     * @param ifMatch L'en-tête If-Match de la requête, ou null
      * @return La note mise à jour
-     * @throws RuntimeException Si la note n'existe pas ou n'appartient pas à l'utilisateur
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
+     * @throws PreconditionFailedException Si la note a changé depuis la version attendue (If-Match)
+     * @throws ConflictException Si la note a changé depuis la version attendue (corps de la requête)
      */
-    public NoteResponse updateNote(Long noteId, NoteRequest request, String username) {
-        // Récupération de la note
-        Note note = noteRepository.findById(noteId)
-                .orElseThrow(() -> new RuntimeException("Note non trouvée"));
+    public NoteResponse updateNote(Long noteId, NoteRequest request, UserPrincipal owner, String ifMatch) {
+        // Récupération de la note (propriété vérifiée par la requête)
+        Note note = findForWrite(noteId, owner, ifMatch, request.getVersion());
+        return applyChanges(note, request.getTitle(), request.getContent(), owner);
+    }
+    
+    /**
+     * Modifie une partie d'une note selon un JSON Merge Patch (RFC 7396).
+     * 
+     * Seuls les membres title et content présents dans le patch sont
+     * modifiés (null les supprimerait: refusé, ils sont obligatoires). Le
+     * membre version, s'il est présent, est la version attendue (409).
+     * Les autres membres sont ignorés.
+     * 
+     * @param noteId L'identifiant de la note à modifier
+     * @param patch Le patch (objet JSON)
+     * @param owner L'utilisateur authentifié
+     * @param ifMatch L'en-tête If-Match de la requête, ou null
+     * @return La note mise à jour
+     * @throws InvalidRequestException Si le patch est invalide ou donne une note invalide
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
+     * @throws PreconditionFailedException Si la note a changé depuis la version attendue (If-Match)
+     * @throws ConflictException Si la note a changé depuis la version attendue (membre version)
+     */
+    public NoteResponse mergePatchNote(Long noteId, JsonNode patch, UserPrincipal owner, String ifMatch) {
+        if (patch == null || !patch.isObject()) {
+            throw new InvalidRequestException("Le patch doit être un objet JSON");
+        }
+        Long version = null;
+        if (patch.hasNonNull(VERSION)) {
+            if (!patch.get(VERSION).canConvertToLong()) {
+                throw new InvalidRequestException("La version doit être un entier");
+            }
+            version = patch.get(VERSION).asLong();
+        }
+        
+        Note note = findForWrite(noteId, owner, ifMatch, version);
+        String title = patch.has(TITLE) ? patchText(patch, TITLE) : note.getTitle();
+        String content = patch.has(CONTENT) ? patchText(patch, CONTENT) : note.getContent();
+        validate(title, content);
+        return applyChanges(note, title, content, owner);
+    }
+    
+    /**
+     * Modifie des plages de texte du titre et du contenu d'une note.
+     * 
+     * Seules les parties modifiées sont transmises: une petite modification
+     * d'une longue note ne renvoie pas tout son contenu.
+     * 
+     * @param noteId L'identifiant de la note à modifier
+     * @param request Les modifications, appliquées dans l'ordre
+     * @param owner L'utilisateur authentifié
+     * @param ifMatch L'en-tête If-Match de la requête, ou null
+     * @return La note mise à jour
+     * @throws InvalidRequestException Si une plage est hors du texte, ou si la note obtenue est invalide
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
+     * @throws PreconditionFailedException Si la note a changé depuis la version attendue (If-Match)
+     * @throws ConflictException Si la note a changé depuis la version attendue (corps de la requête)
+     */
+    public NoteResponse editNote(Long noteId, NoteTextEditsRequest request, UserPrincipal owner, String ifMatch) {
+        Note note = findForWrite(noteId, owner, ifMatch, request.getVersion());
+        StringBuilder title = new StringBuilder(note.getTitle());
+        StringBuilder content = new StringBuilder(note.getContent());
         
-        // Vérification de la propriété
-        if (!note.getUser().getUsername().equals(username)) {
-            throw new RuntimeException("Accès non autorisé à cette note");
+        for (NoteTextEdit edit : request.getEdits()) {
+            StringBuilder target = switch (edit.getField()) {
+                case TITLE -> title;
+                case CONTENT -> content;
+                default -> throw new InvalidRequestException("Champ inconnu: " + edit.getField());
+            };
+            if (edit.getStart() > edit.getEnd() || edit.getEnd() > target.length()) {
+                throw new InvalidRequestException("Plage [" + edit.getStart() + ", " + edit.getEnd()
+                        + "[ hors du champ " + edit.getField() + " (" + target.length() + " caractères)");
+            }
+            target.replace(edit.getStart(), edit.getEnd(), edit.getText());
         }
         
+        validate(title.toString(), content.toString());
+        return applyChanges(note, title.toString(), content.toString(), owner);
+    }
+    
+    /**
+     * Restaure une version antérieure d'une note.
+     * 
+     * La version est enregistrée comme une modification (PUT) de son titre
+     * et de son contenu: l'historique n'est pas réécrit, la restauration
+     * en devient la version la plus récente.
+     * 
+     * @param noteId L'identifiant de la note
+     * @param revision Le numéro de la version à restaurer
+     * @param owner L'utilisateur authentifié
+     * @param ifMatch L'en-tête If-Match de la requête, ou null
+     * @return La note restaurée
+     * @throws ResourceNotFoundException Si la note ou la version n'existe pas
+     * @throws PreconditionFailedException Si la note a changé depuis la version attendue
+     */
+    public NoteResponse restoreRevision(Long noteId, Long revision, UserPrincipal owner, String ifMatch) {
+        Note note = findForWrite(noteId, owner, ifMatch, null);
+        NoteRevisionResponse restored = noteRevisionService.findRevision(noteId, revision)
+                .orElseThrow(() -> ResourceNotFoundException.REVISION);
+        return applyChanges(note, restored.getTitle(), restored.getContent(), owner);
+    }
+    
+    /**
+     * Enregistre le nouveau titre et le nouveau contenu d'une note.
+     * 
+     * Sans changement, rien n'est écrit (ni UPDATE, ni nouvelle version,
+     * ni réindexation). Sinon l'UPDATE ne porte que sur les colonnes
+     * modifiées (@DynamicUpdate) et vérifie la version de la note.
+     * 
+     * Le contenu est comparé par empreinte: un contenu inchangé n'est pas
+     * relu, et un nouveau contenu déjà stocké n'est pas réécrit. Un contenu
+     * modifié est relu pour enregistrer ses différences dans l'historique.
+     * 
+     * @param note La note à modifier, chargée dans la transaction
+     * @param title Le nouveau titre
+     * @param content Le nouveau contenu
+     * @param owner L'utilisateur authentifié
+     * @return La note mise à jour
+     */
+    private NoteResponse applyChanges(Note note, String title, String content, UserPrincipal owner) {
+        NoteContentStore.References references = noteContentStore.references();
+        NoteContent body = references.replace(note.getBody(), content);
+        if (title.equals(note.getTitle()) && body == note.getBody()) {
+            return convertToResponse(note, content, owner);
+        }
+        String previous = body == note.getBody() ? content : note.getContent();
+        
         // Mise à jour des champs
-        note.setTitle(request.getTitle());
-        note.setContent(request.getContent());
+        note.setTitle(title);
+        note.setBody(body);
+        references.apply();
         
-        // Sauvegarde (les dates sont automatiquement mises à jour par @PreUpdate)
-        Note updatedNote = noteRepository.save(note);
+        // Écriture immédiate: @PreUpdate renseigne la date de modification
+        // avant la construction de la réponse, et un conflit de version est
+        // signalé ici (409)
+        Note updatedNote = noteRepository.saveAndFlush(note);
+        noteRevisionService.record(updatedNote, previous, content);
+        userRepository.incrementNotesVersion(owner.getId());
+        publishSaved(updatedNote, content, owner);
         
-        return convertToResponse(updatedNote);
+        return convertToResponse(updatedNote, content, owner);
+    }
+    
+    /**
+     * Lit un membre texte d'un JSON Merge Patch.
+     * 
+     * @return Le texte, ou null si le membre vaut null (refusé par la validation)
+     * @throws InvalidRequestException Si le membre n'est pas une chaîne
+     */
+    private static String patchText(JsonNode patch, String field) {
+        JsonNode value = patch.get(field);
+        if (value.isNull()) {
+            return null;
+        }
+        if (!value.isTextual()) {
+            throw new InvalidRequestException("Le champ " + field + " doit être une chaîne de caractères");
+        }
+        return value.textValue();
+    }
+    
+    /**
+     * Valide le titre et le contenu obtenus par une modification partielle
+     * (contraintes de NoteRequest).
+     * 
+     * @throws InvalidRequestException Si la note obtenue est invalide
+     */
+    private void validate(String title, String content) {
+        Set<ConstraintViolation<NoteRequest>> violations = validator.validate(new NoteRequest(title, content));
+        if (!violations.isEmpty()) {
+            throw new InvalidRequestException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
     }
     
     /**
      * Supprime une note.
      * 
-     * Seul le propriétaire de la note peut la supprimer.
+     * Seul le propriétaire de la note peut la supprimer. La note est lue
+     * (sans son contenu) pour rendre sa référence sur le contenu; le DELETE
+     * vérifie qu'elle n'a pas changé entre-temps (409). Son historique est
+     * supprimé avec elle. La suppression est tracée pour la synchronisation
+     * des clients (NoteSyncService).
+     * 
+     * Avec un ETag attendu (If-Match), la version lue est d'abord comparée
+     * à celle de l'ETag (412).
      * 
      * @param noteId L'identifiant de la note à supprimer
-     * @param username Le nom de l'utilisateur
-     * @throws RuntimeException Si la note n'existe pas ou n'appartient pas à l'utilisateur
+     * @param owner L'utilisateur authentifié
+     * @param ifMatch L'en-tête If-Match de la requête, ou null
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
+     * @throws PreconditionFailedException Si la note a changé depuis la version attendue
      */
-    public void deleteNote(Long noteId, String username) {
-        // Récupération de la note
-        Note note = noteRepository.findById(noteId)
-                .orElseThrow(() -> new RuntimeException("Note non trouvée"));
-        
-        // Vérification de la propriété
-        if (!note.getUser().getUsername().equals(username)) {
-            throw new RuntimeException("Accès non autorisé à cette note");
-        }
-        
-        // Suppression
+    public void deleteNote(Long noteId, UserPrincipal owner, String ifMatch) {
+        Note note = findForWrite(noteId, owner, ifMatch, null);
+        NoteContentStore.References references = noteContentStore.references();
+        references.release(note.getBody());
+        noteRevisionService.delete(List.of(noteId), references);
+        references.apply();
         noteRepository.delete(note);
+        userRepository.incrementNotesVersion(owner.getId());
+        noteSyncService.recordDeletions(owner.getId(), List.of(noteId));
+        eventPublisher.publishEvent(NoteChangedEvent.deleted(noteId, owner.getId()));
+    }
+    
+    /**
+     * Charge une note à modifier ou supprimer, en vérifiant la version
+     * attendue si elle est fournie.
+     * 
+     * La vérification porte sur la version lue; l'UPDATE ou le DELETE
+     * vérifie ensuite qu'elle n'a pas changé jusqu'à l'écriture.
+     * 
+     * @param noteId L'identifiant de la note
+     * @param owner L'utilisateur authentifié
+     * @param ifMatch L'en-tête If-Match de la requête, ou null
+     * @param version La version attendue (corps de la requête), ou null
+     * @return La note
+     * @throws ResourceNotFoundException Si la note n'existe pas ou appartient à un autre utilisateur
+     * @throws PreconditionFailedException Si la note ne correspond pas à l'ETag attendu
+     * @throws ConflictException Si la note n'est plus à la version attendue
+     */
+    private Note findForWrite(Long noteId, UserPrincipal owner, String ifMatch, Long version) {
+        Note note = noteRepository.findByIdAndUserId(noteId, owner.getId())
+                .orElseThrow(() -> ResourceNotFoundException.NOTE);
+        if (ifMatch != null && !NoteETags.matches(ifMatch, NoteETags.note(note.getId(), note.getVersion()))) {
+            throw PreconditionFailedException.NOTE_MODIFIED;
+        }
+        if (version != null && !version.equals(note.getVersion())) {
+            throw ConflictException.NOTE_MODIFIED;
+        }
+        return note;
+    }
+    
+    /**
+     * Signale une note créée ou modifiée (index de recherche mis à jour après le commit).
+     * 
+     * @param note La note enregistrée
+     * @param content Le contenu de la note
+     * @param owner Le propriétaire de la note
+     */
+    private void publishSaved(Note note, String content, UserPrincipal owner) {
+        eventPublisher.publishEvent(NoteChangedEvent.saved(
+            note.getId(), owner.getId(), note.getTitle(), content, note.getUpdatedAt()));
     }
     
     /**
      * Convertit une entité Note en DTO NoteResponse.
      * 
+     * Le propriétaire est celui de la requête (vérifié par la recherche):
+     * le User associé à la note n'est pas chargé. Le contenu est celui qui
+     * vient d'être lu ou écrit: il n'est pas relu en base.
+     * 
      * @param note L'entité note à convertir
+     * @param content Le contenu de la note
+     * @param owner Le propriétaire de la note
      * @return Le DTO note
      */
-    private NoteResponse convertToResponse(Note note) {
+    private NoteResponse convertToResponse(Note note, String content, UserPrincipal owner) {
         return new NoteResponse(
             note.getId(),
             note.getTitle(),
-            note.getContent(),
+            content,
             note.getCreatedAt().toString(),
             note.getUpdatedAt().toString(),
-            note.getUser().getId(),
-            note.getUser().getUsername()
+            note.getVersion(),
+            owner.getId(),
+            owner.getUsername()
         );
     }
+    
+    /**
+     * Position dans la liste des notes: (updatedAt, id) de la dernière note lue.
+     * 
+     * Transmise au client sous forme opaque (Base64 URL-safe).
+     */
+    private record NoteCursor(LocalDateTime updatedAt, Long id) {
+        
+        String encode() {
+            String raw = updatedAt + "," + id;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        static NoteCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(',');
+                return new NoteCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new InvalidRequestException("Curseur de pagination invalide");
+            }
+        }
+    }
 }
@@ -0,0 +1,243 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.NoteChangesResponse;
+import com.demo.notes.dto.NoteSummaryResponse;
+import com.demo.notes.exception.InvalidRequestException;
+import com.demo.notes.model.NoteTombstone;
+import com.demo.notes.repository.NoteRepository;
+import com.demo.notes.repository.NoteTombstoneRepository;
+import com.demo.notes.security.UserPrincipal;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Service de synchronisation incrémentale des notes.
+ *
+ * Un client qui garde la liste de ses notes (résumés) ne demande que les
+ * changements depuis sa dernière synchronisation: notes créées ou
+ * modifiées (date de modification), et notes supprimées (traces
+ * NoteTombstone, enregistrées dans la transaction de la suppression).
+ *
+ * Le jeton remis au client est la date de la synchronisation. La suivante
+ * relit les changements depuis cette date moins notes.sync.margin: la date
+ * de modification d'une note est fixée avant le commit de sa transaction,
+ * une note encore en cours d'enregistrement lors d'une synchronisation
+ * peut donc porter une date antérieure à son jeton.
+ *
+ * Les traces sont purgées après notes.sync.tombstone-retention: un jeton
+ * plus ancien reçoit la liste complète.
+ *
+ * La liste complète et les changements sont paginés comme la liste des
+ * notes (curseur sur updatedAt, id): un utilisateur aux dizaines de
+ * milliers de notes, ou qui vient d'en importer, ne les reçoit pas en une
+ * réponse. Le curseur porte la date du début de la synchronisation, dont
+ * le jeton n'est remis qu'avec la dernière page: les notes modifiées ou
+ * supprimées pendant le parcours des pages sont renvoyées par la
+ * synchronisation suivante.
+ *
+ * @author Demo
+ */
+@Slf4j
+@Service
+public class NoteSyncService {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTombstoneRepository noteTombstoneRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Durée de conservation des traces des notes supprimées.
+     */
+    @Value("${notes.sync.tombstone-retention:P30D}")
+    private Duration tombstoneRetention;
+
+    /**
+     * Marge de relecture avant le jeton (transactions en cours lors de la
+     * synchronisation précédente).
+     */
+    @Value("${notes.sync.margin:PT1M}")
+    private Duration margin;
+
+    /**
+     * Récupère les changements des notes d'un utilisateur depuis une synchronisation.
+     *
+     * @param owner L'utilisateur authentifié
+     * @param since Le jeton de la synchronisation précédente, ou null pour la liste complète
+     * @param cursor Le curseur de la page précédente, ou null pour la première page
+     * @param limit Le nombre maximal de notes (et de notes supprimées) d'une page
+     * @return Les changements, et le jeton de la synchronisation suivante
+     *         (dernière page) ou le curseur de la page suivante
+     * @throws InvalidRequestException Si le jeton ou le curseur est invalide
+     */
+    @Transactional(readOnly = true)
+    public NoteChangesResponse getChanges(UserPrincipal owner, String since, String cursor, int limit) {
+        if (cursor != null && !cursor.isEmpty()) {
+            SyncCursor position = SyncCursor.decode(cursor);
+            return position.from() == null
+                    ? getFullPage(owner, position, limit)
+                    : getChangesPage(owner, position, limit);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = since == null || since.isEmpty() ? null : decode(since).minus(margin);
+        if (from == null || from.isBefore(now.minus(tombstoneRetention))) {
+            // Première synchronisation, ou traces déjà purgées: liste complète
+            return getFullPage(owner, new SyncCursor(now, null, false, null, null), limit);
+        }
+        return getChangesPage(owner, new SyncCursor(now, from, false, null, null), limit);
+    }
+
+    /**
+     * Lit une page de la liste complète.
+     */
+    private NoteChangesResponse getFullPage(UserPrincipal owner, SyncCursor position, int limit) {
+        // Une note de plus que demandé: indique s'il existe une page suivante
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<NoteSummaryResponse> notes = position.id() == null
+                ? noteRepository.findFirstPage(owner.getId(), fetchLimit)
+                : noteRepository.findPageAfter(owner.getId(), position.after(), position.id(), fetchLimit);
+
+        if (notes.size() > limit) {
+            notes = notes.subList(0, limit);
+            return new NoteChangesResponse(true, notes, List.of(), null, position.afterNote(notes.get(limit - 1)));
+        }
+        return new NoteChangesResponse(true, notes, List.of(), encode(position.start()), null);
+    }
+
+    /**
+     * Lit une page des changements depuis une synchronisation: les notes
+     * créées ou modifiées (des plus récentes aux plus anciennes), puis les
+     * notes supprimées (des plus anciennes aux plus récentes). La page qui
+     * termine les notes commence les suppressions.
+     */
+    private NoteChangesResponse getChangesPage(UserPrincipal owner, SyncCursor position, int limit) {
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<NoteSummaryResponse> notes = List.of();
+        if (!position.deletions()) {
+            notes = position.id() == null
+                    ? noteRepository.findChangedSince(owner.getId(), position.from(), fetchLimit)
+                    : noteRepository.findChangedAfter(owner.getId(), position.from(),
+                            position.after(), position.id(), fetchLimit);
+            if (notes.size() > limit) {
+                notes = notes.subList(0, limit);
+                return new NoteChangesResponse(false, notes, List.of(), null,
+                        position.afterNote(notes.get(limit - 1)));
+            }
+        }
+
+        List<NoteTombstone> tombstones = position.deletions() && position.id() != null
+                ? noteTombstoneRepository.findDeletedAfter(owner.getId(), position.after(), position.id(), fetchLimit)
+                : noteTombstoneRepository.findDeletedSince(owner.getId(), position.from(), fetchLimit);
+        String next = null;
+        if (tombstones.size() > limit) {
+            tombstones = tombstones.subList(0, limit);
+            next = position.afterTombstone(tombstones.get(limit - 1));
+        }
+        List<Long> deleted = tombstones.stream().map(NoteTombstone::getNoteId).toList();
+        return new NoteChangesResponse(false, notes, deleted, next == null ? encode(position.start()) : null, next);
+    }
+
+    /**
+     * Enregistre la suppression de notes, dans la transaction de la suppression.
+     *
+     * Les traces sont écrites au flush, avec les autres écritures de la
+     * transaction (lots JDBC).
+     *
+     * @param userId L'identifiant du propriétaire des notes
+     * @param noteIds Les identifiants des notes supprimées
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeletions(Long userId, Collection<Long> noteIds) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long noteId : noteIds) {
+            entityManager.persist(new NoteTombstone(noteId, userId, now));
+        }
+    }
+
+    /**
+     * Supprime périodiquement les traces arrivées en fin de conservation.
+     */
+    @Scheduled(fixedDelayString = "${notes.sync.purge-interval:PT1H}",
+               initialDelayString = "${notes.sync.purge-interval:PT1H}")
+    public void purgeTombstones() {
+        int purged = noteTombstoneRepository.deleteOlderThan(LocalDateTime.now().minus(tombstoneRetention));
+        if (purged > 0) {
+            log.info("{} trace(s) de note(s) supprimée(s) purgée(s)", purged);
+        }
+    }
+
+    private static String encode(LocalDateTime time) {
+        return encode(time.toString());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static LocalDateTime decode(String token) {
+        try {
+            return LocalDateTime.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Jeton de synchronisation invalide");
+        }
+    }
+
+    /**
+     * Position dans une synchronisation paginée: début de la synchronisation
+     * (jeton remis avec la dernière page), date des changements lus (null
+     * pour la liste complète), puis dernier élément lu: (updatedAt, id) d'une
+     * note, ou (deletedAt, noteId) d'une trace si les notes sont terminées
+     * (null pour la première page).
+     *
+     * Transmise au client sous forme opaque (Base64 URL-safe).
+     */
+    private record SyncCursor(LocalDateTime start, LocalDateTime from, boolean deletions,
+                              LocalDateTime after, Long id) {
+
+        String afterNote(NoteSummaryResponse note) {
+            return new SyncCursor(start, from, false, LocalDateTime.parse(note.getUpdatedAt()), note.getId())
+                    .encode();
+        }
+
+        String afterTombstone(NoteTombstone tombstone) {
+            return new SyncCursor(start, from, true, tombstone.getDeletedAt(), tombstone.getNoteId()).encode();
+        }
+
+        String encode() {
+            return NoteSyncService.encode(start + "," + from + "," + deletions + "," + after + "," + id);
+        }
+
+        static SyncCursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split(",", 5);
+                return new SyncCursor(LocalDateTime.parse(parts[0]),
+                        parts[1].equals("null") ? null : LocalDateTime.parse(parts[1]),
+                        Boolean.parseBoolean(parts[2]), LocalDateTime.parse(parts[3]), Long.parseLong(parts[4]));
+            } catch (RuntimeException e) {
+                throw new InvalidRequestException("Curseur de synchronisation invalide");
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.demo.notes.service;
+
+import com.demo.notes.model.RefreshToken;
+import com.demo.notes.repository.RefreshTokenRepository;
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Service de gestion des refresh tokens.
+ *
+ * Un login délivre un token d'accès de courte durée et un refresh token.
+ * Le refresh token s'échange contre un nouveau couple de tokens sans
+ * vérification du mot de passe: une recherche indexée et une signature
+ * HMAC suffisent, au lieu d'un hachage BCrypt.
+ *
+ * Rotation et détection de réutilisation:
+ * - Chaque refresh token est à usage unique et remplacé à chaque échange
+ * - Les tokens issus d'un même login forment une famille
+ * - La présentation d'un token déjà échangé révèle un vol: toute la
+ *   famille est révoquée (le voleur comme l'utilisateur doivent se reconnecter)
+ *
+ * @author Demo
+ */
+@Slf4j
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    /**
+     * Taille (en octets) de la partie aléatoire d'un refresh token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Durée de validité d'un refresh token.
+     */
+    @Value("${jwt.refresh.expiration:P30D}")
+    private Duration expiration;
+
+    /**
+     * Délivre un refresh token à un utilisateur qui vient de se connecter
+     * (nouvelle famille).
+     *
+     * @param principal L'utilisateur authentifié
+     * @return Le refresh token à remettre au client
+     */
+    public String issue(UserPrincipal principal) {
+        return create(principal.getId(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Échange un refresh token contre un nouveau (rotation).
+     *
+     * @param token Le refresh token présenté par le client
+     * @return Le nouvel utilisateur authentifié et son nouveau refresh token,
+     *         ou vide si le token est inconnu, expiré ou déjà utilisé
+     */
+    public Optional<Rotation> rotate(String token) {
+        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHashWithUser(digest(token));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        RefreshToken current = found.get();
+        if (current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+
+        // Marquage atomique: échoue si le token a déjà été échangé
+        if (refreshTokenRepository.markUsed(current.getId()) == 0) {
+            log.warn("Réutilisation d'un refresh token détectée pour l'utilisateur {}: famille révoquée",
+                    current.getUser().getUsername());
+            refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            return Optional.empty();
+        }
+
+        UserPrincipal principal = UserPrincipal.fromUser(current.getUser());
+        String next = create(principal.getId(), current.getFamilyId());
+        return Optional.of(new Rotation(principal, next));
+    }
+
+    /**
+     * Révoque la famille d'un refresh token (logout).
+     *
+     * @param token Le refresh token présenté par le client
+     */
+    public void revoke(String token) {
+        refreshTokenRepository.findByTokenHashWithUser(digest(token))
+                .ifPresent(found -> refreshTokenRepository.deleteByFamilyId(found.getFamilyId()));
+    }
+
+    /**
+     * Révoque tous les refresh tokens d'un utilisateur.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     */
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Supprime périodiquement les refresh tokens expirés.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}",
+               initialDelayString = "${jwt.revocation.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("{} refresh token(s) expiré(s) purgé(s)", purged);
+        }
+    }
+
+    /**
+     * Crée et enregistre un refresh token.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @param familyId La famille du token
+     * @return Le token à remettre au client (seule son empreinte est stockée)
+     */
+    private String create(Long userId, String familyId) {
+        byte[] random = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(random);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(digest(token));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUser(userRepository.getReferenceById(userId));
+        refreshToken.setExpiresAt(LocalDateTime.now().plus(expiration));
+        refreshTokenRepository.save(refreshToken);
+
+        return token;
+    }
+
+    /**
+     * Calcule l'empreinte SHA-256 d'un token, encodée en Base64.
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Résultat d'un rafraîchissement réussi.
+     */
+    public static class Rotation {
+        private final UserPrincipal principal;
+        private final String refreshToken;
+
+        public Rotation(UserPrincipal principal, String refreshToken) {
+            this.principal = principal;
+            this.refreshToken = refreshToken;
+        }
+
+        public UserPrincipal getPrincipal() {
+            return principal;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+    }
+}
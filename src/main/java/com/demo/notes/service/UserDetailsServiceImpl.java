@@ -1,18 +1,27 @@
 package com.demo.notes.service;
 
+import com.demo.notes.event.UserSecurityChangedEvent;
 import com.demo.notes.model.User;
 import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.time.Duration;
 
 /**
  * Service d'implémentation de UserDetailsService pour Spring Security.
@@ -23,51 +32,137 @@ import java.util.stream.Collectors;
  * Spring Security utilise ce service pour:
  * - Vérifier les identifiants lors du login
  * - Charger les rôles et permissions de l'utilisateur
- * - Valider les tokens JWT
+ * - Valider les tokens JWT (lorsque l'authentification sans état est désactivée)
+ * 
+ * Il enregistre aussi les mots de passe ré-encodés par Spring Security
+ * lorsque leur hash n'utilise pas le coût BCrypt courant.
+ * 
+ * Les utilisateurs chargés sont conservés dans un cache borné (taille et
+ * durée de vie), vidé entrée par entrée après le commit de tout changement
+ * concernant l'utilisateur (création, modification, suppression).
  * 
  * @author Demo
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+    
+    private static final String CACHE_NAME = "security.user-details";
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Nombre maximal d'utilisateurs conservés en cache.
+     */
+    @Value("${security.user-cache.maximum-size:10000}")
+    private long maximumSize;
+    
+    /**
+     * Durée de vie d'une entrée du cache.
+     */
+    @Value("${security.user-cache.ttl:10m}")
+    private Duration timeToLive;
+    
+    /**
+     * Cache des utilisateurs, indexé par nom d'utilisateur.
+     */
+    private LoadingCache<String, UserPrincipal> cache;
+    
+    /**
+     * Nombre d'entrées retirées suite à un changement de l'utilisateur.
+     */
+    private Counter invalidations;
+    
+    /**
+     * Construit le cache et enregistre ses métriques
+     * (taux de succès, durée de chargement, évictions).
+     */
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build(this::loadFromDatabase);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        invalidations = Counter.builder("cache.invalidations")
+                .description("Entrées retirées suite à un changement de l'utilisateur")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+    
     /**
      * Charge un utilisateur par son nom d'utilisateur.
      * 
      * Cette méthode est appelée automatiquement par Spring Security
      * lors de l'authentification. Elle récupère l'utilisateur depuis
-     * la base de données et convertit ses informations en objet UserDetails.
+     * le cache ou, à défaut, depuis la base de données.
      * 
      * @param username Le nom d'utilisateur à rechercher
      * @return Les détails de l'utilisateur pour Spring Security
      * @throws UsernameNotFoundException Si l'utilisateur n'existe pas
      */
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return cache.get(username);
+    }
+    
+    /**
+     * Enregistre le nouveau hash d'un mot de passe.
+     * 
+     * Appelée par Spring Security après une connexion réussie lorsque
+     * le hash stocké n'utilise pas le coût BCrypt courant.
+     * 
+     * @param user L'utilisateur qui vient de s'authentifier
+     * @param newPassword Le mot de passe ré-encodé
+     * @return L'utilisateur avec son nouveau hash
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        
+        // Le cache sera rafraîchi après le commit
+        UserPrincipal principal = (UserPrincipal) user;
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(
+            principal.getId(), principal.getUsername(), UserSecurityChangedEvent.Change.UPDATED));
+        
+        return principal.withPassword(newPassword);
+    }
+    
+    /**
+     * Retire un utilisateur du cache après le commit d'un changement le concernant.
+     * 
+     * @param event L'événement de changement
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        cache.invalidate(event.getUsername());
+        invalidations.increment();
+    }
+    
+    /**
+     * Charge un utilisateur depuis la base de données (rôles compris, chargés en EAGER).
+     * 
+     * @param username Le nom d'utilisateur à rechercher
+     * @return Le principal correspondant
+     * @throws UsernameNotFoundException Si l'utilisateur n'existe pas (rien n'est mis en cache)
+     */
+    private UserPrincipal loadFromDatabase(String username) {
         // Recherche de l'utilisateur dans la base de données
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> 
                     new UsernameNotFoundException("Utilisateur non trouvé: " + username)
                 );
         
-        // Conversion des rôles en GrantedAuthority pour Spring Security
-        Set<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toSet());
-        
-        // Création et retour de l'objet UserDetails
+        // Conversion en UserPrincipal (identifiant, rôles et version des droits)
         // Spring Security utilisera ces informations pour l'authentification
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(false)
-                .build();
+        return UserPrincipal.fromUser(user);
     }
 }
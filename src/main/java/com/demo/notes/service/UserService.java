@@ -2,12 +2,16 @@ package com.demo.notes.service;
 
 import com.demo.notes.dto.CreateUserRequest;
 import com.demo.notes.dto.UserResponse;
+import com.demo.notes.event.UserSecurityChangedEvent;
+import com.demo.notes.exception.ConflictException;
+import com.demo.notes.exception.InvalidRequestException;
+import com.demo.notes.exception.ResourceNotFoundException;
 import com.demo.notes.model.Role;
 import com.demo.notes.model.User;
 import com.demo.notes.repository.RoleRepository;
 import com.demo.notes.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,44 +42,57 @@ public class UserService {
     private RoleRepository roleRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private NoteContentStore noteContentStore;
+    
+    @Autowired
+    private NoteRevisionService noteRevisionService;
     
     /**
      * Crée un nouvel utilisateur dans le système.
      * 
      * Cette méthode:
      * 1. Vérifie que le nom d'utilisateur n'existe pas déjà
-     * 2. Encode le mot de passe avec BCrypt
-     * 3. Attribue les rôles spécifiés (ou ROLE_USER par défaut)
-     * 4. Sauvegarde l'utilisateur en base
+     * 2. Attribue les rôles spécifiés (ou ROLE_USER par défaut)
+     * 3. Sauvegarde l'utilisateur en base
+     * 
+     * Le mot de passe est encodé en amont, hors transaction, sur le pool
+     * de hachage dédié (voir PasswordHashingExecutor).
      * 
      * @param request Les données du nouvel utilisateur
+     * @param encodedPassword Le mot de passe déjà encodé (BCrypt)
      * @return Les détails de l'utilisateur créé
-     * @throws RuntimeException Si le nom d'utilisateur existe déjà ou si un rôle est invalide
+     * @throws ConflictException Si le nom d'utilisateur existe déjà
+     * @throws InvalidRequestException Si un rôle est invalide
      */
-    public UserResponse createUser(CreateUserRequest request) {
+    public UserResponse createUser(CreateUserRequest request, String encodedPassword) {
         // Vérification de l'unicité du nom d'utilisateur
         if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Ce nom d'utilisateur existe déjà");
+            throw ConflictException.USERNAME_TAKEN;
         }
         
         // Création de l'utilisateur
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(encodedPassword);
         
         // Attribution des rôles
         Set<Role> roles = new HashSet<>();
         if (request.getRoles() == null || request.getRoles().isEmpty()) {
             // Par défaut, attribuer le rôle USER
             Role userRole = roleRepository.findByName("ROLE_USER")
-                    .orElseThrow(() -> new RuntimeException("Rôle USER non trouvé"));
+                    .orElseThrow(() -> new IllegalStateException("Rôle USER non trouvé"));
             roles.add(userRole);
         } else {
             // Récupération des rôles demandés
             for (String roleName : request.getRoles()) {
                 Role role = roleRepository.findByName(roleName)
-                        .orElseThrow(() -> new RuntimeException("Rôle non trouvé: " + roleName));
+                        .orElseThrow(() -> new InvalidRequestException("Rôle non trouvé: " + roleName));
                 roles.add(role);
             }
         }
@@ -84,6 +101,10 @@ public class UserService {
         // Sauvegarde en base de données
         User savedUser = userRepository.save(user);
         
+        // Notification des caches de sécurité (traitée après le commit)
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(
+            savedUser.getId(), savedUser.getUsername(), UserSecurityChangedEvent.Change.CREATED));
+        
         // Conversion en DTO pour la réponse
         return convertToResponse(savedUser);
     }
@@ -105,12 +126,12 @@ public class UserService {
      * 
      * @param id L'identifiant de l'utilisateur
      * @return Les détails de l'utilisateur
-     * @throws RuntimeException Si l'utilisateur n'existe pas
+     * @throws ResourceNotFoundException Si l'utilisateur n'existe pas
      */
     @Transactional(readOnly = true)
     public UserResponse getUserById(Long id) {
         User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+                .orElseThrow(() -> ResourceNotFoundException.USER);
         return convertToResponse(user);
     }
     
@@ -118,16 +139,51 @@ public class UserService {
      * Supprime un utilisateur du système.
      * 
      * La suppression est en cascade: toutes les notes de l'utilisateur
-     * seront également supprimées.
+     * seront également supprimées, avec leur historique (et leurs
+     * références sur leurs contenus rendues). Les tokens de l'utilisateur
+     * sont refusés dès le commit de la suppression.
      * 
      * @param id L'identifiant de l'utilisateur à supprimer
-     * @throws RuntimeException Si l'utilisateur n'existe pas
+     * @throws ResourceNotFoundException Si l'utilisateur n'existe pas
      */
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("Utilisateur non trouvé");
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> ResourceNotFoundException.USER);
+        refreshTokenService.revokeAll(user.getId());
+        
+        // Notes supprimées en cascade: leurs contenus ne sont plus référencés
+        NoteContentStore.References references = noteContentStore.references();
+        user.getNotes().forEach(note -> references.release(note.getBody()));
+        noteRevisionService.deleteByUserId(user.getId(), references);
+        references.apply();
+        userRepository.delete(user);
+        
+        // Notification des caches de sécurité (traitée après le commit)
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(
+            user.getId(), user.getUsername(), UserSecurityChangedEvent.Change.DELETED));
+    }
+    
+    /**
+     * Révoque toutes les sessions d'un utilisateur.
+     * 
+     * Incrémente la version des droits de l'utilisateur: tous les tokens
+     * émis auparavant (qui portent l'ancienne version) sont refusés dès le
+     * commit, sans avoir à connaître ni à stocker leurs identifiants.
+     * Ses refresh tokens sont supprimés: aucun nouveau token ne peut être obtenu
+     * sans se reconnecter.
+     * 
+     * @param id L'identifiant de l'utilisateur
+     * @throws ResourceNotFoundException Si l'utilisateur n'existe pas
+     */
+    public void revokeSessions(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> ResourceNotFoundException.USER);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        refreshTokenService.revokeAll(user.getId());
+        
+        // Notification des caches de sécurité (traitée après le commit)
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(
+            user.getId(), user.getUsername(), UserSecurityChangedEvent.Change.UPDATED));
     }
     
     /**
@@ -0,0 +1,88 @@
+package db.migration;
+
+import com.demo.notes.model.NoteContentConverter;
+import com.demo.notes.service.NoteContentStore;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Migration des contenus des notes vers note_contents (créée par V9).
+ *
+ * L'empreinte est celle du texte, pas de la valeur stockée: un contenu déjà
+ * compressé (NoteContentConverter) est décompressé pour la calculer, puis
+ * recopié tel quel. Les notes identiques partagent une seule ligne, dont le
+ * compteur est leur nombre.
+ *
+ * @author Demo
+ */
+public class V10__Backfill_note_contents extends BaseJavaMigration {
+
+    /**
+     * Nombre de lignes par lot JDBC.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        // Décodage seul: indépendant du seuil de compression
+        NoteContentConverter converter = new NoteContentConverter();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<String, Long> refCounts = new HashMap<>();
+
+        try (Statement select = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO note_contents (hash, data, ref_count, released_at) VALUES (?, ?, 0, ?)");
+             PreparedStatement link = connection.prepareStatement(
+                     "UPDATE notes SET content_hash = ? WHERE id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet notes = select.executeQuery("SELECT id, content FROM notes")) {
+                int pending = 0;
+                while (notes.next()) {
+                    byte[] data = notes.getBytes(2);
+                    String hash = NoteContentStore.hash(converter.convertToEntityAttribute(data));
+                    if (refCounts.merge(hash, 1L, Long::sum) == 1) {
+                        insert.setString(1, hash);
+                        insert.setBytes(2, data);
+                        insert.setTimestamp(3, now);
+                        insert.addBatch();
+                    }
+                    link.setString(1, hash);
+                    link.setLong(2, notes.getLong(1));
+                    link.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        insert.executeBatch();
+                        link.executeBatch();
+                        pending = 0;
+                    }
+                }
+                insert.executeBatch();
+                link.executeBatch();
+            }
+        }
+
+        try (PreparedStatement count = connection.prepareStatement(
+                "UPDATE note_contents SET ref_count = ? WHERE hash = ?")) {
+            int pending = 0;
+            for (Map.Entry<String, Long> refCount : refCounts.entrySet()) {
+                count.setLong(1, refCount.getValue());
+                count.setString(2, refCount.getKey());
+                count.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    count.executeBatch();
+                    pending = 0;
+                }
+            }
+            count.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- Les notes ne référencent plus que l'empreinte de leur contenu (note_contents,
+-- renseigné par V10). La clé étrangère garantit qu'aucun contenu utilisé n'est
+-- supprimé, même si son compteur de références était faux
+ALTER TABLE notes ALTER COLUMN content_hash SET NOT NULL;
+ALTER TABLE notes DROP COLUMN content;
+CREATE INDEX idx_notes_content_hash ON notes (content_hash);
+ALTER TABLE notes ADD CONSTRAINT fk_notes_content FOREIGN KEY (content_hash) REFERENCES note_contents (hash);
@@ -0,0 +1,35 @@
+-- Historique des versions des notes (NoteRevisionService): une ligne par
+-- version enregistrée (revision = notes.version).
+--
+-- Une version est soit un instantané (revision = base_revision): contenu
+-- complet, référencé dans note_contents (compté dans ref_count); soit les
+-- différences depuis la version précédente (delta, voir NoteDelta).
+-- base_revision est l'instantané dont part la chaîne de différences: une
+-- version se reconstruit en lisant au plus notes.revisions.snapshot-interval
+-- lignes.
+CREATE TABLE note_revisions (
+    note_id BIGINT NOT NULL,
+    revision BIGINT NOT NULL,
+    base_revision BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    content_hash VARCHAR(64),
+    delta BLOB,
+    created_at TIMESTAMP(6) NOT NULL,
+    -- Historique d'une note, reconstruction d'une version (plage depuis l'instantané)
+    PRIMARY KEY (note_id, revision),
+    CONSTRAINT ck_note_revisions_data CHECK (
+        (revision = base_revision AND content_hash IS NOT NULL AND delta IS NULL)
+        OR (revision > base_revision AND content_hash IS NULL AND delta IS NOT NULL))
+);
+
+-- Clé étrangère vers note_contents (suppression des contenus non référencés)
+CREATE INDEX idx_note_revisions_content_hash ON note_revisions (content_hash);
+
+ALTER TABLE note_revisions ADD CONSTRAINT fk_note_revisions_note FOREIGN KEY (note_id) REFERENCES notes (id);
+ALTER TABLE note_revisions ADD CONSTRAINT fk_note_revisions_content FOREIGN KEY (content_hash) REFERENCES note_contents (hash);
+
+-- Version actuelle des notes existantes: premier instantané de leur historique
+INSERT INTO note_revisions (note_id, revision, base_revision, title, content_hash, delta, created_at)
+SELECT n.id, n.version, n.version, n.title, n.content_hash, NULL, n.updated_at FROM notes n;
+
+UPDATE note_contents c SET ref_count = ref_count + (SELECT COUNT(*) FROM notes n WHERE n.content_hash = c.hash);
@@ -0,0 +1,85 @@
+-- Schéma initial de l'application Notes
+--
+-- Chaque chemin de requête des repositories dispose d'un index explicite
+-- (vérifié par QueryPlanTest).
+--
+-- Les clés étrangères sont déclarées à la fin; H2 leur crée son propre index
+-- (colonne seule), qui sert aux recherches par propriétaire (countByUserId).
+
+-- Utilisateurs
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    token_version INTEGER NOT NULL,
+    -- findByUsername, existsByUsername, updatePassword
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+-- Rôles
+CREATE TABLE roles (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    -- findByName
+    CONSTRAINT uk_roles_name UNIQUE (name)
+);
+
+-- Association utilisateurs / rôles
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    -- Chargement des rôles d'un utilisateur (clé en tête: user_id)
+    PRIMARY KEY (user_id, role_id)
+);
+
+CREATE INDEX idx_user_roles_role ON user_roles (role_id);
+
+-- Notes
+CREATE TABLE notes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    content TEXT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    user_id BIGINT NOT NULL
+);
+
+-- Liste des notes par curseur (findFirstPage, findPageAfter): trié comme la
+-- requête, et couvrant (title, created_at) pour que la liste soit lue dans
+-- l'index seul, sans accès aux lignes (ni au contenu)
+CREATE INDEX idx_notes_user_updated ON notes (user_id, updated_at DESC, id DESC, title, created_at);
+
+-- Tokens d'accès révoqués (logout)
+CREATE TABLE revoked_tokens (
+    jti VARCHAR(36) NOT NULL PRIMARY KEY,
+    expires_at TIMESTAMP(6) NOT NULL
+);
+
+-- findActiveJtis, deleteExpired
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+-- Refresh tokens
+CREATE TABLE refresh_tokens (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token_hash VARCHAR(44) NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    user_id BIGINT NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    used BOOLEAN NOT NULL,
+    -- findByTokenHashWithUser
+    CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash)
+);
+
+-- deleteByFamilyId
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens (family_id);
+-- deleteByUserId
+CREATE INDEX idx_refresh_tokens_user ON refresh_tokens (user_id);
+-- deleteExpired
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+
+-- Clés étrangères
+ALTER TABLE user_roles ADD CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE user_roles ADD CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id);
+ALTER TABLE notes ADD CONSTRAINT fk_notes_user FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE refresh_tokens ADD CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id);
@@ -1,9 +1,9 @@
 -- Insertion d'utilisateurs de test
 -- Mot de passe: password (encodé en BCrypt)
-INSERT INTO users (id, username, password, created_at) VALUES
-(1, 'admin', '$2a$10$slYQmyNdGzTn7ZLBXBChFOC9f6kFjAqPhccnP6DxlWXx2lPk1C3G6', CURRENT_TIMESTAMP),
-(2, 'user1', '$2a$10$slYQmyNdGzTn7ZLBXBChFOC9f6kFjAqPhccnP6DxlWXx2lPk1C3G6', CURRENT_TIMESTAMP),
-(3, 'user2', '$2a$10$slYQmyNdGzTn7ZLBXBChFOC9f6kFjAqPhccnP6DxlWXx2lPk1C3G6', CURRENT_TIMESTAMP);
+INSERT INTO users (id, username, password, created_at, token_version) VALUES
+(1, 'admin', '$2a$10$slYQmyNdGzTn7ZLBXBChFOC9f6kFjAqPhccnP6DxlWXx2lPk1C3G6', CURRENT_TIMESTAMP, 0),
+(2, 'user1', '$2a$10$slYQmyNdGzTn7ZLBXBChFOC9f6kFjAqPhccnP6DxlWXx2lPk1C3G6', CURRENT_TIMESTAMP, 0),
+(3, 'user2', '$2a$10$slYQmyNdGzTn7ZLBXBChFOC9f6kFjAqPhccnP6DxlWXx2lPk1C3G6', CURRENT_TIMESTAMP, 0);
 -- Si on fixe les clés auto-générées, il faut réinitialiser le compteur
 -- Attention, cette commande n'est pas standard SQL
 -- ici la syntaxe pour H2
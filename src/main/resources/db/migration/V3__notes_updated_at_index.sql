@@ -0,0 +1,3 @@
+-- Rattrapage de l'index de recherche (findUpdatedSince): notes modifiées
+-- depuis une date, tous propriétaires confondus, dans l'ordre (updated_at, id)
+CREATE INDEX idx_notes_updated_at ON notes (updated_at, id);
@@ -0,0 +1,13 @@
+-- Identifiants des notes tirés d'une séquence, par blocs de 50 (allocationSize
+-- de Note.id): Hibernate connaît l'identifiant d'une note sans l'insérer, et
+-- peut donc regrouper les insertions en lots JDBC (impossible avec IDENTITY)
+CREATE SEQUENCE notes_seq START WITH 1 INCREMENT BY 50;
+
+-- La séquence reprend après les notes existantes
+-- Attention, cette commande n'est pas standard SQL
+-- ici la syntaxe pour H2
+ALTER SEQUENCE notes_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM notes);
+
+-- Une seule source d'identifiants, y compris pour les insertions SQL directes
+ALTER TABLE notes ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE notes ALTER COLUMN id SET DEFAULT NEXT VALUE FOR notes_seq;
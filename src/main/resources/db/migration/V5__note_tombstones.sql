@@ -0,0 +1,14 @@
+-- Traces des notes supprimées, pour la synchronisation incrémentale
+-- (GET /api/notes/changes): conservées notes.sync.tombstone-retention puis
+-- purgées. Sans clé étrangère: les traces d'un utilisateur supprimé sont
+-- purgées avec les autres.
+CREATE TABLE note_tombstones (
+    note_id BIGINT NOT NULL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL
+);
+
+-- findDeletedSince
+CREATE INDEX idx_note_tombstones_user_deleted ON note_tombstones (user_id, deleted_at);
+-- deleteOlderThan
+CREATE INDEX idx_note_tombstones_deleted_at ON note_tombstones (deleted_at);
@@ -0,0 +1,3 @@
+-- Compteur des modifications des notes de chaque utilisateur: ETag de la
+-- liste des notes, lu par clé primaire (findNotesVersionById) sans lire les notes
+ALTER TABLE users ADD COLUMN notes_version BIGINT DEFAULT 0 NOT NULL;
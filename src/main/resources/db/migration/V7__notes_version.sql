@@ -0,0 +1,3 @@
+-- Version des notes (verrouillage optimiste): incrémentée à chaque
+-- modification, vérifiée par la clause WHERE de l'UPDATE ou du DELETE
+ALTER TABLE notes ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
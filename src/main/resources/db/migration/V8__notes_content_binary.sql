@@ -0,0 +1,4 @@
+-- Contenu des notes compressé en base (NoteContentConverter): colonne binaire.
+-- Les contenus existants sont convertis en UTF-8, format non compressé encore
+-- lisible; NoteContentCompactionService les compresse ensuite en tâche de fond
+ALTER TABLE notes ALTER COLUMN content SET DATA TYPE BLOB;
@@ -0,0 +1,16 @@
+-- Contenus des notes, stockés une seule fois par valeur: adressés par leur
+-- empreinte SHA-256 (hexadécimale), avec le nombre de notes qui les utilisent
+-- (NoteContentStore). released_at: date de la dernière référence retirée (ou
+-- de l'insertion), un contenu non référencé n'est supprimé qu'après un délai
+CREATE TABLE note_contents (
+    hash VARCHAR(64) PRIMARY KEY,
+    data BLOB NOT NULL,
+    ref_count BIGINT NOT NULL,
+    released_at TIMESTAMP(6) NOT NULL
+);
+
+-- Collecte des contenus qui ne sont plus référencés
+CREATE INDEX idx_note_contents_unreferenced ON note_contents (ref_count, released_at);
+
+-- Renseignée par V10 (empreinte du contenu de chaque note)
+ALTER TABLE notes ADD COLUMN content_hash VARCHAR(64);
@@ -0,0 +1,211 @@
+package com.demo.notes.controller;
+
+import com.demo.notes.dto.CreateUserRequest;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import com.demo.notes.service.NoteContentStore;
+import com.demo.notes.service.NoteService;
+import com.demo.notes.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests des requêtes conditionnelles sur les notes: ETag et If-None-Match
+ * sur les lectures, If-Match et version attendue sur les écritures.
+ *
+ * @author Demo
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class NoteControllerETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserPrincipal owner;
+
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() {
+        String username = "etag-" + UUID.randomUUID();
+        Long id = userService.createUser(new CreateUserRequest(username, "password", null), "x").getId();
+        owner = UserPrincipal.fromUser(userRepository.findById(id).orElseThrow());
+        noteId = noteService.createNote(new NoteRequest("Titre", "<p>Contenu</p>"), owner).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        useContentStore(noteContentStore);
+        userService.deleteUser(owner.getId());
+    }
+
+    @Test
+    void noteIsNotModifiedForCurrentETag() throws Exception {
+        String etag = "\"" + noteId + "-0\"";
+        mockMvc.perform(as(get("/api/notes/{id}", noteId)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        mockMvc.perform(as(get("/api/notes/{id}", noteId)).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        // Comparaison faible, liste d'ETags
+        mockMvc.perform(as(get("/api/notes/{id}", noteId)).header(HttpHeaders.IF_NONE_MATCH, "\"x\", W/" + etag))
+                .andExpect(status().isNotModified());
+
+        update(null, null, "Modifié");
+        mockMvc.perform(as(get("/api/notes/{id}", noteId)).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + noteId + "-1\""))
+                .andExpect(jsonPath("$.title").value("Modifié"));
+    }
+
+    @Test
+    void listIsNotModifiedUntilNotesChange() throws Exception {
+        String etag = mockMvc.perform(as(get("/api/notes")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"u" + owner.getId() + "-");
+
+        mockMvc.perform(as(get("/api/notes")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        update(null, null, "Modifié");
+        String changed = mockMvc.perform(as(get("/api/notes")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Modifié"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    void writeWithCurrentIfMatchSucceeds() throws Exception {
+        update("\"" + noteId + "-0\"", null, "Modifié")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + noteId + "-1\""));
+        update("*", null, "Encore")
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void writeWithStaleIfMatchFails() throws Exception {
+        update(null, null, "Modifié");
+
+        update("\"" + noteId + "-0\"", null, "Perdu")
+                .andExpect(status().isPreconditionFailed());
+        // Un ETag faible ne correspond jamais (comparaison forte)
+        update("W/\"" + noteId + "-1\"", null, "Perdu")
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(as(delete("/api/notes/{id}", noteId)).header(HttpHeaders.IF_MATCH, "\"" + noteId + "-0\""))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(noteService.getNoteById(noteId, owner).getTitle()).isEqualTo("Modifié");
+    }
+
+    @Test
+    void writeWithStaleVersionConflicts() throws Exception {
+        update(null, 0L, "Modifié")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        update(null, 0L, "Perdu")
+                .andExpect(status().isConflict());
+
+        assertThat(noteService.getNoteById(noteId, owner).getTitle()).isEqualTo("Modifié");
+    }
+
+    @Test
+    void concurrentWriteBetweenReadAndUpdateConflicts() throws Exception {
+        // Autre requête enregistrée après la vérification de la version attendue
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        NoteContentStore store = spy(noteContentStore);
+        doAnswer(invocation -> {
+            concurrent.executeWithoutResult(status -> jdbcTemplate.update(
+                    "UPDATE notes SET title = 'Concurrente', version = version + 1 WHERE id = ?", noteId));
+            return invocation.callRealMethod();
+        }).when(store).references();
+        useContentStore(store);
+
+        update("\"" + noteId + "-0\"", 0L, "Perdu")
+                .andExpect(status().isConflict());
+
+        assertThat(noteService.getNoteById(noteId, owner).getTitle()).isEqualTo("Concurrente");
+    }
+
+    private void useContentStore(NoteContentStore store) {
+        NoteService target = AopTestUtils.getTargetObject(noteService);
+        ReflectionTestUtils.setField(target, "noteContentStore", store);
+    }
+
+    private ResultActions update(String ifMatch, Long version, String title)
+            throws Exception {
+        MockHttpServletRequestBuilder request = as(put("/api/notes/{id}", noteId))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new NoteRequest(title, "<p>" + title + "</p>", version)));
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private MockHttpServletRequestBuilder as(MockHttpServletRequestBuilder request) {
+        return request.with(user(owner));
+    }
+}
@@ -0,0 +1,466 @@
+package com.demo.notes.repository;
+
+import com.demo.notes.dto.CreateUserRequest;
+import com.demo.notes.dto.NoteBatchOperation;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.dto.NoteResponse;
+import com.demo.notes.security.TokenRevocationService;
+import com.demo.notes.security.UserPrincipal;
+import com.demo.notes.service.NoteBatchService;
+import com.demo.notes.service.NoteContentCompactionService;
+import com.demo.notes.service.NoteContentStore;
+import com.demo.notes.service.NoteRevisionService;
+import com.demo.notes.service.NoteService;
+import com.demo.notes.service.NoteSyncService;
+import com.demo.notes.service.RefreshTokenService;
+import com.demo.notes.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vérification des plans d'exécution des requêtes, sur le schéma migré par Flyway.
+ *
+ * Chaque cas appelle une méthode de repository ou un service JDBC (dans une
+ * transaction annulée ensuite): le SQL réellement préparé, par Hibernate ou
+ * JdbcTemplate, est capturé puis passé à EXPLAIN. Un plan qui parcourt une
+ * table entière ("tableScan" dans les plans H2) fait échouer le test; la
+ * liste des notes, la synchronisation et le rattrapage de l'index doivent en
+ * outre passer par leur index composite.
+ *
+ * Chaque méthode déclarée par un repository doit être vérifiée: une nouvelle
+ * requête sans cas de test est signalée. Seule la liste complète des
+ * utilisateurs (findAll hérité, réservé aux administrateurs) lit toute la
+ * table par nature et n'est pas vérifiée.
+ *
+ * @author Demo
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    /**
+     * Marqueur d'un parcours complet de table dans les plans H2.
+     */
+    private static final String TABLE_SCAN = "tableScan";
+
+    /**
+     * Index de la liste des notes (tri et colonnes du résumé).
+     */
+    private static final String NOTE_LIST_INDEX = "IDX_NOTES_USER_UPDATED";
+
+    private static final String TOMBSTONE_INDEX = "IDX_NOTE_TOMBSTONES_USER_DELETED";
+
+    private static final String NOTE_UPDATED_INDEX = "IDX_NOTES_UPDATED_AT";
+
+    private static final LocalDateTime SINCE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTombstoneRepository noteTombstoneRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private NoteSyncService noteSyncService;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private NoteContentCompactionService noteContentCompactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    private UserPrincipal owner;
+
+    /**
+     * Cas vérifiés par le test en cours.
+     */
+    private final Set<String> checked = new HashSet<>();
+
+    /**
+     * Plans en échec, avec leur requête.
+     */
+    private final List<String> failures = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        owner = UserPrincipal.fromUser(userRepository.findByUsername("user1").orElseThrow());
+    }
+
+    @Test
+    void userAndRoleQueriesUseIndexes() {
+        check(UserRepository.class, "findByUsername", () -> userRepository.findByUsername("user1"));
+        check(UserRepository.class, "existsByUsername", () -> userRepository.existsByUsername("user1"));
+        check(UserRepository.class, "findTokenVersionById", () -> userRepository.findTokenVersionById(owner.getId()));
+        check(UserRepository.class, "findNotesVersionById", () -> userRepository.findNotesVersionById(owner.getId()));
+        check(UserRepository.class, "incrementNotesVersion", () -> userRepository.incrementNotesVersion(owner.getId()));
+        check(UserRepository.class, "updatePassword", () -> userRepository.updatePassword("user1", "x"));
+        check("UserRepository.findById", () -> userRepository.findById(owner.getId()).orElseThrow().getRoles().size());
+        check(RoleRepository.class, "findByName", () -> roleRepository.findByName("ROLE_USER"));
+        check(RoleRepository.class, "existsByName", () -> roleRepository.existsByName("ROLE_USER"));
+
+        assertIndexed(UserRepository.class, RoleRepository.class);
+    }
+
+    @Test
+    void noteQueriesUseIndexes() {
+        Long userId = owner.getId();
+        check(NoteRepository.class, "findFirstPage", NOTE_LIST_INDEX,
+                () -> noteRepository.findFirstPage(userId, Limit.of(21)));
+        check(NoteRepository.class, "findPageAfter", NOTE_LIST_INDEX,
+                () -> noteRepository.findPageAfter(userId, SINCE, 10L, Limit.of(21)));
+        check(NoteRepository.class, "findChangedSince", NOTE_LIST_INDEX,
+                () -> noteRepository.findChangedSince(userId, SINCE, Limit.of(21)));
+        check(NoteRepository.class, "findChangedAfter", NOTE_LIST_INDEX,
+                () -> noteRepository.findChangedAfter(userId, SINCE, SINCE.plusDays(1), 10L, Limit.of(21)));
+        check(NoteRepository.class, "findTitlesByUserId", NOTE_LIST_INDEX,
+                () -> noteRepository.findTitlesByUserId(userId));
+        check(NoteRepository.class, "streamByUserId", () -> {
+            try (Stream<?> notes = noteRepository.streamByUserId(userId)) {
+                notes.count();
+            }
+        });
+        check(NoteRepository.class, "streamAll", () -> {
+            try (Stream<?> notes = noteRepository.streamAll()) {
+                notes.count();
+            }
+        });
+        check(NoteRepository.class, "findByIdAndUserId", () -> noteRepository.findByIdAndUserId(1L, userId));
+        check(NoteRepository.class, "findWithContentByIdAndUserId",
+                () -> noteRepository.findWithContentByIdAndUserId(1L, userId));
+        check(NoteRepository.class, "findVersionByIdAndUserId",
+                () -> noteRepository.findVersionByIdAndUserId(1L, userId));
+        check(NoteRepository.class, "findOwnedByIds", () -> noteRepository.findOwnedByIds(List.of(1L, 2L), userId));
+        check(NoteRepository.class, "findIndexRange", () -> noteRepository.findIndexRange(0L, 10000L, Limit.of(500)));
+        check(NoteRepository.class, "findUpdatedSince", NOTE_UPDATED_INDEX,
+                () -> noteRepository.findUpdatedSince(SINCE, 0L, Limit.of(500)));
+        check(NoteRepository.class, "findExistingIds", () -> noteRepository.findExistingIds(List.of(1L, 2L)));
+        check(NoteRepository.class, "findMaxId", () -> noteRepository.findMaxId());
+        check(NoteRepository.class, "countByUserId", () -> noteRepository.countByUserId(userId));
+
+        check(NoteTombstoneRepository.class, "findDeletedSince", TOMBSTONE_INDEX,
+                () -> noteTombstoneRepository.findDeletedSince(userId, SINCE, Limit.of(21)));
+        check(NoteTombstoneRepository.class, "findDeletedAfter", TOMBSTONE_INDEX,
+                () -> noteTombstoneRepository.findDeletedAfter(userId, SINCE, 10L, Limit.of(21)));
+        check(NoteTombstoneRepository.class, "deleteOlderThan", () -> noteTombstoneRepository.deleteOlderThan(SINCE));
+
+        assertIndexed(NoteRepository.class, NoteTombstoneRepository.class);
+    }
+
+    @Test
+    void tokenQueriesUseIndexes() {
+        check(RefreshTokenRepository.class, "findByTokenHashWithUser",
+                () -> refreshTokenRepository.findByTokenHashWithUser("x"));
+        check(RefreshTokenRepository.class, "markUsed", () -> refreshTokenRepository.markUsed(1L));
+        check(RefreshTokenRepository.class, "deleteByFamilyId", () -> refreshTokenRepository.deleteByFamilyId("x"));
+        check(RefreshTokenRepository.class, "deleteByUserId", () -> refreshTokenRepository.deleteByUserId(owner.getId()));
+        check(RefreshTokenRepository.class, "deleteExpired", () -> refreshTokenRepository.deleteExpired(SINCE));
+        check("RefreshTokenService.rotate", () -> refreshTokenService.rotate(refreshTokenService.issue(owner)));
+
+        check(RevokedTokenRepository.class, "findActiveJtis", () -> revokedTokenRepository.findActiveJtis(SINCE));
+        check(RevokedTokenRepository.class, "deleteExpired", () -> revokedTokenRepository.deleteExpired(SINCE));
+        check("TokenRevocationService.revoke", () -> {
+            String jti = UUID.randomUUID().toString();
+            tokenRevocationService.revoke(jti, new Date(System.currentTimeMillis() + 60_000));
+            tokenRevocationService.isRevoked(jti);
+        });
+
+        assertIndexed(RefreshTokenRepository.class, RevokedTokenRepository.class);
+    }
+
+    @Test
+    void noteWritesUseIndexes() {
+        check("NoteService.createNote", () -> createNote());
+        check("NoteService.updateNote", () -> {
+            NoteResponse note = createNote();
+            noteService.updateNote(note.getId(), new NoteRequest("Titre", "<p>Modifié</p>"), owner, null);
+        });
+        check("NoteService.restoreRevision", () -> {
+            NoteResponse note = createNote();
+            noteService.updateNote(note.getId(), new NoteRequest("Titre", "<p>Modifié</p>"), owner, null);
+            noteRevisionService.getRevisions(note.getId(), owner, null, 50);
+            noteService.restoreRevision(note.getId(), 0L, owner, null);
+        });
+        check("NoteService.deleteNote", () -> {
+            NoteResponse note = createNote();
+            noteService.updateNote(note.getId(), new NoteRequest("Titre", "<p>Modifié</p>"), owner, null);
+            noteService.deleteNote(note.getId(), owner, null);
+        });
+        check("NoteBatchService.apply", () -> {
+            NoteResponse note = createNote();
+            noteBatchService.apply(List.of(
+                    new NoteBatchOperation("create", null, "Créée", "<p>Créée</p>"),
+                    new NoteBatchOperation("update", note.getId(), "Modifiée", "<p>Modifiée</p>"),
+                    new NoteBatchOperation("delete", 1L, null, null)), owner);
+        });
+        check("NoteSyncService.getChanges", () -> noteSyncService.getChanges(owner, null, null, 20));
+        check("UserService.deleteUser", () -> {
+            Long userId = userService.createUser(
+                    new CreateUserRequest("quitte", "password", null), "x").getId();
+            UserPrincipal leaving = UserPrincipal.fromUser(userRepository.findById(userId).orElseThrow());
+            NoteResponse note = noteService.createNote(new NoteRequest("Titre", "<p>Contenu</p>"), leaving);
+            noteService.updateNote(note.getId(), new NoteRequest("Titre", "<p>Modifié</p>"), leaving, null);
+            userService.deleteUser(userId);
+        });
+
+        assertIndexed();
+    }
+
+    @Test
+    void maintenanceJobsUseIndexes() {
+        check("NoteContentStore.collectGarbage", () -> noteContentStore.collectGarbage());
+        check("NoteContentCompactionService.compact", () -> noteContentCompactionService.compact());
+        check("NoteSyncService.purgeTombstones", () -> noteSyncService.purgeTombstones());
+        check("RefreshTokenService.purgeExpired", () -> refreshTokenService.purgeExpired());
+        check("TokenRevocationService.purgeExpired", () -> tokenRevocationService.purgeExpired());
+
+        assertIndexed();
+    }
+
+    private NoteResponse createNote() {
+        return noteService.createNote(new NoteRequest("Titre", "<p>Contenu</p>"), owner);
+    }
+
+    /**
+     * Vérifie une méthode déclarée par un repository.
+     */
+    private void check(Class<?> repository, String method, Runnable call) {
+        check(repository, method, null, call);
+    }
+
+    private void check(Class<?> repository, String method, String expectedIndex, Runnable call) {
+        check(repository.getSimpleName() + "." + method, expectedIndex, call);
+    }
+
+    private void check(String name, Runnable call) {
+        check(name, null, call);
+    }
+
+    /**
+     * Exécute un appel dans une transaction annulée, puis vérifie le plan de
+     * chacune des requêtes qu'il a préparées.
+     *
+     * @param name Le nom du cas (Repository.méthode pour un repository)
+     * @param expectedIndex L'index que doivent utiliser ses requêtes, ou null
+     * @param call L'appel à vérifier
+     */
+    private void check(String name, String expectedIndex, Runnable call) {
+        List<String> statements = StatementRecorder.record(() -> transaction.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            call.run();
+        }));
+        assertThat(statements).as("Requêtes de %s", name).isNotEmpty();
+        checked.add(name);
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            if (plan == null) {
+                continue;
+            }
+            if (plan.contains(TABLE_SCAN)) {
+                failures.add(name + ":\n" + plan);
+            } else if (expectedIndex != null && !plan.contains(expectedIndex)) {
+                failures.add(name + " (index " + expectedIndex + " attendu):\n" + plan);
+            }
+        }
+    }
+
+    /**
+     * Vérifie qu'aucun plan n'a échoué et que chaque méthode déclarée par
+     * les repositories donnés a été vérifiée.
+     */
+    private void assertIndexed(Class<?>... repositories) {
+        assertThat(failures).as("Requêtes sans index adapté").isEmpty();
+        for (Class<?> repository : repositories) {
+            Set<String> declared = Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> !method.isSynthetic())
+                    .map(method -> repository.getSimpleName() + "." + method.getName())
+                    .collect(Collectors.toSet());
+            assertThat(checked).as("Méthodes vérifiées de %s", repository.getSimpleName())
+                    .containsAll(declared);
+        }
+    }
+
+    /**
+     * Plan H2 d'une requête préparée (paramètres non renseignés).
+     *
+     * @return Le plan, ou null pour une instruction sans plan (séquence...)
+     */
+    private String explain(String sql) {
+        String verb = sql.stripLeading().split("\\s", 2)[0].toLowerCase(Locale.ROOT);
+        if (!Set.of("select", "insert", "update", "delete", "merge", "with").contains(verb)) {
+            return null;
+        }
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet plan = statement.executeQuery()) {
+                List<String> lines = new ArrayList<>();
+                while (plan.next()) {
+                    lines.add(plan.getString(1));
+                }
+                return String.join("\n", lines);
+            }
+        });
+    }
+
+    /**
+     * Capture du SQL préparé par l'application (Hibernate comme JdbcTemplate).
+     */
+    @TestConfiguration
+    static class StatementRecorderConfiguration {
+
+        @Bean
+        static BeanPostProcessor statementRecorder() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new StatementRecorder(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Source de données qui relève, pour le thread qui le demande, le SQL
+     * des requêtes préparées ou exécutées.
+     */
+    static class StatementRecorder extends DelegatingDataSource {
+
+        private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+        StatementRecorder(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        /**
+         * Exécute une action et renvoie le SQL qu'elle a envoyé à la base.
+         */
+        static List<String> record(Runnable action) {
+            List<String> statements = new ArrayList<>();
+            RECORDED.set(statements);
+            try {
+                action.run();
+            } finally {
+                RECORDED.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(Connection.class, super.getConnection(username, password));
+        }
+
+        /**
+         * Enveloppe une connexion ou une instruction: le SQL passé à
+         * prepareStatement, execute ou addBatch est relevé.
+         */
+        private static <T> T recording(Class<T> type, T target) {
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                    (self, method, args) -> {
+                        List<String> statements = RECORDED.get();
+                        if (statements != null && args != null && args.length > 0 && args[0] instanceof String sql
+                                && isStatementMethod(method)) {
+                            statements.add(sql);
+                        }
+                        Object result = invoke(target, method, args);
+                        if (method.getName().equals("createStatement")) {
+                            return recording(Statement.class, (Statement) result);
+                        }
+                        return result;
+                    });
+            return type.cast(proxy);
+        }
+
+        private static boolean isStatementMethod(Method method) {
+            String name = method.getName();
+            return name.startsWith("prepare") || name.startsWith("execute") || name.equals("addBatch");
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
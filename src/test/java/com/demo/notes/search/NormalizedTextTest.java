@@ -0,0 +1,152 @@
+package com.demo.notes.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de la normalisation des textes et de la recherche approchée
+ * utilisées pour vérifier les candidats des trigrammes.
+ *
+ * @author Demo
+ */
+class NormalizedTextTest {
+
+    @Test
+    void normalizationLowercasesAndFoldsAccents() {
+        assertThat(NormalizedText.of("Éléphant À LA Crème").normalized()).isEqualTo("elephant a la creme");
+        // Un caractère peut en produire plusieurs
+        assertThat(NormalizedText.of("Œuvre, cœur, Straße").normalized()).isEqualTo("oeuvre, coeur, strasse");
+        assertThat(NormalizedText.of("").normalized()).isEmpty();
+    }
+
+    @Test
+    void substringMatchIsMappedBackToOriginalText() {
+        NormalizedText text = NormalizedText.of("Un Cœur léger");
+
+        NormalizedText.Match match = text.find("coeur", 0);
+
+        assertThat(match.edits()).isZero();
+        assertThat(text.text().substring(match.start(), match.end())).isEqualTo("Cœur");
+        // Occurrence qui commence au milieu d'un caractère développé ("œ" -> "oe")
+        NormalizedText.Match partial = text.find("eur", 0);
+        assertThat(text.text().substring(partial.start(), partial.end())).isEqualTo("œur");
+    }
+
+    @Test
+    void matchAfterSurrogatePairKeepsWholeCharacters() {
+        NormalizedText text = NormalizedText.of("😀 Café 😀");
+
+        NormalizedText.Match match = text.find("cafe", 0);
+        assertThat(text.text().substring(match.start(), match.end())).isEqualTo("Café");
+
+        NormalizedText.Match emoji = text.find("😀", 0);
+        assertThat(emoji.start()).isZero();
+        assertThat(emoji.end()).isEqualTo(2);
+    }
+
+    @Test
+    void missingSubstringIsNotFound() {
+        assertThat(NormalizedText.of("Réunion importante").find("reunir", 0)).isNull();
+    }
+
+    @Test
+    void fuzzyMatchToleratesTypos() {
+        NormalizedText text = NormalizedText.of("Points de la Réunion importante");
+
+        // Suppression, substitution, insertion
+        assertMatch(text, "importnte", 1, "importante", 1);
+        assertMatch(text, "reunon", 1, "Réunion", 1);
+        assertMatch(text, "reuniion", 1, "Réunion", 1);
+        // Exact: aucune modification
+        assertMatch(text, "points", 2, "Points", 0);
+
+        assertThat(text.find("rencontre", 2)).isNull();
+    }
+
+    @Test
+    void fuzzyMatchPrefersFewestEdits() {
+        NormalizedText text = NormalizedText.of("chats chiens chat");
+
+        NormalizedText.Match match = text.find("chat", 1);
+
+        assertThat(match.edits()).isZero();
+        assertThat(text.text().substring(match.start(), match.end())).isEqualTo("chat");
+    }
+
+    @Test
+    void fuzzyEditsMatchBruteForceDistance() {
+        Random random = new Random(7);
+        for (int run = 0; run < 500; run++) {
+            String text = randomText(random, random.nextInt(40));
+            String pattern = randomText(random, 1 + random.nextInt(8));
+            // Comme pour la recherche: toujours moins de modifications que de caractères
+            int maxEdits = random.nextInt(Math.min(3, pattern.length()));
+
+            NormalizedText.Match match = NormalizedText.of(text).find(pattern, maxEdits);
+
+            int expected = bestDistance(pattern, text);
+            String context = "'" + pattern + "' dans '" + text + "' (" + maxEdits + ")";
+            if (expected > maxEdits) {
+                assertThat(match).as(context).isNull();
+            } else {
+                assertThat(match).as(context).isNotNull();
+                assertThat(match.edits()).as(context).isEqualTo(expected);
+                assertThat(distance(pattern, text.substring(match.start(), match.end())))
+                        .as(context).isEqualTo(expected);
+            }
+        }
+    }
+
+    private static void assertMatch(NormalizedText text, String pattern, int maxEdits, String found, int edits) {
+        NormalizedText.Match match = text.find(pattern, maxEdits);
+        assertThat(match).as(pattern).isNotNull();
+        assertThat(text.text().substring(match.start(), match.end())).as(pattern).isEqualTo(found);
+        assertThat(match.edits()).as(pattern).isEqualTo(edits);
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append("abcd ".charAt(random.nextInt(5)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Plus petite distance entre le motif et une sous-chaîne du texte.
+     */
+    private static int bestDistance(String pattern, String text) {
+        int best = pattern.length();
+        for (int start = 0; start <= text.length(); start++) {
+            for (int end = start; end <= text.length(); end++) {
+                best = Math.min(best, distance(pattern, text.substring(start, end)));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Distance de Levenshtein.
+     */
+    private static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,153 @@
+package com.demo.notes.search;
+
+import com.demo.notes.dto.CreateUserRequest;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.dto.NoteSearchResultResponse;
+import com.demo.notes.exception.InvalidRequestException;
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import com.demo.notes.service.NoteService;
+import com.demo.notes.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tests des recherches par trigrammes (sous-chaîne et approchée) sur l'index des notes.
+ *
+ * L'index est mis à jour en arrière-plan (NoteIndexer): chaque test attend
+ * que les notes créées y soient visibles.
+ *
+ * @author Demo
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteSearchServiceTest {
+
+    @Autowired
+    private NoteSearchService noteSearchService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserPrincipal owner;
+
+    private UserPrincipal other;
+
+    private Long meeting;
+
+    private Long recipe;
+
+    @BeforeEach
+    void setUp() {
+        owner = createUser();
+        other = createUser();
+        meeting = noteService.createNote(new NoteRequest("Réunion",
+                "<p>Points de la réunion <b>importante</b> du lundi.</p>"), owner).getId();
+        recipe = noteService.createNote(new NoteRequest("Crème brûlée",
+                "<p>Recette de l'Œuf à la neige et de la crème.</p>"), owner).getId();
+        Long foreign = noteService.createNote(new NoteRequest("Réunion",
+                "<p>Réunion importante</p>"), other).getId();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            assertThat(ids(owner, "reunion", SearchMode.SUBSTRING)).contains(meeting);
+            assertThat(ids(owner, "recette", SearchMode.SUBSTRING)).contains(recipe);
+            assertThat(ids(other, "reunion", SearchMode.SUBSTRING)).contains(foreign);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.deleteUser(owner.getId());
+        userService.deleteUser(other.getId());
+    }
+
+    @Test
+    void substringMatchesInsideWords() {
+        assertThat(ids(owner, "ortan", SearchMode.SUBSTRING)).containsExactly(meeting);
+        assertThat(ids(owner, "de la", SearchMode.SUBSTRING)).containsExactlyInAnyOrder(meeting, recipe);
+        assertThat(ids(owner, "lundis", SearchMode.SUBSTRING)).isEmpty();
+    }
+
+    @Test
+    void substringIgnoresCaseAndAccents() {
+        assertThat(ids(owner, "CREME BRU", SearchMode.SUBSTRING)).containsExactly(recipe);
+        assertThat(ids(owner, "oeuf", SearchMode.SUBSTRING)).containsExactly(recipe);
+        assertThat(ids(owner, "réunion", SearchMode.SUBSTRING)).containsExactly(meeting);
+    }
+
+    @Test
+    void substringSnippetMarksOriginalText() {
+        List<NoteSearchResultResponse> results = noteSearchService.search(owner.getId(), "oeuf", SearchMode.SUBSTRING, 10);
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getSnippet()).contains("<mark>Œuf</mark>");
+    }
+
+    @Test
+    void fuzzyToleratesTyposThatSubstringRejects() {
+        // Suppression et substitution d'un caractère
+        assertThat(ids(owner, "imprtante", SearchMode.SUBSTRING)).isEmpty();
+        assertThat(ids(owner, "imprtante", SearchMode.FUZZY)).containsExactly(meeting);
+        assertThat(ids(owner, "recrtte", SearchMode.FUZZY)).containsExactly(recipe);
+    }
+
+    @Test
+    void fuzzyRejectsTooManyEdits() {
+        // Texte de 4 à 7 caractères: une seule modification tolérée
+        assertThat(ids(owner, "lundi", SearchMode.FUZZY)).containsExactly(meeting);
+        assertThat(ids(owner, "lnudi", SearchMode.FUZZY)).isEmpty();
+        // Moins de 4 caractères: aucune
+        assertThat(ids(owner, "lnu", SearchMode.FUZZY)).isEmpty();
+    }
+
+    @Test
+    void searchIsLimitedToOwnerNotes() {
+        assertThat(ids(owner, "reunion importante", SearchMode.FUZZY)).containsExactly(meeting);
+        assertThat(ids(other, "recette", SearchMode.SUBSTRING)).isEmpty();
+    }
+
+    @Test
+    void fuzzyRejectsTooLongText() {
+        String text = "a".repeat(65);
+
+        assertThatThrownBy(() -> noteSearchService.search(owner.getId(), text, SearchMode.FUZZY, 10))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(noteSearchService.search(owner.getId(), text, SearchMode.SUBSTRING, 10)).isEmpty();
+    }
+
+    @Test
+    void unknownModeIsRejected() {
+        assertThat(SearchMode.parse("fuzzy")).isEqualTo(SearchMode.FUZZY);
+        assertThatThrownBy(() -> SearchMode.parse("regex")).isInstanceOf(InvalidRequestException.class);
+    }
+
+    private List<Long> ids(UserPrincipal user, String text, SearchMode mode) {
+        return noteSearchService.search(user.getId(), text, mode, 10).stream()
+                .map(NoteSearchResultResponse::getId)
+                .toList();
+    }
+
+    private UserPrincipal createUser() {
+        String username = "search-" + UUID.randomUUID();
+        Long id = userService.createUser(new CreateUserRequest(username, "password", null), "x").getId();
+        return UserPrincipal.fromUser(userRepository.findById(id).orElseThrow());
+    }
+}
@@ -0,0 +1,62 @@
+package com.demo.notes.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests du filtre de Bloom de la liste de révocation.
+ *
+ * @author Demo
+ */
+class BloomFilterTest {
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        assertThat(filter.mightContain("jti")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        String[] values = new String[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = UUID.randomUUID().toString();
+            filter.put(values[i]);
+        }
+        // Aucun faux négatif, même au-delà du nombre d'éléments prévu
+        filter.put("é€😀");
+        for (String value : values) {
+            assertThat(filter.mightContain(value)).as(value).isTrue();
+        }
+        assertThat(filter.mightContain("é€😀")).isTrue();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revoked-" + i);
+        }
+        int falsePositives = 0;
+        int checks = 100_000;
+        for (int i = 0; i < checks; i++) {
+            if (filter.mightContain("active-" + i)) {
+                falsePositives++;
+            }
+        }
+        // Taux visé 1%: une marge de 2x couvre les écarts statistiques
+        assertThat((double) falsePositives / checks).isLessThan(0.02);
+    }
+
+    @Test
+    void tinyFilterStillWorks() {
+        BloomFilter filter = BloomFilter.create(0, 0.001);
+        filter.put("a");
+        assertThat(filter.mightContain("a")).isTrue();
+    }
+}
@@ -0,0 +1,117 @@
+package com.demo.notes.security;
+
+import com.demo.notes.model.RevokedToken;
+import com.demo.notes.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de la liste de révocation: filtre de Bloom devant la table
+ * revoked_tokens, chargé depuis la base au démarrage.
+ *
+ * @author Demo
+ */
+class TokenRevocationServiceTest {
+
+    private RevokedTokenRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedTokenRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", repository);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.001);
+    }
+
+    @Test
+    void startupLoadsActiveRevocations() {
+        when(repository.findActiveJtis(any())).thenReturn(List.of("revoked-before-restart"));
+        when(repository.existsById("revoked-before-restart")).thenReturn(true);
+        service.init();
+
+        // Révoqué avant le redémarrage: toujours refusé
+        assertThat(service.isRevoked("revoked-before-restart")).isTrue();
+        assertThat(databaseChecks()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownTokenIsAcceptedWithoutDatabaseAccess() {
+        when(repository.findActiveJtis(any())).thenReturn(List.of("revoked"));
+        service.init();
+
+        assertThat(service.isRevoked("valid")).isFalse();
+        assertThat(service.isRevoked(null)).isFalse();
+        verify(repository, never()).existsById(anyString());
+        assertThat(databaseChecks()).isZero();
+    }
+
+    @Test
+    void filterPositiveIsConfirmedInDatabase() {
+        when(repository.findActiveJtis(any())).thenReturn(List.of("revoked"));
+        // Faux positif du filtre: la base tranche
+        when(repository.existsById("revoked")).thenReturn(false);
+        service.init();
+
+        assertThat(service.isRevoked("revoked")).isFalse();
+        verify(repository).existsById("revoked");
+    }
+
+    @Test
+    void revokePersistsUntilExpirationAndIsSeenImmediately() {
+        when(repository.findActiveJtis(any())).thenReturn(List.of());
+        service.init();
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+
+        service.revoke("logout", expiration);
+
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getJti()).isEqualTo("logout");
+        assertThat(saved.getValue().getExpiresAt()).isAfter(LocalDateTime.now());
+
+        when(repository.existsById("logout")).thenReturn(true);
+        assertThat(service.isRevoked("logout")).isTrue();
+    }
+
+    @Test
+    void purgeRebuildsFilterFromRemainingRevocations() {
+        when(repository.findActiveJtis(any())).thenReturn(List.of("expired", "active"));
+        service.init();
+
+        // La purge supprime "expired": le filtre reconstruit ne le contient plus
+        when(repository.findActiveJtis(any())).thenReturn(List.of("active"));
+        service.purgeExpired();
+
+        verify(repository).deleteExpired(any());
+        assertThat(service.isRevoked("expired")).isFalse();
+        verify(repository, never()).existsById("expired");
+        when(repository.existsById("active")).thenReturn(true);
+        assertThat(service.isRevoked("active")).isTrue();
+    }
+
+    private double databaseChecks() {
+        return meterRegistry.get("jwt.revocation.database-checks").counter().count();
+    }
+}
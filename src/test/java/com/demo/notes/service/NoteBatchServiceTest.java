@@ -0,0 +1,193 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.CreateUserRequest;
+import com.demo.notes.dto.NoteBatchItemResult;
+import com.demo.notes.dto.NoteBatchOperation;
+import com.demo.notes.dto.NoteBatchResponse;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.event.NoteChangedEvent;
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Tests des opérations par lots: mises à jour sans effet et résultats par
+ * opération quand un groupe est en conflit avec une autre requête.
+ *
+ * @author Demo
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class NoteBatchServiceTest {
+
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private UserPrincipal owner;
+
+    private UserPrincipal other;
+
+    @BeforeEach
+    void setUp() {
+        owner = createUser();
+        other = createUser();
+    }
+
+    @AfterEach
+    void tearDown() {
+        NoteBatchService target = AopTestUtils.getTargetObject(noteBatchService);
+        ReflectionTestUtils.setField(target, "noteContentStore", noteContentStore);
+        ReflectionTestUtils.setField(target, "chunkSize", 500);
+        userService.deleteUser(owner.getId());
+        userService.deleteUser(other.getId());
+    }
+
+    @Test
+    void unchangedUpdateIsNoOp() {
+        Long id = noteService.createNote(new NoteRequest("Titre", "<p>Contenu</p>"), owner).getId();
+        long notesVersion = notesVersion();
+        int revisions = revisions(id);
+        events.clear();
+
+        NoteBatchResponse response = noteBatchService.apply(List.of(
+                new NoteBatchOperation("update", id, "Titre", "<p>Contenu</p>")), owner);
+
+        assertThat(response.getSucceeded()).isEqualTo(1);
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(200);
+        assertThat(noteService.getNoteById(id, owner).getVersion()).isZero();
+        assertThat(notesVersion()).isEqualTo(notesVersion);
+        assertThat(revisions(id)).isEqualTo(revisions);
+        assertThat(events.stream(NoteChangedEvent.class)).isEmpty();
+    }
+
+    @Test
+    void changedUpdateIsRecorded() {
+        Long id = noteService.createNote(new NoteRequest("Titre", "<p>Contenu</p>"), owner).getId();
+        Long unchanged = noteService.createNote(new NoteRequest("Autre", "<p>Autre</p>"), owner).getId();
+        long notesVersion = notesVersion();
+        events.clear();
+
+        // Une mise à jour sans effet dans le même groupe qu'une mise à jour réelle
+        noteBatchService.apply(List.of(
+                new NoteBatchOperation("update", id, "Titre", "<p>Modifié</p>"),
+                new NoteBatchOperation("update", unchanged, "Autre", "<p>Autre</p>")), owner);
+
+        assertThat(noteService.getNoteById(id, owner).getVersion()).isEqualTo(1);
+        assertThat(noteService.getNoteById(unchanged, owner).getVersion()).isZero();
+        // Une seule incrémentation pour le groupe
+        assertThat(notesVersion()).isEqualTo(notesVersion + 1);
+        assertThat(revisions(id)).isEqualTo(2);
+        assertThat(revisions(unchanged)).isEqualTo(1);
+        assertThat(events.stream(NoteChangedEvent.class).map(NoteChangedEvent::getNoteId)).containsExactly(id);
+    }
+
+    @Test
+    void conflictCancelsOnlyItsChunk() {
+        Long conflicted = noteService.createNote(new NoteRequest("A", "<p>A</p>"), owner).getId();
+        Long updated = noteService.createNote(new NoteRequest("B", "<p>B</p>"), owner).getId();
+        Long foreign = noteService.createNote(new NoteRequest("C", "<p>C</p>"), other).getId();
+        modifyConcurrentlyOnFirstChunk(conflicted);
+
+        NoteBatchResponse response = noteBatchService.apply(List.of(
+                // Premier groupe: une de ses notes est modifiée par une autre requête
+                new NoteBatchOperation("update", conflicted, "A2", "<p>A2</p>"),
+                new NoteBatchOperation("create", null, "Annulée", "<p>Annulée</p>"),
+                new NoteBatchOperation("move", conflicted, null, null),
+                // Second groupe: appliqué
+                new NoteBatchOperation("update", updated, "B2", "<p>B2</p>"),
+                new NoteBatchOperation("delete", foreign, null, null),
+                new NoteBatchOperation("create", null, "Créée", "<p>Créée</p>")), owner);
+
+        assertThat(response.getResults()).extracting(NoteBatchItemResult::getStatus)
+                .containsExactly(409, 409, 400, 200, 404, 201);
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(4);
+        assertThat(response.getResults().get(0).getId()).isNull();
+        assertThat(response.getResults().get(1).getId()).isNull();
+
+        assertThat(noteService.getNoteById(conflicted, owner).getTitle()).isEqualTo("A");
+        assertThat(noteService.getNoteById(updated, owner).getTitle()).isEqualTo("B2");
+        assertThat(noteService.getNoteById(foreign, other).getTitle()).isEqualTo("C");
+        assertThat(jdbcTemplate.queryForList("SELECT title FROM notes WHERE user_id = ?", String.class, owner.getId()))
+                .containsExactlyInAnyOrder("A", "B2", "Créée");
+    }
+
+    /**
+     * Modifie une note dans une autre transaction, pendant le premier
+     * groupe du prochain lot: après sa lecture, avant son enregistrement.
+     */
+    private void modifyConcurrentlyOnFirstChunk(Long noteId) {
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        NoteContentStore store = spy(noteContentStore);
+        boolean[] done = {false};
+        doAnswer(invocation -> {
+            if (!done[0]) {
+                done[0] = true;
+                concurrent.executeWithoutResult(status ->
+                        jdbcTemplate.update("UPDATE notes SET version = version + 1 WHERE id = ?", noteId));
+            }
+            return invocation.callRealMethod();
+        }).when(store).references();
+
+        NoteBatchService target = AopTestUtils.getTargetObject(noteBatchService);
+        ReflectionTestUtils.setField(target, "noteContentStore", store);
+        ReflectionTestUtils.setField(target, "chunkSize", 3);
+    }
+
+    private long notesVersion() {
+        return userRepository.findNotesVersionById(owner.getId()).orElseThrow();
+    }
+
+    private int revisions(Long noteId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_revisions WHERE note_id = ?", Integer.class, noteId);
+    }
+
+    private UserPrincipal createUser() {
+        String username = "batch-" + UUID.randomUUID();
+        Long id = userService.createUser(new CreateUserRequest(username, "password", null), "x").getId();
+        return UserPrincipal.fromUser(userRepository.findById(id).orElseThrow());
+    }
+}
@@ -0,0 +1,194 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.CreateUserRequest;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests du stockage dédupliqué des contenus de notes: compteurs de
+ * références et collecte des contenus qui ne sont plus utilisés.
+ *
+ * Le compteur d'un contenu doit toujours valoir le nombre de notes et
+ * d'instantanés de l'historique qui l'utilisent.
+ *
+ * @author Demo
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteContentStoreTest {
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserPrincipal owner;
+
+    private UserPrincipal other;
+
+    @BeforeEach
+    void setUp() {
+        owner = createUser();
+        other = createUser();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (userRepository.existsById(owner.getId())) {
+            userService.deleteUser(owner.getId());
+        }
+        userService.deleteUser(other.getId());
+    }
+
+    @Test
+    void sameContentIsStoredOnce() {
+        String content = unique("Contenu partagé");
+        String hash = NoteContentStore.hash(content);
+
+        noteService.createNote(new NoteRequest("Première", content), owner);
+        assertThat(refCount(hash)).isEqualTo(usages(hash)).isPositive();
+        long single = refCount(hash);
+
+        noteService.createNote(new NoteRequest("Deuxième", content), owner);
+        noteService.createNote(new NoteRequest("Troisième", content), other);
+
+        assertThat(rows(hash)).isEqualTo(1);
+        assertThat(refCount(hash)).isEqualTo(3 * single).isEqualTo(usages(hash));
+    }
+
+    @Test
+    void updatesAndDeletesKeepCountsConsistent() {
+        String shared = unique("Contenu partagé");
+        String replaced = unique("Nouveau contenu");
+        Long first = noteService.createNote(new NoteRequest("Première", shared), owner).getId();
+        Long second = noteService.createNote(new NoteRequest("Deuxième", shared), other).getId();
+
+        noteService.updateNote(first, new NoteRequest("Première", replaced), owner, null);
+        assertConsistent(shared);
+        assertConsistent(replaced);
+
+        // Retour au contenu précédent: le même contenu est de nouveau référencé
+        noteService.updateNote(first, new NoteRequest("Première", shared), owner, null);
+        assertConsistent(shared);
+        assertConsistent(replaced);
+
+        noteService.deleteNote(second, other, null);
+        assertConsistent(shared);
+    }
+
+    @Test
+    void unreferencedContentIsKeptDuringGracePeriod() {
+        String content = unique("Contenu retiré");
+        String hash = NoteContentStore.hash(content);
+        noteService.createNote(new NoteRequest("Note", content), owner);
+
+        userService.deleteUser(owner.getId());
+        assertThat(refCount(hash)).isZero();
+        assertThat(usages(hash)).isZero();
+
+        noteContentStore.collectGarbage();
+        assertThat(rows(hash)).isEqualTo(1);
+
+        // Délai de grâce (notes.content.gc-grace) écoulé
+        release(hash, LocalDateTime.now().minusHours(2));
+        noteContentStore.collectGarbage();
+        assertThat(rows(hash)).isZero();
+    }
+
+    @Test
+    void reusedContentIsNotCollected() {
+        String content = unique("Contenu réutilisé");
+        String hash = NoteContentStore.hash(content);
+        Long id = noteService.createNote(new NoteRequest("Note", content), owner).getId();
+        noteService.deleteNote(id, owner, null);
+        release(hash, LocalDateTime.now().minusHours(2));
+
+        // Réutilisé avant la collecte: la ligne existante est de nouveau référencée
+        noteService.createNote(new NoteRequest("Autre", content), other);
+        noteContentStore.collectGarbage();
+
+        assertThat(rows(hash)).isEqualTo(1);
+        assertConsistent(content);
+    }
+
+    @Test
+    void contentStillInUseIsNeverCollected() {
+        String inUse = unique("Contenu utilisé");
+        String orphan = unique("Contenu orphelin");
+        noteService.createNote(new NoteRequest("Note", inUse), owner);
+        Long id = noteService.createNote(new NoteRequest("Note", orphan), owner).getId();
+        noteService.deleteNote(id, owner, null);
+
+        // Compteur faussé: encore utilisé, il ne doit ni être supprimé ni bloquer les autres
+        jdbcTemplate.update("UPDATE note_contents SET ref_count = 0 WHERE hash = ?", NoteContentStore.hash(inUse));
+        release(NoteContentStore.hash(inUse), LocalDateTime.now().minusHours(2));
+        release(NoteContentStore.hash(orphan), LocalDateTime.now().minusHours(2));
+        noteContentStore.collectGarbage();
+
+        assertThat(rows(NoteContentStore.hash(inUse))).isEqualTo(1);
+        assertThat(rows(NoteContentStore.hash(orphan))).isZero();
+        // Compteur remis en état pour la suppression de l'utilisateur
+        jdbcTemplate.update("UPDATE note_contents SET ref_count = ? WHERE hash = ?",
+                usages(NoteContentStore.hash(inUse)), NoteContentStore.hash(inUse));
+    }
+
+    private void assertConsistent(String content) {
+        String hash = NoteContentStore.hash(content);
+        assertThat(rows(hash)).as(content).isEqualTo(1);
+        assertThat(refCount(hash)).as(content).isEqualTo(usages(hash));
+    }
+
+    private long refCount(String hash) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM note_contents WHERE hash = ?", Long.class, hash);
+    }
+
+    /**
+     * Nombre de notes et d'instantanés de l'historique qui utilisent un contenu.
+     */
+    private long usages(String hash) {
+        return jdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM notes WHERE content_hash = ?) " +
+                "+ (SELECT COUNT(*) FROM note_revisions WHERE content_hash = ?)", Long.class, hash, hash);
+    }
+
+    private int rows(String hash) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_contents WHERE hash = ?", Integer.class, hash);
+    }
+
+    private void release(String hash, LocalDateTime releasedAt) {
+        jdbcTemplate.update("UPDATE note_contents SET released_at = ? WHERE hash = ?", releasedAt, hash);
+    }
+
+    private static String unique(String text) {
+        return "<p>" + text + " " + UUID.randomUUID() + "</p>";
+    }
+
+    private UserPrincipal createUser() {
+        String username = "contents-" + UUID.randomUUID();
+        Long id = userService.createUser(new CreateUserRequest(username, "password", null), "x").getId();
+        return UserPrincipal.fromUser(userRepository.findById(id).orElseThrow());
+    }
+}
@@ -0,0 +1,176 @@
+package com.demo.notes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests du format de différences de l'historique des notes (NoteDelta).
+ *
+ * Chaque cas vérifie l'aller-retour: les différences calculées d'une base
+ * vers une cible, appliquées à cette base, redonnent exactement la cible.
+ *
+ * @author Demo
+ */
+class NoteDeltaTest {
+
+    private static final String PARAGRAPH =
+            "<p>Le contenu d'une note tient souvent sur plusieurs paragraphes de texte.</p>";
+
+    @Test
+    void roundTripEmptyBaseAndTarget() {
+        assertRoundTrip("", "");
+        assertRoundTrip("", "<p>Nouvelle note</p>");
+        assertRoundTrip("<p>Ancienne note</p>", "");
+    }
+
+    @Test
+    void roundTripIdenticalContent() {
+        byte[] delta = assertRoundTrip(PARAGRAPH, PARAGRAPH);
+        // Longueurs, puis une seule copie
+        assertThat(delta.length).isLessThan(8);
+    }
+
+    @Test
+    void roundTripPrefixOnlyEdit() {
+        // Ajout en fin de note: seul le préfixe commun est copié
+        byte[] delta = assertRoundTrip(PARAGRAPH, PARAGRAPH + "<p>Suite</p>");
+        assertThat(delta.length).isLessThan(24);
+        assertRoundTrip(PARAGRAPH + "<p>Suite</p>", PARAGRAPH);
+    }
+
+    @Test
+    void roundTripSuffixOnlyEdit() {
+        // Ajout en début de note: seul le suffixe commun est copié
+        byte[] delta = assertRoundTrip(PARAGRAPH, "<h1>Titre</h1>" + PARAGRAPH);
+        assertThat(delta.length).isLessThan(24);
+        assertRoundTrip("<h1>Titre</h1>" + PARAGRAPH, PARAGRAPH);
+    }
+
+    @Test
+    void roundTripEditInTheMiddle() {
+        assertRoundTrip(PARAGRAPH, PARAGRAPH.replace("plusieurs", "quelques"));
+    }
+
+    @Test
+    void roundTripMovedBlocks() {
+        String first = PARAGRAPH.replace("texte", "premier");
+        String second = PARAGRAPH.replace("texte", "deuxième");
+        String third = PARAGRAPH.replace("texte", "troisième");
+        String base = first + second + third;
+        String target = third + first + second;
+
+        // Les paragraphes déplacés sont copiés depuis la base, pas réinsérés
+        byte[] delta = assertRoundTrip(base, target);
+        assertThat(delta.length).isLessThan(target.getBytes(StandardCharsets.UTF_8).length / 4);
+
+        // Passage recopié ailleurs dans la note
+        assertRoundTrip(base, first + second + first + third);
+    }
+
+    @Test
+    void roundTripMultiByteUtf8() {
+        String base = "<p>Été à Noël: crème brûlée, 日本語 et 😀 émoticônes.</p>";
+        assertRoundTrip(base, base.replace("brûlée", "caramélisée"));
+        assertRoundTrip(base, base.replace("😀", "🎉🎉"));
+        assertRoundTrip(base, "ß" + base + "€");
+        assertRoundTrip("", base);
+    }
+
+    @Test
+    void roundTripLengthsOverOneByteVarint() {
+        // Longueurs et positions sur plusieurs octets (varint > 127, > 16383)
+        String base = PARAGRAPH.repeat(300);
+        String inserted = "x".repeat(200);
+        assertRoundTrip(base, base.substring(0, 10000) + inserted + base.substring(10000));
+        assertRoundTrip(base, base.substring(0, 150) + base.substring(20000));
+        assertRoundTrip("", inserted);
+        assertRoundTrip(inserted, "");
+    }
+
+    @Test
+    void roundTripRandomEdits() {
+        Random random = new Random(42);
+        // Caractères entiers (une paire de substitution n'est jamais coupée)
+        String[] alphabet = {"a", "b", "c", "d", "é", "è", "ê", " ", "€", "😀", "<", ">", "/", "p"};
+        for (int run = 0; run < 200; run++) {
+            List<String> base = new ArrayList<>();
+            int length = random.nextInt(400);
+            for (int i = 0; i < length; i++) {
+                base.add(alphabet[random.nextInt(alphabet.length)]);
+            }
+            List<String> target = new ArrayList<>(base);
+            for (int edit = random.nextInt(4); edit >= 0; edit--) {
+                int start = target.isEmpty() ? 0 : random.nextInt(target.size());
+                int end = Math.min(target.size(), start + random.nextInt(30));
+                target.subList(start, end).clear();
+                // Texte inséré repris de la base (blocs retrouvés par l'encodage)
+                int from = base.isEmpty() ? 0 : random.nextInt(base.size());
+                target.addAll(start, base.subList(from, Math.min(base.size(), from + random.nextInt(60))));
+            }
+            assertRoundTrip(String.join("", base), String.join("", target));
+        }
+    }
+
+    @Test
+    void applyRejectsTruncatedDelta() {
+        byte[] base = utf8(PARAGRAPH.repeat(3));
+        byte[] delta = NoteDelta.encode(base, utf8(PARAGRAPH + "<p>Modifié</p>" + PARAGRAPH));
+        for (int length = 0; length < delta.length; length++) {
+            byte[] truncated = Arrays.copyOf(delta, length);
+            assertThatThrownBy(() -> NoteDelta.apply(base, truncated))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void applyRejectsDeltaOfAnotherBase() {
+        byte[] base = utf8(PARAGRAPH);
+        byte[] delta = NoteDelta.encode(base, utf8(PARAGRAPH + "<p>Suite</p>"));
+        assertThatThrownBy(() -> NoteDelta.apply(utf8(PARAGRAPH + "!"), delta))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void applyRejectsOutOfRangeOperations() {
+        byte[] base = utf8("abcd");
+        // Base de 4 octets, cible de 4 octets, copie de 4 octets depuis la position 2
+        byte[] copyOutOfBase = {4, 4, (4 << 1) | 1, 2};
+        assertThatThrownBy(() -> NoteDelta.apply(base, copyOutOfBase))
+                .isInstanceOf(IllegalStateException.class);
+        // Cible de 2 octets, insertion de 3 octets
+        byte[] insertOverTarget = {4, 2, 3 << 1, 'x', 'y', 'z'};
+        assertThatThrownBy(() -> NoteDelta.apply(base, insertOverTarget))
+                .isInstanceOf(IllegalStateException.class);
+        // Varint qui ne se termine pas
+        byte[] endlessVarint = {4, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0};
+        assertThatThrownBy(() -> NoteDelta.apply(base, endlessVarint))
+                .isInstanceOf(IllegalStateException.class);
+        // Longueur de cible négative une fois décodée
+        byte[] negativeLength = {4, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        assertThatThrownBy(() -> NoteDelta.apply(base, negativeLength))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Vérifie l'aller-retour d'une base vers une cible.
+     *
+     * @return Les différences encodées
+     */
+    private static byte[] assertRoundTrip(String base, String target) {
+        byte[] delta = NoteDelta.encode(utf8(base), utf8(target));
+        assertThat(new String(NoteDelta.apply(utf8(base), delta), StandardCharsets.UTF_8)).isEqualTo(target);
+        return delta;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
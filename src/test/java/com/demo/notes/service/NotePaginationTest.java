@@ -0,0 +1,180 @@
+package com.demo.notes.service;
+
+import com.demo.notes.dto.CreateUserRequest;
+import com.demo.notes.dto.NotePageResponse;
+import com.demo.notes.dto.NoteRequest;
+import com.demo.notes.dto.NoteSummaryResponse;
+import com.demo.notes.exception.InvalidRequestException;
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests de la pagination par curseur (keyset) de la liste des notes.
+ *
+ * @author Demo
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NotePaginationTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 1, 2, 12, 0);
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserPrincipal owner;
+
+    @BeforeEach
+    void setUp() {
+        String username = "pages-" + UUID.randomUUID();
+        Long id = userService.createUser(new CreateUserRequest(username, "password", null), "x").getId();
+        owner = UserPrincipal.fromUser(userRepository.findById(id).orElseThrow());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.deleteUser(owner.getId());
+    }
+
+    @Test
+    void equalTimestampsArePagedByIdWithoutGapsOrDuplicates() {
+        List<Long> ids = createNotes(7);
+        // Même date de modification pour toutes: seul l'identifiant départage
+        jdbcTemplate.update("UPDATE notes SET updated_at = ? WHERE user_id = ?", NOON, owner.getId());
+
+        List<Long> read = readAll(3);
+
+        assertThat(read).containsExactlyElementsOf(ids.stream().sorted(Comparator.reverseOrder()).toList());
+    }
+
+    @Test
+    void pagesAreSortedByUpdatedAtThenId() {
+        List<Long> ids = createNotes(6);
+        setUpdatedAt(ids.get(0), NOON.plusHours(1));
+        setUpdatedAt(ids.get(1), NOON);
+        setUpdatedAt(ids.get(2), NOON.plusHours(1));
+        setUpdatedAt(ids.get(3), NOON.minusHours(1));
+        setUpdatedAt(ids.get(4), NOON);
+        setUpdatedAt(ids.get(5), NOON.plusHours(1));
+
+        List<Long> read = readAll(2);
+
+        assertThat(read).containsExactly(
+                ids.get(5), ids.get(2), ids.get(0),
+                ids.get(4), ids.get(1),
+                ids.get(3));
+    }
+
+    @Test
+    void noteModifiedBetweenPagesIsNotReadTwice() {
+        List<Long> ids = createNotes(5);
+        jdbcTemplate.update("UPDATE notes SET updated_at = ? WHERE user_id = ?", NOON, owner.getId());
+
+        NotePageResponse first = noteService.getUserNotes(owner, null, 2);
+        // Une note déjà lue est modifiée: elle remonte en tête, avant le curseur
+        Long seen = first.getItems().get(1).getId();
+        noteService.updateNote(seen, new NoteRequest("Modifiée", "<p>Modifiée</p>"), owner, null);
+
+        List<Long> read = new ArrayList<>(ids(first));
+        String next = first.getNext();
+        while (next != null) {
+            NotePageResponse page = noteService.getUserNotes(owner, next, 2);
+            read.addAll(ids(page));
+            next = page.getNext();
+        }
+
+        assertThat(read).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void cursorDesignatesLastNoteOfPage() {
+        createNotes(3);
+
+        NotePageResponse page = noteService.getUserNotes(owner, null, 2);
+
+        NoteSummaryResponse last = page.getItems().get(1);
+        String raw = new String(Base64.getUrlDecoder().decode(page.getNext()), StandardCharsets.UTF_8);
+        assertThat(raw).isEqualTo(LocalDateTime.parse(last.getUpdatedAt()) + "," + last.getId());
+    }
+
+    @Test
+    void fullLastPageHasNoCursor() {
+        createNotes(4);
+
+        NotePageResponse first = noteService.getUserNotes(owner, null, 2);
+        NotePageResponse second = noteService.getUserNotes(owner, first.getNext(), 2);
+
+        assertThat(second.getItems()).hasSize(2);
+        assertThat(second.getNext()).isNull();
+        assertThat(noteService.getUserNotes(owner, "", 10).getItems()).hasSize(4);
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        for (String cursor : List.of("%%%", encode("2024-01-02T12:00"), encode("pas une date,4"),
+                encode("2024-01-02T12:00,abc"))) {
+            assertThatThrownBy(() -> noteService.getUserNotes(owner, cursor, 10))
+                    .as(cursor)
+                    .isInstanceOf(InvalidRequestException.class);
+        }
+    }
+
+    private List<Long> createNotes(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(noteService.createNote(new NoteRequest("Note " + i, "<p>" + i + "</p>"), owner).getId());
+        }
+        return ids;
+    }
+
+    private void setUpdatedAt(Long noteId, LocalDateTime updatedAt) {
+        jdbcTemplate.update("UPDATE notes SET updated_at = ? WHERE id = ?", updatedAt, noteId);
+    }
+
+    private List<Long> readAll(int limit) {
+        List<Long> read = new ArrayList<>();
+        String cursor = null;
+        do {
+            NotePageResponse page = noteService.getUserNotes(owner, cursor, limit);
+            assertThat(page.getItems().size()).isLessThanOrEqualTo(limit);
+            read.addAll(ids(page));
+            cursor = page.getNext();
+        } while (cursor != null);
+        return read;
+    }
+
+    private static List<Long> ids(NotePageResponse page) {
+        return page.getItems().stream().map(NoteSummaryResponse::getId).toList();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
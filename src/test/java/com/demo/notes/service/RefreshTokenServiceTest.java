@@ -0,0 +1,121 @@
+package com.demo.notes.service;
+
+import com.demo.notes.repository.UserRepository;
+import com.demo.notes.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de la rotation des refresh tokens et de la détection de leur
+ * réutilisation (révocation de la famille).
+ *
+ * @author Demo
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserPrincipal user;
+
+    @BeforeEach
+    void setUp() {
+        user = UserPrincipal.fromUser(userRepository.findByUsername("user1").orElseThrow());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens");
+    }
+
+    @Test
+    void rotationIssuesNewTokenForSameUser() {
+        String issued = refreshTokenService.issue(user);
+
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(issued);
+
+        assertThat(rotation).isPresent();
+        assertThat(rotation.get().getPrincipal().getId()).isEqualTo(user.getId());
+        assertThat(rotation.get().getPrincipal().getAuthorities()).isNotEmpty();
+        assertThat(rotation.get().getRefreshToken()).isNotEqualTo(issued);
+        // Le nouveau token s'échange à son tour
+        assertThat(refreshTokenService.rotate(rotation.get().getRefreshToken())).isPresent();
+    }
+
+    @Test
+    void onlyDigestIsStored() {
+        String issued = refreshTokenService.issue(user);
+
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE token_hash = ?", Integer.class, issued);
+        assertThat(stored).isZero();
+    }
+
+    @Test
+    void reusedTokenRevokesWholeFamily() {
+        String first = refreshTokenService.issue(user);
+        String second = refreshTokenService.rotate(first).orElseThrow().getRefreshToken();
+
+        // Le token déjà échangé est rejoué (vol présumé)
+        assertThat(refreshTokenService.rotate(first)).isEmpty();
+
+        // Le token légitime de la famille est révoqué avec elle
+        assertThat(refreshTokenService.rotate(second)).isEmpty();
+        assertThat(familyCount()).isZero();
+    }
+
+    @Test
+    void reuseLeavesOtherFamiliesUntouched() {
+        String stolen = refreshTokenService.issue(user);
+        String otherSession = refreshTokenService.issue(user);
+        refreshTokenService.rotate(stolen).orElseThrow();
+
+        assertThat(refreshTokenService.rotate(stolen)).isEmpty();
+
+        assertThat(refreshTokenService.rotate(otherSession)).isPresent();
+    }
+
+    @Test
+    void unknownAndExpiredTokensAreRejected() {
+        assertThat(refreshTokenService.rotate("inconnu")).isEmpty();
+
+        String issued = refreshTokenService.issue(user);
+        jdbcTemplate.update("UPDATE refresh_tokens SET expires_at = DATEADD(DAY, -1, CURRENT_TIMESTAMP)");
+        assertThat(refreshTokenService.rotate(issued)).isEmpty();
+    }
+
+    @Test
+    void logoutAndRevokeAllInvalidateTokens() {
+        String loggedOut = refreshTokenService.issue(user);
+        refreshTokenService.revoke(loggedOut);
+        assertThat(refreshTokenService.rotate(loggedOut)).isEmpty();
+
+        String first = refreshTokenService.issue(user);
+        String second = refreshTokenService.issue(user);
+        refreshTokenService.revokeAll(user.getId());
+        assertThat(refreshTokenService.rotate(first)).isEmpty();
+        assertThat(refreshTokenService.rotate(second)).isEmpty();
+    }
+
+    private int familyCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT family_id) FROM refresh_tokens", Integer.class);
+    }
+}